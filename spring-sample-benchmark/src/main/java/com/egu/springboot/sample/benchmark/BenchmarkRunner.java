@@ -0,0 +1,41 @@
+package com.egu.springboot.sample.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * ベンチマークを実行するクラスです。
+ * <p>
+ * 引数はJMHのコマンドラインと同じ形式で指定します。
+ * プロファイラーを指定しない場合はGCのプロファイラーにより割り当て量を計測し、
+ * 結果の形式と出力先を指定しない場合は{@value #DEFAULT_RESULT}へJSONで出力します。
+ * 例えば{@code java -jar target/benchmarks.jar JsonPropertyNameMapper -p elements=1000}のように実行します。
+ * </p>
+ * @author t-eguchi
+ */
+public class BenchmarkRunner {
+
+	/** 結果の出力先 */
+	private static final String DEFAULT_RESULT = "jmh-result.json";
+
+	/** デフォルトコンストラクタを隠蔽 */
+	private BenchmarkRunner() {}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+		if (commandLine.getProfilers().isEmpty())
+			builder.addProfiler(GCProfiler.class);
+		if (!commandLine.getResultFormat().hasValue())
+			builder.resultFormat(ResultFormatType.JSON);
+		if (!commandLine.getResult().hasValue())
+			builder.result(DEFAULT_RESULT);
+		new Runner(builder.build()).run();
+	}
+}
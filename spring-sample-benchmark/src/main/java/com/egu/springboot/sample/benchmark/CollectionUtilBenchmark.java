@@ -0,0 +1,144 @@
+package com.egu.springboot.sample.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.egu.springboot.sample.util.CollectionUtil.CompactTree;
+import com.egu.springboot.sample.util.CollectionUtil.Node;
+
+/**
+ * {@link Node}の走査を計測するベンチマークです。
+ * <p>
+ * 子の数と深さを変えた完全な木に対して、最大の深さ、指定した深さのノード、葉のノードの取得を計測します。
+ * 最大の深さは一度計算すると保持するため、呼び出しごとに作成した木による計算と、保持した値の取得を分けて計測します。
+ * </p>
+ * @author t-eguchi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionUtilBenchmark {
+
+	/** ノードごとの子の数 */
+	@Param({ "2", "8" })
+	private int fanout;
+
+	/** 木の深さ */
+	@Param({ "4", "8" })
+	private int depth;
+
+	/** ルートノード */
+	private Node<Integer> root;
+
+	/** 配列で表した木 */
+	private CompactTree<Integer> compactTree;
+
+	/** 呼び出しごとに作成する最大の深さが未計算の木です */
+	@State(Scope.Thread)
+	public static class ColdTree {
+
+		/** ルートノード */
+		private Node<Integer> root;
+
+		@Setup(Level.Invocation)
+		public void setup(CollectionUtilBenchmark benchmark) {
+			root = new Node<>(0);
+			benchmark.addChildren(root, 1);
+		}
+	}
+
+	@Setup
+	public void setup() {
+		root = new Node<>(0);
+		addChildren(root, 1);
+		compactTree = CompactTree.of(root);
+	}
+
+	/** 深さに達するまで子を追加します */
+	private void addChildren(Node<Integer> parent, int level) {
+		if (depth <= level)
+			return;
+		for (int index = 0; index < fanout; index++) {
+			Node<Integer> child = new Node<>(index);
+			parent.addChild(child);
+			addChildren(child, level + 1);
+		}
+	}
+
+	@Benchmark
+	public int getMaxDepth(ColdTree tree) {
+		return tree.root.getMaxDepth();
+	}
+
+	@Benchmark
+	public int cachedGetMaxDepth() {
+		return root.getMaxDepth();
+	}
+
+	@Benchmark
+	public List<Node<Integer>> getDepthNodes() {
+		return root.getDepthNodes(depth);
+	}
+
+	@Benchmark
+	public List<Node<Integer>> getLeafs() {
+		return root.getLeafs();
+	}
+
+	@Benchmark
+	public CompactTree<Integer> compactOf() {
+		return CompactTree.of(root);
+	}
+
+	@Benchmark
+	public int compactGetMaxDepth() {
+		return compactTree.getMaxDepth();
+	}
+
+	@Benchmark
+	public int[] compactGetDepthNodes() {
+		return compactTree.getDepthNodes(depth);
+	}
+
+	@Benchmark
+	public int[] compactGetLeafs() {
+		return compactTree.getLeafs();
+	}
+
+	@Benchmark
+	public long sequentialSum() {
+		return root.preOrderStream().mapToLong(Node::getValue).sum();
+	}
+
+	@Benchmark
+	public long parallelSum() {
+		return root.parallelStream().mapToLong(Node::getValue).sum();
+	}
+
+	@Benchmark
+	public long foldSum() {
+		return root.<Long> fold((node, children) -> {
+			long sum = node.getValue();
+			for (long child : children) {
+				sum += child;
+			}
+			return sum;
+		});
+	}
+}
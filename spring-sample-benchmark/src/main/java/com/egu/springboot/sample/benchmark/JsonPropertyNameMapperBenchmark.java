@@ -0,0 +1,106 @@
+package com.egu.springboot.sample.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.egu.springboot.sample.service.JsonPropertyNameMapper;
+
+/**
+ * {@link JsonPropertyNameMapper}のリネームを計測するベンチマークです。
+ * <p>
+ * 配列の要素数とマッピングの深さを変えて、ツリー、ストリーミング、バイト列、並列の各方式を比較します。
+ * 配列の要素は深さの分だけ入れ子となり、各階層に変更対象と変更対象外のプロパティを持ちます。
+ * </p>
+ * @author t-eguchi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonPropertyNameMapperBenchmark {
+
+	/** 配列の要素数 */
+	@Param({ "10", "1000", "10000" })
+	private int elements;
+
+	/** マッピングの深さ */
+	@Param({ "1", "3", "5" })
+	private int depth;
+
+	/** 計測対象 */
+	private JsonPropertyNameMapper target;
+
+	/** 入力のJSON */
+	private String json;
+
+	/** 入力のUTF-8のJSON */
+	private byte[] jsonBytes;
+
+	@Setup
+	public void setup() {
+		// 階層ごとにCdをリネームする
+		Map<String, String> names = new LinkedHashMap<>();
+		StringBuilder path = new StringBuilder("List");
+		for (int level = 1; level <= depth; level++) {
+			names.put(path + ".Cd", path + ".CODE");
+			path.append(".L").append(level);
+		}
+		target = new JsonPropertyNameMapper(names);
+
+		StringBuilder builder = new StringBuilder("{\"Header\":{\"Cd\":\"header\"},\"List\":[");
+		for (int index = 0; index < elements; index++) {
+			if (0 < index)
+				builder.append(',');
+			appendElement(builder, index, 1);
+		}
+		json = builder.append("]}").toString();
+		jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** 深さの分だけ入れ子とした要素を追加します */
+	private void appendElement(StringBuilder builder, int index, int level) {
+		builder.append("{\"Cd\":").append(index)
+				.append(",\"Name\":\"name-").append(index).append('"');
+		if (level < depth) {
+			builder.append(",\"L").append(level).append("\":");
+			appendElement(builder, index, level + 1);
+		}
+		builder.append('}');
+	}
+
+	@Benchmark
+	public String tree() {
+		return target.renameProperties(json);
+	}
+
+	@Benchmark
+	public String streaming() {
+		return target.renamePropertiesStreaming(json);
+	}
+
+	@Benchmark
+	public byte[] bytes() {
+		return target.renameProperties(jsonBytes);
+	}
+
+	@Benchmark
+	public byte[] parallel() {
+		return target.renamePropertiesParallel(jsonBytes);
+	}
+}
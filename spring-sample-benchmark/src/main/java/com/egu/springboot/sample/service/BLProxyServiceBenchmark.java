@@ -0,0 +1,87 @@
+package com.egu.springboot.sample.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import com.egu.springboot.sample.service.BenchmarkBLService.BenchmarkRequest;
+
+/**
+ * {@link BLProxyService#execute(String, Object)}のディスパッチを計測するベンチマークです。
+ * <p>
+ * キャッシュにヒットする呼び出し、サービスIDを検索してキャッシュせずにビジネスロジックを実行する呼び出し、
+ * 存在しないサービスIDによる呼び出しを比較します。
+ * </p>
+ * @author t-eguchi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BLProxyServiceBenchmark {
+
+	/** ベンチマークに必要なBeanのみを定義する設定です */
+	@Configuration(proxyBeanMethods = false)
+	@Import({ BLProxyConfiguration.class, BLMetrics.class, BusinessLogicRegistry.class,
+			BLProxyService.class, BenchmarkBLService.class })
+	static class BenchmarkConfiguration {
+	}
+
+	/** コンテキスト */
+	private AnnotationConfigApplicationContext context;
+
+	/** 計測対象 */
+	private BLProxyService target;
+
+	/** 入力値 */
+	private BenchmarkRequest request;
+
+	@Setup
+	public void setup() {
+		context = new AnnotationConfigApplicationContext(BenchmarkConfiguration.class);
+		target = context.getBean(BLProxyService.class);
+		request = BenchmarkRequest.builder().id("id").name("name").build();
+
+		// キャッシュを温めておく
+		target.execute("Cached", request);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Object hotCache() {
+		return target.execute("Cached", request);
+	}
+
+	@Benchmark
+	public Object uncachedLookup() {
+		return target.execute("Get", request);
+	}
+
+	@Benchmark
+	public Object unknownID() {
+		try {
+			return target.execute("None", request);
+		} catch (RuntimeException e) {
+			return e;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.egu.springboot.sample.service;
+
+import org.springframework.stereotype.Service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ベンチマーク用のサービスです。
+ * @author t-eguchi
+ */
+@Service
+public class BenchmarkBLService {
+
+	/** ベンチマーク用のリクエストです */
+	@Data
+	@Builder
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class BenchmarkRequest {
+		private String id;
+		private String name;
+	}
+
+	/** ベンチマーク用のレスポンスです */
+	@Data
+	@Builder
+	public static class BenchmarkResponse {
+		private String id;
+		private String name;
+		private String memo;
+	}
+
+	/** キャッシュしないメソッド */
+	@BusinessLogic("Get")
+	public BenchmarkResponse get(BenchmarkRequest request) {
+		return BenchmarkResponse.builder()
+				.id(request.getId())
+				.name(request.getName())
+				.memo("GET")
+				.build();
+	}
+
+	/** キャッシュするメソッド */
+	@BusinessLogic(value = "Cached", cacheable = true, cacheMaximumSize = 1_000)
+	public BenchmarkResponse cached(BenchmarkRequest request) {
+		return BenchmarkResponse.builder()
+				.id(request.getId())
+				.name(request.getName())
+				.memo("CACHED")
+				.build();
+	}
+}
@@ -0,0 +1,84 @@
+package com.egu.springboot.sample.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import com.egu.springboot.sample.service.BenchmarkBLService.BenchmarkRequest;
+import com.egu.springboot.sample.service.BenchmarkBLService.BenchmarkResponse;
+
+/**
+ * {@link ExecutableSet}の呼び出しのオーバーヘッドを計測するベンチマークです。
+ * <p>
+ * 従来のリフレクションによる呼び出しと、{@link BusinessLogicInvoker}による呼び出しを比較します。
+ * </p>
+ * @author t-eguchi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutableSetBenchmark {
+
+	/** Bean */
+	private BenchmarkBLService bean;
+
+	/** 実行メソッド */
+	private Method method;
+
+	/** 実行可能セット */
+	private ExecutableSet executableSet;
+
+	/** Beanを束縛したMethodHandle */
+	private MethodHandle methodHandle;
+
+	/** 入力値 */
+	private BenchmarkRequest request;
+
+	@Setup
+	public void setup() throws Exception {
+		bean = new BenchmarkBLService();
+		method = BenchmarkBLService.class.getMethod("get", BenchmarkRequest.class);
+		executableSet = new ExecutableSet("Get", bean, method);
+		methodHandle = MethodHandles.lookup().unreflect(method)
+				.bindTo(bean)
+				.asType(MethodType.methodType(Object.class, Object.class));
+		request = BenchmarkRequest.builder().id("id").name("name").build();
+	}
+
+	@Benchmark
+	public BenchmarkResponse direct() {
+		return bean.get(request);
+	}
+
+	@Benchmark
+	public Object reflection() {
+		return ReflectionUtils.invokeMethod(method, bean, request);
+	}
+
+	@Benchmark
+	public Object methodHandle() throws Throwable {
+		return (Object) methodHandle.invokeExact((Object) request);
+	}
+
+	@Benchmark
+	public Object executableSet() {
+		return executableSet.execute(request);
+	}
+}
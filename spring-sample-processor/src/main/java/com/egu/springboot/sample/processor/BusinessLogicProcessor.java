@@ -0,0 +1,380 @@
+package com.egu.springboot.sample.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * {@code @BusinessLogic}が付与されたメソッドからディスパッチテーブルを生成する注釈プロセッサです。
+ * <p>
+ * Beanのクラスごとに{@code <クラス名>_BusinessLogicDispatcher}を生成し、
+ * サービスIDのswitchからBeanのメソッドを直接呼び出します。
+ * 生成したクラスは{@code META-INF/services}に登録し、実行時に{@code ServiceLoader}から読み込みます。
+ * 対象は注釈が直接付与されたメソッドのみで、オーバーライド元のメソッドの注釈はレジストリの走査で補完します。
+ * </p>
+ * @author t-eguchi
+ */
+public class BusinessLogicProcessor extends AbstractProcessor {
+
+	/** ビジネスロジックの注釈 */
+	static final String BUSINESS_LOGIC_ANNOTATION = "com.egu.springboot.sample.service.BusinessLogic";
+
+	/** ディスパッチャーのインターフェイス */
+	static final String DISPATCHER_INTERFACE = "com.egu.springboot.sample.service.BusinessLogicDispatcher";
+
+	/** 呼び出しのインターフェイス */
+	static final String INVOKER_INTERFACE = "com.egu.springboot.sample.service.BusinessLogicInvoker";
+
+	/** 生成するクラス名の接尾辞 */
+	static final String DISPATCHER_SUFFIX = "_BusinessLogicDispatcher";
+
+	/** 宣言されたサービスIDとメソッドの対応 */
+	private final Map<String, ExecutableElement> declaredServiceIDs = new LinkedHashMap<>();
+
+	/** 生成したクラス名 */
+	private final List<String> generatedClassNames = new ArrayList<>();
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Set.of(BUSINESS_LOGIC_ANNOTATION);
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			writeServiceFile();
+			return false;
+		}
+
+		TypeElement annotation = processingEnv.getElementUtils().getTypeElement(BUSINESS_LOGIC_ANNOTATION);
+		if (annotation == null)
+			return false;
+
+		// 注釈が付与されたメソッドを宣言しているクラスを収集
+		Map<TypeElement, Boolean> beanTypes = new LinkedHashMap<>();
+		for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+			if (element.getKind() != ElementKind.METHOD)
+				continue;
+			ExecutableElement method = (ExecutableElement) element;
+			if (!validate(method))
+				continue;
+
+			// 宣言されたサービスIDの重複はコンパイルエラーとする
+			String serviceID = getServiceID(method);
+			ExecutableElement duplicated = declaredServiceIDs.putIfAbsent(serviceID, method);
+			if (duplicated != null && !isOverridden(duplicated, method)) {
+				error(method, "Service[" + serviceID + "] is duplicated. "
+						+ duplicated.getEnclosingElement() + "#" + duplicated.getSimpleName());
+				continue;
+			}
+
+			beanTypes.put((TypeElement) method.getEnclosingElement(), Boolean.TRUE);
+		}
+
+		// Beanのクラスごとにディスパッチャーを生成
+		for (TypeElement beanType : beanTypes.keySet()) {
+			if (isGeneratable(beanType))
+				generate(beanType);
+		}
+		return false;
+	}
+
+	/** メソッドがビジネスロジックとして呼び出し可能かを検証します */
+	private boolean validate(ExecutableElement method) {
+		Set<Modifier> modifiers = method.getModifiers();
+		if (!modifiers.contains(Modifier.PUBLIC)) {
+			processingEnv.getMessager().printMessage(Kind.WARNING,
+					"BusinessLogic method must be public. It is ignored.", method);
+			return false;
+		}
+		if (modifiers.contains(Modifier.STATIC)) {
+			error(method, "BusinessLogic method must not be static.");
+			return false;
+		}
+		if (method.getParameters().size() != 1) {
+			error(method, "BusinessLogic method must have exactly one parameter.");
+			return false;
+		}
+
+		// 一括実行するメソッドはリストを受け取りリストを返す
+		AnnotationMirror mirror = getBusinessLogic(method);
+		if (getBooleanValue(mirror, "batch")
+				&& !(isList(method.getParameters().get(0).asType()) && isList(method.getReturnType()))) {
+			error(method, "Batch BusinessLogic method must accept and return java.util.List.");
+			return false;
+		}
+		return true;
+	}
+
+	/** リストとして扱える型かを判別します */
+	private boolean isList(TypeMirror type) {
+		var types = processingEnv.getTypeUtils();
+		TypeElement list = processingEnv.getElementUtils().getTypeElement(List.class.getName());
+		return type.getKind() == TypeKind.DECLARED
+				&& types.isAssignable(types.erasure(type), types.erasure(list.asType()));
+	}
+
+	/** 一方が他方をオーバーライドしているかを判別します */
+	private boolean isOverridden(ExecutableElement first, ExecutableElement second) {
+		var elements = processingEnv.getElementUtils();
+		return elements.overrides(first, second, (TypeElement) first.getEnclosingElement())
+				|| elements.overrides(second, first, (TypeElement) second.getEnclosingElement());
+	}
+
+	/** 生成したクラスから参照可能なクラスかを判別します */
+	private boolean isGeneratable(TypeElement beanType) {
+		if (beanType.getKind() != ElementKind.CLASS
+				|| beanType.getModifiers().contains(Modifier.ABSTRACT))
+			return false;
+
+		// 同一パッケージから参照できない入れ子クラスは対象外
+		Element current = beanType;
+		while (current instanceof TypeElement) {
+			TypeElement type = (TypeElement) current;
+			if (type.getModifiers().contains(Modifier.PRIVATE)
+					|| type.getNestingKind() == NestingKind.LOCAL
+					|| type.getNestingKind() == NestingKind.ANONYMOUS)
+				return false;
+			if (type.getNestingKind() == NestingKind.MEMBER
+					&& !type.getModifiers().contains(Modifier.STATIC))
+				return false;
+			current = type.getEnclosingElement();
+		}
+		return true;
+	}
+
+	/** ディスパッチャーのソースを生成します */
+	private void generate(TypeElement beanType) {
+		// 継承したメソッドを含め、呼び出し可能なビジネスロジックを収集
+		Map<String, ExecutableElement> methods = new LinkedHashMap<>();
+		var members = processingEnv.getElementUtils().getAllMembers(beanType);
+		for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+			if (getBusinessLogic(method) == null
+					|| !method.getModifiers().contains(Modifier.PUBLIC)
+					|| method.getModifiers().contains(Modifier.STATIC)
+					|| method.getParameters().size() != 1)
+				continue;
+
+			String serviceID = getServiceID(method);
+			ExecutableElement duplicated = methods.putIfAbsent(serviceID, method);
+			if (duplicated != null) {
+				error(beanType, "Service[" + serviceID + "] is duplicated. "
+						+ duplicated.getSimpleName() + ", " + method.getSimpleName());
+				return;
+			}
+		}
+
+		PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(beanType);
+		String packageName = packageElement.getQualifiedName().toString();
+		String simpleName = getBinarySimpleName(beanType) + DISPATCHER_SUFFIX;
+		String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+		String beanTypeName = beanType.getQualifiedName().toString();
+
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty())
+			source.append("package ").append(packageName).append(";\n\n");
+		source.append("@javax.annotation.processing.Generated(\"")
+				.append(BusinessLogicProcessor.class.getName()).append("\")\n");
+		source.append("public final class ").append(simpleName)
+				.append(" implements ").append(DISPATCHER_INTERFACE).append(" {\n\n");
+
+		// サービスIDの一覧
+		source.append("\tprivate static final java.util.Set<String> SERVICE_IDS = java.util.Set.of(");
+		String separator = "";
+		for (String serviceID : methods.keySet()) {
+			source.append(separator).append(literal(serviceID));
+			separator = ", ";
+		}
+		source.append(");\n\n");
+
+		// Beanの型
+		source.append("\t@Override\n");
+		source.append("\tpublic Class<?> getBeanType() {\n");
+		source.append("\t\treturn ").append(beanTypeName).append(".class;\n");
+		source.append("\t}\n\n");
+
+		source.append("\t@Override\n");
+		source.append("\tpublic java.util.Set<String> getServiceIDs() {\n");
+		source.append("\t\treturn SERVICE_IDS;\n");
+		source.append("\t}\n\n");
+
+		// 呼び出しの取得(ジェネリクスの引数へは型引数を指定できないため未検査のキャストとなる)
+		source.append("\t@Override\n");
+		source.append("\t@SuppressWarnings(\"unchecked\")\n");
+		source.append("\tpublic ").append(INVOKER_INTERFACE).append(" getInvoker(Object bean, String serviceID) {\n");
+		source.append("\t\t").append(beanTypeName).append(" target = (").append(beanTypeName).append(") bean;\n");
+		source.append("\t\tswitch (serviceID) {\n");
+		methods.forEach((serviceID, method) -> {
+			String call = "target." + method.getSimpleName()
+					+ "((" + getErasure(method.getParameters().get(0).asType()) + ") input)";
+			source.append("\t\tcase ").append(literal(serviceID)).append(":\n");
+			if (method.getReturnType().getKind() == TypeKind.VOID) {
+				source.append("\t\t\treturn input -> {\n");
+				source.append("\t\t\t\t").append(call).append(";\n");
+				source.append("\t\t\t\treturn null;\n");
+				source.append("\t\t\t};\n");
+			} else {
+				source.append("\t\t\treturn input -> ").append(call).append(";\n");
+			}
+		});
+		source.append("\t\tdefault:\n");
+		source.append("\t\t\treturn null;\n");
+		source.append("\t\t}\n");
+		source.append("\t}\n");
+		source.append("}\n");
+
+		try (Writer writer = processingEnv.getFiler()
+				.createSourceFile(qualifiedName, beanType)
+				.openWriter()) {
+			writer.write(source.toString());
+		} catch (IOException e) {
+			error(beanType, "Could not generate " + qualifiedName + ". " + e.getMessage());
+			return;
+		}
+		generatedClassNames.add(qualifiedName);
+	}
+
+	/** 生成したクラスをServiceLoaderの定義として書き出します */
+	private void writeServiceFile() {
+		if (generatedClassNames.isEmpty())
+			return;
+
+		String resourceName = "META-INF/services/" + DISPATCHER_INTERFACE;
+		try {
+			FileObject file = processingEnv.getFiler()
+					.createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+			try (Writer writer = file.openWriter()) {
+				for (String className : generatedClassNames) {
+					writer.write(className);
+					writer.write("\n");
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Could not write " + resourceName + ". " + e.getMessage());
+		}
+	}
+
+	/** ビジネスロジックの注釈を取得します */
+	private AnnotationMirror getBusinessLogic(ExecutableElement method) {
+		for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+			TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+			if (type.getQualifiedName().contentEquals(BUSINESS_LOGIC_ANNOTATION))
+				return mirror;
+		}
+		return null;
+	}
+
+	/**
+	 * サービスIDを取得します。
+	 * <p>
+	 * {@code BusinessLogicUtil#getId}と同様にidを優先し、未指定の場合はvalueとします。
+	 * </p>
+	 */
+	private String getServiceID(ExecutableElement method) {
+		AnnotationMirror mirror = getBusinessLogic(method);
+		String id = getStringValue(mirror, "id");
+		if (!id.isEmpty())
+			return id;
+		return getStringValue(mirror, "value");
+	}
+
+	/** 注釈の文字列の値を取得します */
+	private String getStringValue(AnnotationMirror mirror, String name) {
+		for (var entry : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name)) {
+				AnnotationValue value = entry.getValue();
+				return String.valueOf(value.getValue());
+			}
+		}
+		return "";
+	}
+
+	/** 注釈の真偽値の値を取得します */
+	private boolean getBooleanValue(AnnotationMirror mirror, String name) {
+		for (var entry : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name))
+				return Boolean.TRUE.equals(entry.getValue().getValue());
+		}
+		return false;
+	}
+
+	/** 型のイレイジャをソースの表記で取得します */
+	private String getErasure(TypeMirror type) {
+		return processingEnv.getTypeUtils().erasure(type).toString();
+	}
+
+	/** 入れ子を考慮したクラスの単純名を取得します */
+	private String getBinarySimpleName(TypeElement type) {
+		String name = type.getSimpleName().toString();
+		Element enclosing = type.getEnclosingElement();
+		while (enclosing instanceof TypeElement) {
+			name = enclosing.getSimpleName() + "_" + name;
+			enclosing = enclosing.getEnclosingElement();
+		}
+		return name;
+	}
+
+	/** 文字列リテラルに変換します */
+	private static String literal(String value) {
+		StringBuilder builder = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			switch (c) {
+			case '"':
+				builder.append("\\\"");
+				break;
+			case '\\':
+				builder.append("\\\\");
+				break;
+			case '\n':
+				builder.append("\\n");
+				break;
+			case '\r':
+				builder.append("\\r");
+				break;
+			case '\t':
+				builder.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					builder.append(String.format("\\u%04x", (int) c));
+				else
+					builder.append(c);
+			}
+		}
+		return builder.append('"').toString();
+	}
+
+	/** エラーを出力します */
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+	}
+}
@@ -0,0 +1 @@
+package com.egu.springboot.sample.processor;
\ No newline at end of file
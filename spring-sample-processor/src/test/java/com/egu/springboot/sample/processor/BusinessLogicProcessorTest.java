@@ -0,0 +1,205 @@
+package com.egu.springboot.sample.processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * {@link BusinessLogicProcessor}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class BusinessLogicProcessorTest {
+
+	/** 注釈とインターフェイスのソース */
+	private static final List<JavaFileObject> API_SOURCES = List.of(
+			source("com.egu.springboot.sample.service.BusinessLogic",
+					"package com.egu.springboot.sample.service;\n"
+							+ "import java.lang.annotation.*;\n"
+							+ "@Retention(RetentionPolicy.RUNTIME) @Target(ElementType.METHOD)\n"
+							+ "public @interface BusinessLogic {\n"
+							+ "  String id() default \"\";\n"
+							+ "  String value() default \"\";\n"
+							+ "  boolean batch() default false;\n"
+							+ "}\n"),
+			source("com.egu.springboot.sample.service.BusinessLogicInvoker",
+					"package com.egu.springboot.sample.service;\n"
+							+ "public interface BusinessLogicInvoker {\n"
+							+ "  Object invoke(Object input) throws Throwable;\n"
+							+ "}\n"),
+			source("com.egu.springboot.sample.service.BusinessLogicDispatcher",
+					"package com.egu.springboot.sample.service;\n"
+							+ "public interface BusinessLogicDispatcher {\n"
+							+ "  Class<?> getBeanType();\n"
+							+ "  java.util.Set<String> getServiceIDs();\n"
+							+ "  BusinessLogicInvoker getInvoker(Object bean, String serviceID);\n"
+							+ "}\n"));
+
+	/** 出力先 */
+	@TempDir
+	Path output;
+
+	@Test
+	@DisplayName("ディスパッチテーブルの生成と呼び出しを検証します。")
+	void test1() throws Throwable {
+		var diagnostics = compile(source("sample.SampleBL",
+				"package sample;\n"
+						+ "import com.egu.springboot.sample.service.BusinessLogic;\n"
+						+ "public class SampleBL {\n"
+						+ "  @BusinessLogic(\"Upper\") public String upper(String input) { return input.toUpperCase(); }\n"
+						+ "  @BusinessLogic(id = \"Length\") public int length(String input) { return input.length(); }\n"
+						+ "  @BusinessLogic(\"Accept\") public void accept(java.util.List<String> input) { input.add(\"ok\"); }\n"
+						+ "  @BusinessLogic(\"Hidden\") String hidden(String input) { return input; }\n"
+						+ "}\n"));
+		assertTrue(errors(diagnostics).isEmpty(), errors(diagnostics).toString());
+
+		// 生成されたクラスは警告なしにコンパイルされる
+		var warnings = diagnostics.getDiagnostics().stream()
+				.filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.MANDATORY_WARNING
+						|| diagnostic.getKind() == Diagnostic.Kind.WARNING)
+				.filter(diagnostic -> diagnostic.getSource() != null
+						&& diagnostic.getSource().getName().endsWith("_BusinessLogicDispatcher.java"))
+				.collect(Collectors.toList());
+		assertTrue(warnings.isEmpty(), warnings.toString());
+
+		// 生成されたクラスとServiceLoaderの定義
+		assertEquals("sample.SampleBL_BusinessLogicDispatcher\n", Files.readString(output.resolve(
+				"META-INF/services/com.egu.springboot.sample.service.BusinessLogicDispatcher")));
+
+		try (var classLoader = new URLClassLoader(new URL[] { output.toUri().toURL() })) {
+			Object bean = classLoader.loadClass("sample.SampleBL").getConstructor().newInstance();
+			Object dispatcher = classLoader.loadClass("sample.SampleBL_BusinessLogicDispatcher")
+					.getConstructor().newInstance();
+			Class<?> dispatcherType = classLoader.loadClass("com.egu.springboot.sample.service.BusinessLogicDispatcher");
+			assertEquals(Set.of("Upper", "Length", "Accept"),
+					dispatcherType.getMethod("getServiceIDs").invoke(dispatcher));
+
+			Function<String, Object> invoker = serviceID -> {
+				try {
+					return dispatcherType.getMethod("getInvoker", Object.class, String.class)
+							.invoke(dispatcher, bean, serviceID);
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalStateException(e);
+				}
+			};
+			Class<?> invokerType = classLoader.loadClass("com.egu.springboot.sample.service.BusinessLogicInvoker");
+			var invoke = invokerType.getMethod("invoke", Object.class);
+			assertEquals("ABC", invoke.invoke(invoker.apply("Upper"), "abc"));
+			assertEquals(3, invoke.invoke(invoker.apply("Length"), "abc"));
+
+			List<String> list = new ArrayList<>();
+			assertNull(invoke.invoke(invoker.apply("Accept"), list));
+			assertEquals(List.of("ok"), list);
+			assertNull(invoker.apply("None"));
+		}
+	}
+
+	@Test
+	@DisplayName("サービスIDの重複がコンパイルエラーとなることを検証します。")
+	void test2() throws IOException {
+		var diagnostics = compile(
+				source("sample.FirstBL",
+						"package sample;\n"
+								+ "import com.egu.springboot.sample.service.BusinessLogic;\n"
+								+ "public class FirstBL {\n"
+								+ "  @BusinessLogic(\"Get\") public String get(String input) { return input; }\n"
+								+ "}\n"),
+				source("sample.SecondBL",
+						"package sample;\n"
+								+ "import com.egu.springboot.sample.service.BusinessLogic;\n"
+								+ "public class SecondBL {\n"
+								+ "  @BusinessLogic(id = \"Get\") public String find(String input) { return input; }\n"
+								+ "}\n"));
+		var errors = errors(diagnostics);
+		assertEquals(1, errors.size(), errors.toString());
+		assertTrue(errors.get(0).getMessage(null).startsWith("Service[Get] is duplicated."),
+				errors.get(0).getMessage(null));
+	}
+
+	@Test
+	@DisplayName("引数の数が不正なメソッドがコンパイルエラーとなることを検証します。")
+	void test3() throws IOException {
+		var diagnostics = compile(source("sample.InvalidBL",
+				"package sample;\n"
+						+ "import com.egu.springboot.sample.service.BusinessLogic;\n"
+						+ "public class InvalidBL {\n"
+						+ "  @BusinessLogic(\"Get\") public String get(String first, String second) { return first; }\n"
+						+ "}\n"));
+		var errors = errors(diagnostics);
+		assertEquals(1, errors.size(), errors.toString());
+		assertEquals("BusinessLogic method must have exactly one parameter.", errors.get(0).getMessage(null));
+	}
+
+	@Test
+	@DisplayName("リストを扱わない一括実行のメソッドがコンパイルエラーとなることを検証します。")
+	void test4() throws IOException {
+		var diagnostics = compile(source("sample.BatchBL",
+				"package sample;\n"
+						+ "import com.egu.springboot.sample.service.BusinessLogic;\n"
+						+ "import java.util.List;\n"
+						+ "public class BatchBL {\n"
+						+ "  @BusinessLogic(value = \"Batch\", batch = true) public List<String> batch(List<String> input) { return input; }\n"
+						+ "  @BusinessLogic(value = \"Invalid\", batch = true) public String invalid(List<String> input) { return null; }\n"
+						+ "}\n"));
+		var errors = errors(diagnostics);
+		assertEquals(1, errors.size(), errors.toString());
+		assertEquals("Batch BusinessLogic method must accept and return java.util.List.",
+				errors.get(0).getMessage(null));
+	}
+
+	/** 注釈プロセッサを適用してコンパイルします */
+	private DiagnosticCollector<JavaFileObject> compile(JavaFileObject... sources) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		var diagnostics = new DiagnosticCollector<JavaFileObject>();
+		var fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+
+		var compilationUnits = new ArrayList<JavaFileObject>(API_SOURCES);
+		compilationUnits.addAll(List.of(sources));
+
+		var task = compiler.getTask(null, fileManager, diagnostics,
+				List.of("-d", output.toString(), "-s", output.toString(), "-Xlint:unchecked"),
+				null, compilationUnits);
+		task.setProcessors(List.of(new BusinessLogicProcessor()));
+		task.call();
+		fileManager.close();
+		return diagnostics;
+	}
+
+	/** エラーのみを抽出します */
+	private static List<Diagnostic<? extends JavaFileObject>> errors(DiagnosticCollector<JavaFileObject> diagnostics) {
+		return diagnostics.getDiagnostics().stream()
+				.filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+				.collect(Collectors.toList());
+	}
+
+	/** 文字列からソースを作成します */
+	private static JavaFileObject source(String className, String code) {
+		URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+		return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return code;
+			}
+		};
+	}
+}
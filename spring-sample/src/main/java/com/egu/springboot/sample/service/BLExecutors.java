@@ -0,0 +1,100 @@
+package com.egu.springboot.sample.service;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.MDC;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link BLProxyService}の非同期実行に利用するスレッドを扱うユーティリティです。
+ * @author t-eguchi
+ */
+final class BLExecutors {
+
+	/** スレッド名の接頭辞 */
+	private static final String THREAD_NAME_PREFIX = "bl-proxy-";
+
+	/** 仮想スレッドのExecutorを生成するメソッド(Java 21以降) */
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = ReflectionUtils.findMethod(
+			Executors.class, "newVirtualThreadPerTaskExecutor");
+
+	/** デフォルトコンストラクタを隠蔽 */
+	private BLExecutors() {}
+
+	/**
+	 * 仮想スレッドを利用できるかを判別します。
+	 * @return
+	 */
+	static boolean isVirtualThreadsAvailable() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * デフォルトのExecutorを生成します。
+	 * <p>
+	 * 仮想スレッドを利用できる場合はタスクごとに仮想スレッドを生成し、
+	 * 利用できない場合はスレッド数と待ち行列に上限を持つスレッドプールとします。
+	 * </p>
+	 * @param async
+	 * @return
+	 */
+	static ExecutorService newDefaultExecutor(BLProxyProperties.Async async) {
+		if (async.isVirtualThreads() && isVirtualThreadsAvailable())
+			return (ExecutorService) ReflectionUtils.invokeMethod(NEW_VIRTUAL_THREAD_EXECUTOR, null);
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				async.getPoolSize(), async.getPoolSize(),
+				60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(async.getQueueCapacity()),
+				new CustomizableThreadFactory(THREAD_NAME_PREFIX),
+				new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * 呼び出し元スレッドのMDCとロケールを実行スレッドへ引き継ぐデコレーターです。
+	 * @author t-eguchi
+	 */
+	static class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+		@Override
+		public Runnable decorate(Runnable runnable) {
+			// 呼び出し元スレッドのコンテキストを取得
+			Map<String, String> mdc = MDC.getCopyOfContextMap();
+			LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+
+			return () -> {
+				// 実行スレッドのコンテキストを退避して置き換える
+				Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+				LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+				setMdc(mdc);
+				LocaleContextHolder.setLocaleContext(localeContext);
+				try {
+					runnable.run();
+				} finally {
+					setMdc(previousMdc);
+					LocaleContextHolder.setLocaleContext(previousLocaleContext);
+				}
+			};
+		}
+
+		/** MDCを設定します */
+		private static void setMdc(Map<String, String> mdc) {
+			if (mdc == null)
+				MDC.clear();
+			else
+				MDC.setContextMap(mdc);
+		}
+	}
+}
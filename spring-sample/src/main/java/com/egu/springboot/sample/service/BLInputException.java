@@ -0,0 +1,30 @@
+package com.egu.springboot.sample.service;
+
+import lombok.Getter;
+
+/**
+ * ビジネスロジックの入力を引数の型へ変換できなかったことを表す例外です。
+ * <p>
+ * ビジネスロジック自身が送出した例外と区別するため、入力の読み込みとマッピングでのみ送出します。
+ * </p>
+ * @author t-eguchi
+ */
+public class BLInputException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** サービスID */
+	@Getter
+	private final String serviceID;
+
+	/**
+	 * サービスIDと詳細、原因を渡し、インスタンスを生成します。
+	 * @param serviceID
+	 * @param message
+	 * @param cause
+	 */
+	public BLInputException(String serviceID, String message, Throwable cause) {
+		super("Service[" + serviceID + "] input is invalid. " + message, cause);
+		this.serviceID = serviceID;
+	}
+}
@@ -0,0 +1,35 @@
+package com.egu.springboot.sample.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ビジネスロジックの実行を表すJava Flight Recorderのイベントです。
+ * <p>
+ * キャッシュ、呼び出しの集約、一括実行、同時実行数の制限を含めた実行時間を記録します。
+ * {@code bl.proxy.flight-recorder.enabled}が有効な場合のみ作成します。
+ * </p>
+ * @author t-eguchi
+ */
+@Name(BLInvocationEvent.NAME)
+@Label("BL Invocation")
+@Category({ "Spring Sample", "BL Proxy" })
+@Description("Invocation of the business logic including cache, coalescing, batching and concurrency limit.")
+@StackTrace(false)
+class BLInvocationEvent extends Event {
+
+	/** イベント名 */
+	static final String NAME = "com.egu.springboot.sample.BLInvocation";
+
+	/** サービスID */
+	@Label("Service ID")
+	String serviceID;
+
+	/** 正常に終了したかどうか */
+	@Label("Success")
+	boolean success;
+}
@@ -0,0 +1,241 @@
+package com.egu.springboot.sample.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * JSONのバイト列を入出力としてBLサービスを実行するサービスクラスです。
+ * <p>
+ * 入力は{@link JsonPropertyNameMapper#createRenamingParser(JsonParser)}により読み込みながらリネームし、
+ * ビジネスロジックの引数の型へ直接バインドします。結果は戻り値の型でバイト列へ変換し、
+ * リネームする場合は{@link JsonPropertyNameMapper#createRenamingGenerator(JsonGenerator)}により書き込みながらリネームします。
+ * 中間の文字列やツリーは作成せず、メソッドごとの{@link ObjectReader}と{@link ObjectWriter}は初回の呼び出し時に作成して再利用します。
+ * </p>
+ * @author t-eguchi
+ */
+@Service
+public class BLJsonProxyService {
+
+	/** メソッドごとの読み書き */
+	@AllArgsConstructor
+	private static class JsonCodec {
+
+		/** 引数の型の読み込み */
+		private final ObjectReader reader;
+
+		/** 戻り値の型の書き込み */
+		private final ObjectWriter writer;
+	}
+
+	/** BLサービスのプロキシ */
+	private final BLProxyService proxyService;
+
+	/** ビジネスロジックのレジストリ */
+	private final BusinessLogicRegistry registry;
+
+	/** 読み書きに利用するマッパー */
+	private final ObjectMapper objectMapper;
+
+	/** サービスIDごとの読み書き */
+	private final ConcurrentMap<String, JsonCodec> codecs = new ConcurrentHashMap<>();
+
+	/**
+	 * BLサービスのプロキシとレジストリを渡し、インスタンスを生成します。
+	 * <p>
+	 * {@link ObjectMapper}が定義されている場合はそれを利用し、定義されていない場合は既定の設定で生成します。
+	 * </p>
+	 * @param proxyService
+	 * @param registry
+	 * @param objectMapperProvider
+	 */
+	public BLJsonProxyService(BLProxyService proxyService, BusinessLogicRegistry registry,
+			ObjectProvider<ObjectMapper> objectMapperProvider) {
+		this.proxyService = proxyService;
+		this.registry = registry;
+		this.objectMapper = objectMapperProvider.getIfAvailable(ObjectMapper::new);
+	}
+
+	/**
+	 * サービスIDとJSONのバイト列を渡すことにより、処理を実行します。
+	 * @param serviceID
+	 * @param json UTF-8のJSON
+	 * @return 結果のJSONのバイト列
+	 */
+	public byte[] execute(String serviceID, byte[] json) {
+		return execute(serviceID, json, null);
+	}
+
+	/**
+	 * サービスIDとJSONのバイト列を渡し、プロパティ名をリネームしながら処理を実行します。
+	 * @param serviceID
+	 * @param json UTF-8のJSON
+	 * @param mapper リネームしない場合はnull
+	 * @return 結果のJSONのバイト列
+	 * @throws BLInputException JSONを引数の型へ変換できない場合
+	 */
+	public byte[] execute(String serviceID, byte[] json, JsonPropertyNameMapper mapper) {
+		JsonCodec codec = getCodec(serviceID);
+		Object result = proxyService.execute(serviceID, read(serviceID, codec, json, mapper));
+		return write(serviceID, codec, result);
+	}
+
+	/**
+	 * サービスIDとJSONのバイト列を渡し、プロパティ名をリネームしながら処理を非同期に実行します。
+	 * <p>
+	 * 入力の読み込みは呼び出し元スレッドで行い、例外は異常終了として設定します。
+	 * </p>
+	 * @param serviceID
+	 * @param json UTF-8のJSON
+	 * @param mapper リネームしない場合はnull
+	 * @return 結果のJSONのバイト列
+	 * @see BLProxyService#executeAsync(String, Object)
+	 */
+	public CompletableFuture<byte[]> executeAsync(String serviceID, byte[] json, JsonPropertyNameMapper mapper) {
+		JsonCodec codec;
+		Object input;
+		try {
+			codec = getCodec(serviceID);
+			input = read(serviceID, codec, json, mapper);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return proxyService.executeAsync(serviceID, input)
+				.thenApply(result -> write(serviceID, codec, result));
+	}
+
+	/**
+	 * サービスIDと入力のストリームを渡し、プロパティ名をリネームしながら処理を非同期に実行します。
+	 * <p>
+	 * 入力の読み込みは呼び出し元スレッドで行い、入力のストリームは閉じません。
+	 * 結果は{@link #write(String, Object, OutputStream, JsonPropertyNameMapper)}によりJSONとして書き込みます。
+	 * </p>
+	 * @param serviceID
+	 * @param json UTF-8のJSON
+	 * @param mapper 入力をリネームしない場合はnull
+	 * @return 結果
+	 */
+	public CompletableFuture<Object> executeAsync(String serviceID, InputStream json, JsonPropertyNameMapper mapper) {
+		Object input;
+		try {
+			JsonCodec codec = getCodec(serviceID);
+			input = read(serviceID, codec, codec.reader.createParser(json), mapper);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(new UncheckedIOException(e));
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return proxyService.executeAsync(serviceID, input);
+	}
+
+	/**
+	 * 結果を戻り値の型のJSONとして、プロパティ名をリネームしながら出力のストリームへ書き込みます。
+	 * <p>
+	 * 出力のストリームは閉じません。
+	 * </p>
+	 * @param serviceID
+	 * @param result {@link #executeAsync(String, InputStream, JsonPropertyNameMapper)}の結果
+	 * @param output 結果のJSONの出力先
+	 * @param mapper 結果をリネームしない場合はnull
+	 */
+	public void write(String serviceID, Object result, OutputStream output, JsonPropertyNameMapper mapper) {
+		write(serviceID, getCodec(serviceID), result, output, mapper);
+	}
+
+	/** サービスIDの読み書きを取得します(存在しなければ作成) */
+	private JsonCodec getCodec(String serviceID) {
+		JsonCodec codec = codecs.get(serviceID);
+		if (codec != null)
+			return codec;
+
+		// 存在しないサービスIDは保持しない
+		ExecutableSet executableSet = registry.get(serviceID);
+		if (executableSet == null)
+			throw new RuntimeException("Service[" + serviceID + "] is not found.");
+		return codecs.computeIfAbsent(serviceID, key -> createCodec(executableSet));
+	}
+
+	/** メソッドの引数と戻り値の型から読み書きを作成します */
+	private JsonCodec createCodec(ExecutableSet executableSet) {
+		Method method = executableSet.getMethod();
+		JavaType inputType = objectMapper.constructType(method.getGenericParameterTypes()[0]);
+		JavaType outputType = objectMapper.constructType(method.getGenericReturnType());
+
+		// 一括実行する場合は個別の呼び出しごとにリストの要素を扱う
+		BusinessLogic businessLogic = executableSet.getBusinessLogic();
+		if (businessLogic != null && businessLogic.batch()) {
+			inputType = inputType.getContentType();
+			outputType = outputType.getContentType();
+		}
+		return new JsonCodec(objectMapper.readerFor(inputType), objectMapper.writerFor(outputType));
+	}
+
+	/** JSONを引数の型へ変換します */
+	private static Object read(String serviceID, JsonCodec codec, byte[] json, JsonPropertyNameMapper mapper) {
+		try {
+			return read(serviceID, codec, codec.reader.createParser(json), mapper);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** パーサーから引数の型へ変換します */
+	private static Object read(String serviceID, JsonCodec codec, JsonParser parser, JsonPropertyNameMapper mapper) {
+		// 入力のストリームは閉じない(リネームするパーサーは閉じた時点でイベントを記録する)
+		parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+		try (JsonParser source = mapper == null ? parser : mapper.createRenamingParser(parser)) {
+			return codec.reader.readValue(source);
+		} catch (JsonProcessingException e) {
+			throw new BLInputException(serviceID, e.getOriginalMessage(), e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** 結果をJSONへ変換します */
+	private static byte[] write(String serviceID, JsonCodec codec, Object result) {
+		try {
+			return codec.writer.writeValueAsBytes(result);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Service[" + serviceID + "] result is invalid. " + e.getOriginalMessage(), e);
+		}
+	}
+
+	/** 結果をリネームしながら出力のストリームへ書き込みます */
+	private void write(String serviceID, JsonCodec codec, Object result, OutputStream output,
+			JsonPropertyNameMapper mapper) {
+		// 出力のストリームは閉じない(リネームする生成器は閉じた時点でイベントを記録する)
+		JsonGenerator generator;
+		try {
+			generator = objectMapper.getFactory().createGenerator(output);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		try (JsonGenerator target = mapper == null ? generator : mapper.createRenamingGenerator(generator)) {
+			codec.writer.writeValue(target, result);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Service[" + serviceID + "] result is invalid. " + e.getOriginalMessage(), e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
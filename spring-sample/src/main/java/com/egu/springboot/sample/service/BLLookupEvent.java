@@ -0,0 +1,34 @@
+package com.egu.springboot.sample.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * サービスIDによる実行可能Beanの検索を表すJava Flight Recorderのイベントです。
+ * <p>
+ * {@code bl.proxy.flight-recorder.enabled}が有効な場合のみ作成します。
+ * </p>
+ * @author t-eguchi
+ */
+@Name(BLLookupEvent.NAME)
+@Label("BL Lookup")
+@Category({ "Spring Sample", "BL Proxy" })
+@Description("Lookup of the business logic by service ID.")
+@StackTrace(false)
+class BLLookupEvent extends Event {
+
+	/** イベント名 */
+	static final String NAME = "com.egu.springboot.sample.BLLookup";
+
+	/** サービスID */
+	@Label("Service ID")
+	String serviceID;
+
+	/** 検索できたかどうか */
+	@Label("Found")
+	boolean found;
+}
@@ -0,0 +1,99 @@
+package com.egu.springboot.sample.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link BLProxyService}の計測値を参照するためのコンポーネントです。
+ * <p>
+ * サービスIDごとの計測値は{@link ExecutableSet}が保持し、
+ * 存在しないサービスIDの検索はサービスIDによらず1つの件数として記録します。
+ * </p>
+ * @author t-eguchi
+ */
+@Component
+public class BLMetrics {
+
+	/** ビジネスロジックのレジストリ */
+	private final BusinessLogicRegistry registry;
+
+	/** 存在しないサービスIDの検索回数 */
+	private final LongAdder lookupMisses = new LongAdder();
+
+	/**
+	 * ビジネスロジックのレジストリを渡し、インスタンスを生成します。
+	 * @param registry
+	 */
+	public BLMetrics(BusinessLogicRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * 存在しないサービスIDの検索を記録します。
+	 */
+	void recordLookupMiss() {
+		lookupMisses.increment();
+	}
+
+	/**
+	 * 存在しないサービスIDの検索回数を取得します。
+	 * @return
+	 */
+	public long getLookupMisses() {
+		return lookupMisses.sum();
+	}
+
+	/**
+	 * サービスIDの計測値を取得します。
+	 * @param serviceID
+	 * @return 存在しない場合はnull
+	 */
+	public ServiceMetrics getServiceMetrics(String serviceID) {
+		ExecutableSet executableSet = registry.get(serviceID);
+		return executableSet == null ? null : executableSet.getMetrics();
+	}
+
+	/**
+	 * サービスIDの現時点の計測値を取得します。
+	 * @param serviceID
+	 * @return 存在しない場合はnull
+	 */
+	public ServiceMetricsSnapshot getSnapshot(String serviceID) {
+		ServiceMetrics metrics = getServiceMetrics(serviceID);
+		return metrics == null ? null : metrics.snapshot();
+	}
+
+	/**
+	 * 全てのサービスIDの現時点の計測値を取得します。
+	 * @return
+	 */
+	public Map<String, ServiceMetricsSnapshot> getSnapshots() {
+		Map<String, ServiceMetricsSnapshot> snapshots = new LinkedHashMap<>();
+		for (ExecutableSet executableSet : registry.getExecutableSets()) {
+			snapshots.put(executableSet.getServiceID(), executableSet.getMetrics().snapshot());
+		}
+		return snapshots;
+	}
+
+	/**
+	 * 全てのサービスIDの計測値を取得します。
+	 * @return
+	 */
+	Iterable<ServiceMetrics> getAllServiceMetrics() {
+		return () -> registry.getExecutableSets().stream()
+				.map(ExecutableSet::getMetrics)
+				.iterator();
+	}
+
+	/**
+	 * レジストリの確定後に追加されたサービスIDの計測値の通知先を登録します。
+	 * @param listener
+	 */
+	void addListener(Consumer<ServiceMetrics> listener) {
+		registry.addListener(executableSet -> listener.accept(executableSet.getMetrics()));
+	}
+}
@@ -0,0 +1,138 @@
+package com.egu.springboot.sample.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link BLMetrics}の計測値をMicrometerのメーターとして公開するクラスです。
+ * <p>
+ * レジストリはコンテキストの更新完了時に確定するため、それ以前に渡された
+ * {@link MeterRegistry}へのメーターの登録は更新完了時まで遅延します。
+ * 更新完了後にレジストリへ追加されたサービスIDのメーターは、追加時に登録済みの全ての{@link MeterRegistry}へ登録します。
+ * </p>
+ * @author t-eguchi
+ */
+public class BLMetricsMeterBinder implements MeterBinder, ApplicationListener<ContextRefreshedEvent> {
+
+	/** メーター名の接頭辞 */
+	private static final String PREFIX = "bl.proxy.";
+
+	/** サービスIDのタグ名 */
+	private static final String SERVICE_TAG = "service";
+
+	/** 公開するパーセンタイル */
+	private static final double[] PERCENTILES = { 0.5, 0.99, 0.999 };
+
+	/** 計測値 */
+	private final BLMetrics metrics;
+
+	/** 登録を遅延しているレジストリ */
+	private final List<MeterRegistry> pendingRegistries = new ArrayList<>();
+
+	/** メーターを登録済みのレジストリ */
+	private final List<MeterRegistry> boundRegistries = new ArrayList<>();
+
+	/** コンテキストの更新が完了したかどうか */
+	private boolean refreshed;
+
+	/**
+	 * 計測値を渡し、インスタンスを生成します。
+	 * @param metrics
+	 */
+	public BLMetricsMeterBinder(BLMetrics metrics) {
+		this.metrics = metrics;
+		metrics.addListener(this::onServiceAdded);
+	}
+
+	@Override
+	public synchronized void bindTo(MeterRegistry registry) {
+		if (refreshed)
+			register(registry);
+		else
+			pendingRegistries.add(registry);
+	}
+
+	@Override
+	public synchronized void onApplicationEvent(ContextRefreshedEvent event) {
+		if (refreshed)
+			return;
+		refreshed = true;
+		for (MeterRegistry registry : pendingRegistries) {
+			register(registry);
+		}
+		pendingRegistries.clear();
+	}
+
+	/** 追加されたサービスIDのメーターを登録します */
+	private synchronized void onServiceAdded(ServiceMetrics serviceMetrics) {
+		// 更新完了前に追加された場合は、更新完了時にまとめて登録する
+		for (MeterRegistry registry : boundRegistries) {
+			register(registry, serviceMetrics);
+		}
+	}
+
+	/** メーターを登録します */
+	private void register(MeterRegistry registry) {
+		FunctionCounter.builder(PREFIX + "lookup.misses", metrics, BLMetrics::getLookupMisses)
+				.description("Lookups of unknown service IDs")
+				.register(registry);
+
+		for (ServiceMetrics serviceMetrics : metrics.getAllServiceMetrics()) {
+			register(registry, serviceMetrics);
+		}
+		boundRegistries.add(registry);
+	}
+
+	/** サービスIDのメーターを登録します */
+	private void register(MeterRegistry registry, ServiceMetrics serviceMetrics) {
+		String serviceID = serviceMetrics.getServiceID();
+		FunctionTimer.builder(PREFIX + "calls", serviceMetrics,
+				ServiceMetrics::getCalls, ServiceMetrics::getTotalNanos, TimeUnit.NANOSECONDS)
+				.tag(SERVICE_TAG, serviceID)
+				.description("Business logic invocations")
+				.register(registry);
+		FunctionCounter.builder(PREFIX + "errors", serviceMetrics, ServiceMetrics::getErrors)
+				.tag(SERVICE_TAG, serviceID)
+				.description("Business logic invocations completed with an exception")
+				.register(registry);
+		FunctionCounter.builder(PREFIX + "cache.hits", serviceMetrics, ServiceMetrics::getCacheHits)
+				.tag(SERVICE_TAG, serviceID)
+				.description("Business logic results served from the cache")
+				.register(registry);
+		FunctionCounter.builder(PREFIX + "cache.misses", serviceMetrics, ServiceMetrics::getCacheMisses)
+				.tag(SERVICE_TAG, serviceID)
+				.description("Cacheable business logic invocations not found in the cache")
+				.register(registry);
+		FunctionCounter.builder(PREFIX + "rejected", serviceMetrics, ServiceMetrics::getRejected)
+				.tag(SERVICE_TAG, serviceID)
+				.description("Business logic invocations rejected by the concurrency limit")
+				.register(registry);
+		FunctionCounter.builder(PREFIX + "coalesced", serviceMetrics, ServiceMetrics::getCoalesced)
+				.tag(SERVICE_TAG, serviceID)
+				.description("Business logic invocations coalesced into an identical in-flight invocation")
+				.register(registry);
+		Gauge.builder(PREFIX + "in.flight", serviceMetrics, ServiceMetrics::getInFlight)
+				.tag(SERVICE_TAG, serviceID)
+				.description("Business logic invocations in progress")
+				.register(registry);
+		for (double percentile : PERCENTILES) {
+			Gauge.builder(PREFIX + "latency", serviceMetrics,
+					target -> target.getLatencyNanos(percentile) / (double) TimeUnit.SECONDS.toNanos(1))
+					.tag(SERVICE_TAG, serviceID)
+					.tag("quantile", String.valueOf(percentile))
+					.baseUnit("seconds")
+					.description("Business logic latency percentiles")
+					.register(registry);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.egu.springboot.sample.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link BLProxyService}に関する設定です。
+ * @author t-eguchi
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(BLProxyProperties.class)
+public class BLProxyConfiguration {
+
+	/** 非同期実行に利用する{@link java.util.concurrent.Executor}のBean名 */
+	public static final String EXECUTOR_BEAN_NAME = "blProxyExecutor";
+
+	/**
+	 * Micrometerが利用できる場合の設定です。
+	 * @author t-eguchi
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+	static class MicrometerConfiguration {
+
+		/**
+		 * 計測値をMicrometerへ公開するバインダーを定義します。
+		 * @param metrics
+		 * @return
+		 */
+		@Bean
+		public BLMetricsMeterBinder blMetricsMeterBinder(BLMetrics metrics) {
+			return new BLMetricsMeterBinder(metrics);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package com.egu.springboot.sample.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * {@link BLProxyService}の設定値です。
+ * @author t-eguchi
+ */
+@Data
+@ConfigurationProperties(prefix = "bl.proxy")
+public class BLProxyProperties {
+
+	/** 非同期実行の設定 */
+	private final Async async = new Async();
+
+	/** Java Flight Recorderの設定 */
+	private final FlightRecorder flightRecorder = new FlightRecorder();
+
+	/** HTTPで公開する場合の設定 */
+	private final Web web = new Web();
+
+	/** サービスIDごとの設定(注釈の設定を上書きします。大文字を含むサービスIDは[]で囲みます) */
+	private final Map<String, Service> services = new LinkedHashMap<>();
+
+	/**
+	 * サービスIDごとの設定を取得します。
+	 * @param serviceID
+	 * @return 存在しない場合はnull
+	 */
+	public Service getService(String serviceID) {
+		return services.get(serviceID);
+	}
+
+	/**
+	 * 非同期実行の設定値です。
+	 * @author t-eguchi
+	 */
+	@Data
+	public static class Async {
+
+		/** 実行環境が対応している場合に仮想スレッドを利用するかどうか */
+		private boolean virtualThreads = true;
+
+		/** 仮想スレッドを利用できない場合のスレッド数 */
+		private int poolSize = Runtime.getRuntime().availableProcessors() * 8;
+
+		/** 仮想スレッドを利用できない場合の待ち行列の上限 */
+		private int queueCapacity = 10_000;
+	}
+
+	/**
+	 * Java Flight Recorderの設定値です。
+	 * @author t-eguchi
+	 */
+	@Data
+	public static class FlightRecorder {
+
+		/** 検索と実行のイベント({@link BLLookupEvent}、{@link BLInvocationEvent})を記録するかどうか */
+		private boolean enabled;
+	}
+
+	/**
+	 * HTTPで公開する場合の設定値です。
+	 * @author t-eguchi
+	 */
+	@Data
+	public static class Web {
+
+		/** リクエストの本文の上限(超えた場合は413とします) */
+		private DataSize maxRequestBodySize = DataSize.ofKilobytes(256);
+	}
+
+	/**
+	 * サービスIDごとの設定値です。
+	 * <p>
+	 * 未設定(null)の項目は{@link BusinessLogic}の設定を利用します。
+	 * </p>
+	 * @author t-eguchi
+	 */
+	@Data
+	public static class Service {
+
+		/** 同時に実行できる件数の上限 */
+		private Integer maxConcurrency;
+
+		/** 同時実行数の上限に達した場合に待機できる件数の上限 */
+		private Integer maxQueueDepth;
+
+		/** 同時実行数の上限に達した場合に待機できる時間の上限(ミリ秒) */
+		private Long maxQueueWaitMillis;
+
+		/** 処理時間の悪化に応じて同時実行数の上限を引き下げるかどうか */
+		private Boolean adaptiveConcurrency;
+
+		/** 実行結果をキャッシュするかどうか */
+		private Boolean cacheable;
+
+		/** キャッシュした結果の有効期間(ミリ秒) */
+		private Long cacheTtlMillis;
+
+		/** キャッシュする結果の最大件数 */
+		private Long cacheMaximumSize;
+
+		/** 同じ入力値による同時の呼び出しを1回の実行にまとめるかどうか */
+		private Boolean coalesce;
+
+		/** 一括実行の件数の上限 */
+		private Integer maxBatchSize;
+
+		/** 一括実行を待つ時間の上限(ミリ秒) */
+		private Long batchWindowMillis;
+
+		/** HTTPで呼び出す場合にリクエストへ適用するマッピングの名前(json.mapper.mappingsのキー) */
+		private String requestMapping;
+
+		/** HTTPで呼び出す場合にレスポンスへ適用するマッピングの名前(json.mapper.mappingsのキー) */
+		private String responseMapping;
+	}
+}
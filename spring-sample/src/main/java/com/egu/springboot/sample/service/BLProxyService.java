@@ -1,60 +1,77 @@
 package com.egu.springboot.sample.service;
 
-import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
-import org.springframework.context.ApplicationContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ReflectionUtils;
-
-import com.egu.springboot.sample.service.BusinessLogic.BusinessLogicUtil;
-
-import lombok.AllArgsConstructor;
 
 /**
  * BLサービスのプロキシとしての役割を担当するサービスクラスです。
  * @author t-eguchi
  */
 @Service
-public class BLProxyService {
-
-	/** 実行可能なセットです */
-	@AllArgsConstructor
-	private static class ExecutableSet {
-
-		/** Bean */
-		private final Object bean;
-
-		/** 実行メソッド */
-		private final Method method;
-
-		/**
-		 * オブジェクトを引数に実行します。
-		 * @param arg
-		 * @return
-		 */
-		public Object execute(Object arg) {
-			return ReflectionUtils.invokeMethod(
-					method, bean, arg);
-		}
-	}
+public class BLProxyService implements DisposableBean {
+
+	/** ビジネスロジックのレジストリ */
+	private final BusinessLogicRegistry registry;
+
+	/** 計測値 */
+	private final BLMetrics metrics;
+
+	/** 非同期実行に利用するExecutor */
+	private final Executor executor;
+
+	/** 自身で生成したExecutor(破棄時に停止する) */
+	private final ExecutorService ownedExecutor;
 
-	/** アプリケーションコンテキスト */
-	private final ApplicationContext context;
+	/** 非同期実行時のタスクのデコレーター */
+	private final TaskDecorator taskDecorator;
 
-	/** 実行可能Beanのキャッシュ */
-	private final Map<String, ExecutableSet> executableSetCache = new ConcurrentHashMap<>();
+	/** Java Flight Recorderのイベントを記録するかどうか */
+	private final boolean flightRecorder;
 
 	/**
-	 * アプリケーションコンテキストを渡し、インスタンスを生成します。
-	 * @param context
+	 * ビジネスロジックのレジストリと設定値を渡し、インスタンスを生成します。
+	 * <p>
+	 * {@link BLProxyConfiguration#EXECUTOR_BEAN_NAME}のExecutorが定義されている場合は
+	 * それを非同期実行に利用し、定義されていない場合は設定値から生成します。
+	 * </p>
+	 * @param registry
+	 * @param metrics
+	 * @param properties
+	 * @param executorProvider
+	 * @param taskDecoratorProvider
 	 */
-	public BLProxyService(ApplicationContext context) {
-		this.context = context;
+	public BLProxyService(
+			BusinessLogicRegistry registry,
+			BLMetrics metrics,
+			BLProxyProperties properties,
+			@Qualifier(BLProxyConfiguration.EXECUTOR_BEAN_NAME) ObjectProvider<Executor> executorProvider,
+			ObjectProvider<TaskDecorator> taskDecoratorProvider) {
+		this.registry = registry;
+		this.metrics = metrics;
+
+		Executor definedExecutor = executorProvider.getIfAvailable();
+		if (definedExecutor != null) {
+			this.executor = definedExecutor;
+			this.ownedExecutor = null;
+		} else {
+			this.ownedExecutor = BLExecutors.newDefaultExecutor(properties.getAsync());
+			this.executor = this.ownedExecutor;
+		}
+		this.taskDecorator = taskDecoratorProvider.getIfUnique(
+				BLExecutors.ContextPropagatingTaskDecorator::new);
+		this.flightRecorder = properties.getFlightRecorder().isEnabled();
 	}
 
 	/**
@@ -68,54 +85,216 @@ public class BLProxyService {
 		ExecutableSet executableSet = getExecutableSet(serviceID);
 
 		// 実行結果を返す
-		Object result = executableSet.execute(input);
+		Object result = invoke(executableSet, input);
 		return result;
 	}
 
+	/**
+	 * サービスIDと入力値を渡すことにより、処理を非同期に実行します。
+	 * <p>
+	 * 例外は{@link #execute(String, Object)}と同じものをラップせずに
+	 * 異常終了として設定します。呼び出し元スレッドのMDCとロケールは実行スレッドへ引き継ぎます。
+	 * </p>
+	 * @param serviceID
+	 * @param input
+	 * @return
+	 */
+	public CompletableFuture<Object> executeAsync(String serviceID, Object input) {
+		// サービスIDに該当する実行可能Beanを取得
+		ExecutableSet executableSet;
+		try {
+			executableSet = getExecutableSet(serviceID);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		return submit(executableSet, input);
+	}
+
+	/**
+	 * サービスIDと入力値の組を複数渡すことにより、処理を並列に実行します。
+	 * <p>
+	 * サービスIDの検索を先にまとめて行い、実行可能なものを非同期実行のExecutorへ振り分けます。
+	 * 最後の1件は呼び出し元スレッドで実行します。
+	 * 結果は入力と同じ順序で返し、各要素ごとに正常終了か異常終了かを保持します。
+	 * ただし{@link Error}は結果に変換せずに送出します。
+	 * </p>
+	 * @param invocations
+	 * @return
+	 */
+	public List<InvocationResult> executeBatch(List<Invocation> invocations) {
+		int size = invocations.size();
+		InvocationResult[] results = new InvocationResult[size];
+
+		// サービスIDに該当する実行可能Beanをまとめて取得
+		ExecutableSet[] executableSets = new ExecutableSet[size];
+		int lastIndex = -1;
+		for (int index = 0; index < size; index++) {
+			Invocation invocation = invocations.get(index);
+			try {
+				executableSets[index] = getExecutableSet(invocation.getServiceID());
+				lastIndex = index;
+			} catch (RuntimeException e) {
+				results[index] = InvocationResult.failure(invocation.getServiceID(), e);
+			}
+		}
+
+		// 最後の1件以外は非同期に実行
+		@SuppressWarnings("unchecked")
+		CompletableFuture<Object>[] futures = new CompletableFuture[size];
+		for (int index = 0; index < lastIndex; index++) {
+			if (executableSets[index] != null)
+				futures[index] = submit(executableSets[index], invocations.get(index).getInput());
+		}
+
+		// 最後の1件は呼び出し元スレッドで実行
+		if (0 <= lastIndex) {
+			Invocation invocation = invocations.get(lastIndex);
+			try {
+				results[lastIndex] = InvocationResult.success(
+						invocation.getServiceID(), invoke(executableSets[lastIndex], invocation.getInput()));
+			} catch (Exception e) {
+				results[lastIndex] = InvocationResult.failure(invocation.getServiceID(), e);
+			}
+		}
+
+		// 入力の順序で結果を収集
+		for (int index = 0; index < lastIndex; index++) {
+			if (futures[index] != null)
+				results[index] = await(invocations.get(index).getServiceID(), futures[index]);
+		}
+		return Arrays.asList(results);
+	}
+
+	/** 実行可能Beanを実行します(イベントを記録する場合は実行の前後で計測) */
+	private Object invoke(ExecutableSet executableSet, Object input) {
+		if (!flightRecorder)
+			return executeCached(executableSet, input);
+
+		BLInvocationEvent event = new BLInvocationEvent();
+		event.serviceID = executableSet.getServiceID();
+		event.begin();
+		try {
+			Object result = executeCached(executableSet, input);
+			event.success = true;
+			return result;
+		} finally {
+			event.commit();
+		}
+	}
+
+	/** キャッシュする場合はキャッシュを利用して実行します */
+	private static Object executeCached(ExecutableSet executableSet, Object input) {
+		// キャッシュしない場合はそのまま実行
+		ResultCache resultCache = executableSet.getResultCache();
+		if (resultCache == null)
+			return executeCoalesced(executableSet, input);
+
+		// キャッシュになければ実行してキャッシュに追加(同じ入力値の同時の呼び出しは完了を待ち、実行は更新処理の外で行う)
+		ServiceMetrics serviceMetrics = executableSet.getMetrics();
+		boolean[] loaded = new boolean[1];
+		Object result = resultCache.get(input, key -> {
+			loaded[0] = true;
+			serviceMetrics.recordCacheMiss();
+			return executeCoalesced(executableSet, key);
+		});
+		if (!loaded[0])
+			serviceMetrics.recordCacheHit();
+		return result;
+	}
+
+	/** 同じ入力値の実行中の呼び出しがあれば、その結果を共有します */
+	private static Object executeCoalesced(ExecutableSet executableSet, Object input) {
+		RequestCoalescer coalescer = executableSet.getRequestCoalescer();
+		if (coalescer == null)
+			return executeBatched(executableSet, input);
+		return coalescer.execute(input, () -> executeBatched(executableSet, input));
+	}
+
+	/** 一括実行する場合は、他の呼び出しとまとめて実行します */
+	private static Object executeBatched(ExecutableSet executableSet, Object input) {
+		MicroBatcher batcher = executableSet.getMicroBatcher();
+		if (batcher == null)
+			return executeWithinLimit(executableSet, input);
+		return batcher.execute(input, inputs -> executeWithinLimit(executableSet, inputs));
+	}
+
+	/** 同時実行数の制限の範囲で実行します */
+	private static Object executeWithinLimit(ExecutableSet executableSet, Object input) {
+		ConcurrencyLimiter limiter = executableSet.getConcurrencyLimiter();
+		if (limiter == null)
+			return executableSet.execute(input);
+
+		limiter.acquire();
+		long start = System.nanoTime();
+		try {
+			return executableSet.execute(input);
+		} finally {
+			limiter.release(System.nanoTime() - start);
+		}
+	}
+
+	/** 非同期実行のExecutorで実行します */
+	private CompletableFuture<Object> submit(ExecutableSet executableSet, Object input) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+
+		// 実行スレッドで実行し、結果を設定する
+		Runnable task = taskDecorator.decorate(() -> {
+			try {
+				future.complete(invoke(executableSet, input));
+			} catch (Exception e) {
+				future.completeExceptionally(e);
+			} catch (Error e) {
+				// 完了を待つ呼び出し元に伝えたうえで、実行スレッドでも送出する
+				future.completeExceptionally(e);
+				throw e;
+			}
+		});
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/** 非同期実行の完了を待ち、結果に変換します */
+	private static InvocationResult await(String serviceID, CompletableFuture<Object> future) {
+		try {
+			return InvocationResult.success(serviceID, future.join());
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			return InvocationResult.failure(serviceID, e.getCause());
+		} catch (CancellationException e) {
+			return InvocationResult.failure(serviceID, e);
+		}
+	}
+
 	/** サービスIDから実行可能Beanを取得します */
 	private ExecutableSet getExecutableSet(String serviceID) {
-		// キャッシュにあればそれを利用
-		ExecutableSet executableSet = executableSetCache.get(serviceID);
-		if (executableSet != null)
-			return executableSet;
-
-		// Beanの一覧を取得
-		List<Object> beans = getBeans();
-
-		// Beanの中からサービスIDに合致するメソッドを検索
-		for (Object bean : beans) {
-			Method[] methods = bean.getClass().getMethods();
-			for (Method method : methods) {
-				BusinessLogic businessLogic = method.getAnnotation(
-						BusinessLogic.class);
-				if (businessLogic == null)
-					continue;
-
-				String businessLogicID = BusinessLogicUtil.getId(businessLogic);
-				if (businessLogicID.equals(serviceID)) {
-					executableSet = new ExecutableSet(bean, method);
-					break;
-				}
-			}
+		// レジストリから取得
+		BLLookupEvent event = flightRecorder ? new BLLookupEvent() : null;
+		if (event != null)
+			event.begin();
+		ExecutableSet executableSet = registry.get(serviceID);
+		if (event != null) {
+			event.serviceID = serviceID;
+			event.found = executableSet != null;
+			event.commit();
 		}
 
 		// 検索出来なかった場合は例外
 		if (executableSet == null) {
+			metrics.recordLookupMiss();
 			throw new RuntimeException("Service[" + serviceID + "] is not found.");
 		}
-
-		// キャッシュに追加し、リターン
-		executableSetCache.put(serviceID, executableSet);
 		return executableSet;
 	}
 
-	/** 登録されているBeanの一覧を取得します */
-	private List<Object> getBeans() {
-		// Bean名一覧→Beanへ変換→収集
-		String[] beanNames = context.getBeanDefinitionNames();
-		List<Object> beans = Arrays.stream(beanNames)
-				.map(beanName -> context.getBean(beanName))
-				.collect(Collectors.toList());
-		return beans;
+	@Override
+	public void destroy() {
+		if (ownedExecutor != null)
+			ownedExecutor.shutdown();
 	}
 }
@@ -0,0 +1,26 @@
+package com.egu.springboot.sample.service;
+
+import lombok.Getter;
+
+/**
+ * 同時実行数の上限により、ビジネスロジックの呼び出しを拒否したことを表す例外です。
+ * @author t-eguchi
+ */
+public class BLRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** サービスID */
+	@Getter
+	private final String serviceID;
+
+	/**
+	 * サービスIDと詳細を渡し、インスタンスを生成します。
+	 * @param serviceID
+	 * @param message
+	 */
+	public BLRejectedException(String serviceID, String message) {
+		super("Service[" + serviceID + "] is rejected. " + message);
+		this.serviceID = serviceID;
+	}
+}
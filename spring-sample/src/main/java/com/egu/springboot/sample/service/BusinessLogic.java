@@ -36,6 +36,108 @@ public @interface BusinessLogic {
 	@AliasFor("id")
 	String value() default "";
 
+	/**
+	 * 実行結果をキャッシュするかどうかを表す値です。
+	 * <p>
+	 * 入力値の{@code equals}と{@code hashCode}をキーとするため、
+	 * 副作用がなく、入力値が等しければ同じ結果を返すメソッドにのみ指定します。
+	 * 入力値がnullの場合と、結果がnullまたは例外の場合はキャッシュしません。
+	 * キャッシュした結果は呼び出し元の間で共有されるため、呼び出し元で変更しないでください。
+	 * </p>
+	 * @return
+	 */
+	boolean cacheable() default false;
+
+	/**
+	 * キャッシュした結果の有効期間(ミリ秒)を表す値です。
+	 * @return
+	 */
+	long cacheTtlMillis() default 60_000L;
+
+	/**
+	 * キャッシュする結果の最大件数を表す値です。
+	 * @return
+	 */
+	long cacheMaximumSize() default 1_000L;
+
+	/**
+	 * 同時に実行できる件数の上限を表す値です。
+	 * <p>
+	 * 0以下の場合は上限を設けません。{@code bl.proxy.services.[<サービスID>].max-concurrency}で上書きできます。
+	 * </p>
+	 * @return
+	 */
+	int maxConcurrency() default 0;
+
+	/**
+	 * 同時実行数の上限に達した場合に待機できる件数の上限を表す値です。
+	 * <p>
+	 * 上限を超えた呼び出しは{@link BLRejectedException}により即座に拒否します。
+	 * {@code bl.proxy.services.[<サービスID>].max-queue-depth}で上書きできます。
+	 * </p>
+	 * @return
+	 */
+	int maxQueueDepth() default 0;
+
+	/**
+	 * 同時実行数の上限に達した場合に待機できる時間の上限(ミリ秒)を表す値です。
+	 * <p>
+	 * 時間内に実行できない呼び出しは{@link BLRejectedException}により拒否します。
+	 * {@code bl.proxy.services.[<サービスID>].max-queue-wait-millis}で上書きできます。
+	 * </p>
+	 * @return
+	 */
+	long maxQueueWaitMillis() default 30_000L;
+
+	/**
+	 * 処理時間の悪化に応じて同時実行数の上限を引き下げるかどうかを表す値です。
+	 * <p>
+	 * {@link #maxConcurrency()}を上限として、処理時間が最小値から悪化した場合は上限を縮小し、
+	 * 回復した場合は拡大します。{@code bl.proxy.services.[<サービスID>].adaptive-concurrency}で上書きできます。
+	 * </p>
+	 * @return
+	 */
+	boolean adaptiveConcurrency() default false;
+
+	/**
+	 * 同じ入力値による同時の呼び出しを1回の実行にまとめるかどうかを表す値です。
+	 * <p>
+	 * 実行中の呼び出しと等しい入力値の呼び出しは、再度実行せずにその結果を共有します。
+	 * 完了後は結果を保持しないため、入力値は{@code equals}と{@code hashCode}を実装している必要があります。
+	 * {@code bl.proxy.services.[<サービスID>].coalesce}で上書きできます。
+	 * </p>
+	 * @return
+	 */
+	boolean coalesce() default false;
+
+	/**
+	 * 個別の呼び出しをまとめて実行するかどうかを表す値です。
+	 * <p>
+	 * メソッドは入力値の{@link java.util.List}を受け取り、同じ順序の結果の{@link java.util.List}を返す必要があります。
+	 * 呼び出し元は入力値を1件ずつ渡し、対応する結果を1件ずつ受け取ります。
+	 * </p>
+	 * @return
+	 */
+	boolean batch() default false;
+
+	/**
+	 * 一括実行の件数の上限を表す値です。
+	 * <p>
+	 * {@code bl.proxy.services.[<サービスID>].max-batch-size}で上書きできます。
+	 * </p>
+	 * @return
+	 */
+	int maxBatchSize() default 100;
+
+	/**
+	 * 一括実行を待つ時間の上限を表す値です。(ミリ秒)
+	 * <p>
+	 * {@code bl.proxy.services.[<サービスID>].batch-window-millis}で上書きできます。
+	 * </p>
+	 * @return
+	 */
+	long batchWindowMillis() default 10L;
+
 	/**
 	 * ビジネスロジックアノテーションに利用するユーティリティです。
 	 * @author t-eguchi
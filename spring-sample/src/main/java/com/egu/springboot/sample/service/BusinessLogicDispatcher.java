@@ -0,0 +1,34 @@
+package com.egu.springboot.sample.service;
+
+import java.util.Set;
+
+/**
+ * コンパイル時に生成されるビジネスロジックのディスパッチテーブルです。
+ * <p>
+ * {@code spring-sample-processor}の注釈プロセッサがBeanのクラスごとに実装を生成し、
+ * {@code META-INF/services}に登録します。
+ * </p>
+ * @author t-eguchi
+ */
+public interface BusinessLogicDispatcher {
+
+	/**
+	 * ディスパッチ対象のBeanの型を取得します。
+	 * @return
+	 */
+	Class<?> getBeanType();
+
+	/**
+	 * ディスパッチ可能なサービスIDの一覧を取得します。
+	 * @return
+	 */
+	Set<String> getServiceIDs();
+
+	/**
+	 * サービスIDに該当するメソッドをBeanに束縛した呼び出しを取得します。
+	 * @param bean
+	 * @param serviceID
+	 * @return 存在しない場合はnull
+	 */
+	BusinessLogicInvoker getInvoker(Object bean, String serviceID);
+}
@@ -0,0 +1,20 @@
+package com.egu.springboot.sample.service;
+
+/**
+ * ビジネスロジックのメソッドを直接呼び出すための関数型インターフェイスです。
+ * <p>
+ * メソッドが送出した例外はラップせずにそのまま送出します。
+ * </p>
+ * @author t-eguchi
+ */
+@FunctionalInterface
+public interface BusinessLogicInvoker {
+
+	/**
+	 * 入力値を引数にビジネスロジックを呼び出します。
+	 * @param input
+	 * @return
+	 * @throws Throwable
+	 */
+	Object invoke(Object input) throws Throwable;
+}
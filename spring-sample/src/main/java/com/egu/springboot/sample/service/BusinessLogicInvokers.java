@@ -0,0 +1,92 @@
+package com.egu.springboot.sample.service;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link BusinessLogicInvoker}を生成するユーティリティです。
+ * @author t-eguchi
+ */
+@Slf4j
+final class BusinessLogicInvokers {
+
+	/** 実装するメソッド名 */
+	private static final String INVOKE_METHOD_NAME = "invoke";
+
+	/** 関数型インターフェイスのメソッドの型 */
+	private static final MethodType INVOKE_METHOD_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	/** デフォルトコンストラクタを隠蔽 */
+	private BusinessLogicInvokers() {}
+
+	/**
+	 * Beanとメソッドを束縛した呼び出しを生成します。
+	 * <p>
+	 * {@link LambdaMetafactory}によりメソッドを直接呼び出すクラスを生成し、
+	 * 生成できない場合は{@link MethodHandle}による呼び出しとします。
+	 * </p>
+	 * @param bean
+	 * @param method
+	 * @return
+	 */
+	static BusinessLogicInvoker create(Object bean, Method method) {
+		if (method.getReturnType() != void.class) {
+			try {
+				return createLambda(bean, method);
+			} catch (ReflectiveOperationException | LambdaConversionException e) {
+				// クラスローダーやアクセス権の都合で生成できない場合はMethodHandleとする
+				log.debug("Falling back to MethodHandle for {}", method, e);
+			}
+		}
+		return createMethodHandle(bean, method);
+	}
+
+	/** LambdaMetafactoryにより呼び出しを生成します */
+	private static BusinessLogicInvoker createLambda(Object bean, Method method)
+			throws ReflectiveOperationException, LambdaConversionException {
+		Class<?> receiverType = method.getDeclaringClass();
+		MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(receiverType, MethodHandles.lookup());
+		MethodHandle implMethod = lookup.unreflect(method);
+
+		CallSite callSite = LambdaMetafactory.metafactory(
+				lookup,
+				INVOKE_METHOD_NAME,
+				MethodType.methodType(BusinessLogicInvoker.class, receiverType),
+				INVOKE_METHOD_TYPE,
+				implMethod,
+				MethodType.methodType(
+						ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType()),
+						ClassUtils.resolvePrimitiveIfNecessary(method.getParameterTypes()[0])));
+		try {
+			return (BusinessLogicInvoker) callSite.getTarget().invoke(bean);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			// インスタンスの生成のみのため検査例外は発生しない
+			throw new IllegalStateException("Could not create invoker for " + method, e);
+		}
+	}
+
+	/** MethodHandleにより呼び出しを生成します */
+	private static BusinessLogicInvoker createMethodHandle(Object bean, Method method) {
+		try {
+			ReflectionUtils.makeAccessible(method);
+			MethodHandle handle = MethodHandles.lookup().unreflect(method)
+					.bindTo(bean)
+					.asType(INVOKE_METHOD_TYPE);
+			return input -> handle.invokeExact(input);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not access " + method, e);
+		}
+	}
+}
@@ -0,0 +1,321 @@
+package com.egu.springboot.sample.service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.egu.springboot.sample.service.BusinessLogic.BusinessLogicUtil;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * {@link BusinessLogic}が付与されたメソッドをサービスIDごとに保持するレジストリです。
+ * <p>
+ * Beanの初期化時にユーザークラスのメソッドを走査し、シングルトンの生成完了時に
+ * 不変のマップとして確定します。以降の検索はマップの参照のみで完了します。
+ * 確定後に生成されたシングルトン({@link org.springframework.context.annotation.Lazy}など)は、
+ * 生成時に新しいマップを作成して差し替えることで追加します。
+ * コンパイル時に生成された{@link BusinessLogicDispatcher}がクラスパスに存在する場合は、
+ * リフレクションによる呼び出しを行わずにそれを利用します。
+ * 注釈の検索はSpringと同じく継承元のメソッドも対象とするため、メソッドの走査は常に行い、
+ * ディスパッチャーに含まれないサービスIDはリフレクションにより呼び出します。
+ * </p>
+ * @author t-eguchi
+ */
+@Component
+public class BusinessLogicRegistry
+		implements BeanPostProcessor, SmartInitializingSingleton, BeanFactoryAware, Ordered {
+
+	/** 確定前のBeanの情報 */
+	@AllArgsConstructor
+	private static class PendingBean {
+
+		/** 生成済みのディスパッチャー */
+		private final BusinessLogicDispatcher dispatcher;
+
+		/** サービスIDごとのメソッド */
+		private final Map<String, Method> methods;
+	}
+
+	/** Beanファクトリ */
+	private ConfigurableListableBeanFactory beanFactory;
+
+	/** Beanの型ごとの生成済みディスパッチャー */
+	private Map<Class<?>, BusinessLogicDispatcher> dispatchers = Collections.emptyMap();
+
+	/** 確定前のBean名ごとの情報 */
+	private final Map<String, PendingBean> pendingBeans = new LinkedHashMap<>();
+
+	/** 確定前のサービスIDとメソッドの対応 */
+	private final Map<String, Method> pendingServiceIDs = new LinkedHashMap<>();
+
+	/** 確定済みの実行可能セット */
+	private volatile Map<String, ExecutableSet> executableSets;
+
+	/** 確定後に追加された実行可能セットの通知先 */
+	private final List<Consumer<ExecutableSet>> listeners = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+		this.dispatchers = loadDispatchers(this.beanFactory.getBeanClassLoader());
+	}
+
+	/** 生成済みのディスパッチャーを読み込みます */
+	private static Map<Class<?>, BusinessLogicDispatcher> loadDispatchers(ClassLoader classLoader) {
+		Map<Class<?>, BusinessLogicDispatcher> dispatchers = new HashMap<>();
+		for (BusinessLogicDispatcher dispatcher : ServiceLoader.load(BusinessLogicDispatcher.class, classLoader)) {
+			dispatchers.put(dispatcher.getBeanType(), dispatcher);
+		}
+		return Map.copyOf(dispatchers);
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.LOWEST_PRECEDENCE;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		// シングルトン以外は対象外
+		if (!isSingleton(beanName))
+			return bean;
+
+		// プロキシではなくユーザークラスを対象とする
+		Class<?> userClass = ClassUtils.getUserClass(AopUtils.getTargetClass(bean));
+
+		// ユーザークラスのメソッドを走査
+		if (!AnnotationUtils.isCandidateClass(userClass, BusinessLogic.class))
+			return bean;
+
+		Map<Method, String> methods = MethodIntrospector.selectMethods(userClass,
+				(MethodIntrospector.MetadataLookup<String>) method -> {
+					BusinessLogic businessLogic = AnnotatedElementUtils.findMergedAnnotation(
+							method, BusinessLogic.class);
+					return businessLogic == null ? null : BusinessLogicUtil.getId(businessLogic);
+				});
+		if (methods.isEmpty())
+			return bean;
+
+		// 生成済みのディスパッチャーは走査の結果と照合する
+		BusinessLogicDispatcher dispatcher = dispatchers.get(userClass);
+		if (dispatcher != null)
+			verify(dispatcher, methods);
+
+		register(beanName, bean, dispatcher, methods);
+		return bean;
+	}
+
+	/** ディスパッチャーのサービスIDがすべて走査の結果に含まれることを検証します */
+	private static void verify(BusinessLogicDispatcher dispatcher, Map<Method, String> methods) {
+		for (String serviceID : dispatcher.getServiceIDs()) {
+			if (!methods.containsValue(serviceID))
+				throw new IllegalStateException("Service[" + serviceID + "] is generated in "
+						+ dispatcher.getClass().getName() + ", but it is not found in "
+						+ dispatcher.getBeanType().getName() + ". Recompile the bean class.");
+		}
+	}
+
+	/** Bean名のメソッドを登録します(確定後は実行可能セットを追加) */
+	private synchronized void register(
+			String beanName, Object bean, BusinessLogicDispatcher dispatcher, Map<Method, String> serviceIDs) {
+		if (executableSets == null) {
+			pendingBeans.put(beanName, new PendingBean(dispatcher, getMethods(serviceIDs, pendingServiceIDs)));
+			return;
+		}
+
+		// 確定済みのサービスIDとの重複も検証する
+		Map<String, Method> registered = new HashMap<>();
+		executableSets.forEach((serviceID, executableSet) -> registered.put(serviceID, executableSet.getMethod()));
+		Map<String, Method> methods = getMethods(serviceIDs, registered);
+		if (methods.isEmpty())
+			return;
+
+		// 新しいマップを作成してから差し替える
+		BLProxyProperties properties = getProperties();
+		Map<String, ExecutableSet> resolved = new LinkedHashMap<>(executableSets);
+		List<ExecutableSet> added = new ArrayList<>();
+		methods.forEach((serviceID, method) -> {
+			ExecutableSet executableSet = createExecutableSet(
+					serviceID, bean, method, dispatcher, properties.getService(serviceID));
+			resolved.put(serviceID, executableSet);
+			added.add(executableSet);
+		});
+		executableSets = Map.copyOf(resolved);
+
+		// 差し替えた後に通知する
+		for (ExecutableSet executableSet : added) {
+			listeners.forEach(listener -> listener.accept(executableSet));
+		}
+	}
+
+	/**
+	 * 確定後に追加された実行可能セットの通知先を登録します。
+	 * <p>
+	 * 通知は追加した実行可能セットを検索できるようになった後に、登録したスレッドで行います。
+	 * 確定時に登録されていた実行可能セットは通知しないため、{@link #getExecutableSets()}により取得してください。
+	 * </p>
+	 * @param listener
+	 */
+	void addListener(Consumer<ExecutableSet> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * 公開メソッドを検証し、サービスIDごとのメソッドとします。
+	 * @param serviceIDs メソッドごとのサービスID
+	 * @param registered 登録済みのサービスIDごとのメソッド(追加したメソッドを登録)
+	 */
+	private static Map<String, Method> getMethods(Map<Method, String> serviceIDs, Map<String, Method> registered) {
+		Map<String, Method> methods = new LinkedHashMap<>();
+		serviceIDs.forEach((method, serviceID) -> {
+			// 公開メソッドのみを対象とする
+			if (!Modifier.isPublic(method.getModifiers()))
+				return;
+
+			// 引数は1つのみ許可する
+			if (method.getParameterCount() != 1)
+				throw new IllegalStateException(
+						"BusinessLogic method must have exactly one parameter. method = " + method);
+
+			// 一括実行するメソッドはリストを受け取りリストを返す
+			BusinessLogic businessLogic = AnnotatedElementUtils.findMergedAnnotation(method, BusinessLogic.class);
+			if (businessLogic != null && businessLogic.batch()
+					&& !(List.class.isAssignableFrom(method.getParameterTypes()[0])
+							&& List.class.isAssignableFrom(method.getReturnType())))
+				throw new IllegalStateException(
+						"Batch BusinessLogic method must accept and return java.util.List. method = " + method);
+
+			// サービスIDの重複はエラーとする
+			Method duplicated = registered.putIfAbsent(serviceID, method);
+			if (duplicated != null)
+				throw new IllegalStateException(
+						"Service[" + serviceID + "] is duplicated. "
+								+ duplicated + ", " + method);
+
+			methods.put(serviceID, method);
+		});
+		return methods;
+	}
+
+	@Override
+	public synchronized void afterSingletonsInstantiated() {
+		// サービスIDごとの設定値を取得
+		BLProxyProperties properties = getProperties();
+
+		// プロキシ適用後のBeanに対して実行可能セットを作成
+		Map<String, ExecutableSet> resolved = new LinkedHashMap<>();
+		pendingBeans.forEach((beanName, pendingBean) -> {
+			Object bean = beanFactory.getBean(beanName);
+			pendingBean.methods.forEach((serviceID, method) -> {
+				resolved.put(serviceID, createExecutableSet(
+						serviceID, bean, method, pendingBean.dispatcher, properties.getService(serviceID)));
+			});
+		});
+
+		// 不変のマップとして確定
+		executableSets = Map.copyOf(resolved);
+		pendingBeans.clear();
+		pendingServiceIDs.clear();
+	}
+
+	/** 設定値を取得します(定義されていない場合は既定値) */
+	private BLProxyProperties getProperties() {
+		return beanFactory.getBeanProvider(BLProxyProperties.class).getIfAvailable(BLProxyProperties::new);
+	}
+
+	/** 実行可能セットを作成します */
+	private ExecutableSet createExecutableSet(String serviceID, Object bean, Method method,
+			BusinessLogicDispatcher dispatcher, BLProxyProperties.Service settings) {
+		// 注釈はプロキシではなくユーザークラスのメソッドから取得
+		BusinessLogic businessLogic = AnnotatedElementUtils.findMergedAnnotation(method, BusinessLogic.class);
+
+		// インターフェイスによるプロキシなどキャストできない場合と、
+		// 継承元の注釈などディスパッチャーに含まれない場合はメソッドを呼び出す
+		if (dispatcher != null && dispatcher.getBeanType().isInstance(bean)) {
+			BusinessLogicInvoker invoker = dispatcher.getInvoker(bean, serviceID);
+			if (invoker != null)
+				return new ExecutableSet(serviceID, bean, method, invoker, businessLogic, settings);
+		}
+
+		Method invocableMethod = AopUtils.selectInvocableMethod(method, bean.getClass());
+		return new ExecutableSet(serviceID, bean, invocableMethod,
+				BusinessLogicInvokers.create(bean, invocableMethod), businessLogic, settings);
+	}
+
+	/**
+	 * サービスIDに該当する実行可能セットを取得します。
+	 * @param serviceID
+	 * @return 存在しない場合はnull
+	 */
+	ExecutableSet get(String serviceID) {
+		Map<String, ExecutableSet> current = executableSets;
+		if (current == null)
+			throw new IllegalStateException("BusinessLogicRegistry is not initialized yet.");
+		if (serviceID == null)
+			return null;
+		return current.get(serviceID);
+	}
+
+	/**
+	 * 登録されている実行可能セットの一覧を取得します。
+	 * @return
+	 */
+	Collection<ExecutableSet> getExecutableSets() {
+		Map<String, ExecutableSet> current = executableSets;
+		if (current == null)
+			return Collections.emptyList();
+		return current.values();
+	}
+
+	/**
+	 * サービスIDが登録されているかを判別します。
+	 * @param serviceID
+	 * @return
+	 */
+	public boolean contains(String serviceID) {
+		return get(serviceID) != null;
+	}
+
+	/**
+	 * 登録されているサービスIDの一覧を取得します。
+	 * @return
+	 */
+	public Set<String> getServiceIDs() {
+		Map<String, ExecutableSet> current = executableSets;
+		if (current == null)
+			return Collections.emptySet();
+		return current.keySet();
+	}
+
+	/** シングルトンのBeanかどうかを判別します */
+	private boolean isSingleton(String beanName) {
+		return beanFactory != null
+				&& beanFactory.containsBeanDefinition(beanName)
+				&& beanFactory.isSingleton(beanName);
+	}
+}
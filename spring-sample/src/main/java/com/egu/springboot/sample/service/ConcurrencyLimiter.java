@@ -0,0 +1,232 @@
+package com.egu.springboot.sample.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * サービスIDごとに同時実行数を制限するクラスです。
+ * <p>
+ * 上限に達した場合は待ち行列の上限まで待機し、それを超えた呼び出しは
+ * {@link BLRejectedException}により即座に拒否します。待機が時間の上限を超えた場合も拒否します。
+ * 適応モードでは、一定件数ごとの平均処理時間が観測した最小値の{@value #TOLERANCE}倍を超えた場合に
+ * 上限を縮小し、下回った場合は1ずつ拡大します。
+ * </p>
+ * @author t-eguchi
+ */
+class ConcurrencyLimiter {
+
+	/** 処理時間の悪化とみなす最小値に対する倍率 */
+	static final double TOLERANCE = 2.0;
+
+	/** 上限を縮小する際の倍率 */
+	private static final double DECREASE_RATIO = 0.9;
+
+	/** 上限を見直す最小の件数 */
+	private static final int MIN_WINDOW_SIZE = 10;
+
+	/** 最小値を平均値へ近づける割合(2のべき乗) */
+	private static final int MIN_DRIFT_SHIFT = 4;
+
+	/** 許可数を減らせるセマフォです */
+	private static class LimitSemaphore extends Semaphore {
+
+		private static final long serialVersionUID = 1L;
+
+		LimitSemaphore(int permits) {
+			super(permits);
+		}
+
+		void reduce(int reduction) {
+			reducePermits(reduction);
+		}
+	}
+
+	/** サービスID */
+	private final String serviceID;
+
+	/** 同時実行数の上限の最大値 */
+	@Getter
+	private final int maxConcurrency;
+
+	/** 待ち行列の上限 */
+	@Getter
+	private final int maxQueueDepth;
+
+	/** 待機する時間の上限(ミリ秒) */
+	@Getter
+	private final long maxQueueWaitMillis;
+
+	/** 適応モードかどうか */
+	@Getter
+	private final boolean adaptive;
+
+	/** 計測値 */
+	private final ServiceMetrics metrics;
+
+	/** 実行の許可 */
+	private final LimitSemaphore semaphore;
+
+	/** 待機中の件数 */
+	private final AtomicInteger waiting = new AtomicInteger();
+
+	/** 現在の同時実行数の上限 */
+	@Getter
+	private volatile int limit;
+
+	/** 見直し期間内の件数 */
+	private final LongAdder windowSamples = new LongAdder();
+
+	/** 見直し期間内の合計処理時間 */
+	private final LongAdder windowNanos = new LongAdder();
+
+	/** 観測した処理時間の最小値 */
+	private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+
+	/** 上限を見直し中かどうか */
+	private final AtomicBoolean adjusting = new AtomicBoolean();
+
+	/**
+	 * 設定値を渡し、インスタンスを生成します。
+	 * @param serviceID
+	 * @param maxConcurrency
+	 * @param maxQueueDepth
+	 * @param maxQueueWaitMillis
+	 * @param adaptive
+	 * @param metrics
+	 */
+	ConcurrencyLimiter(String serviceID, int maxConcurrency, int maxQueueDepth, long maxQueueWaitMillis,
+			boolean adaptive, ServiceMetrics metrics) {
+		this.serviceID = serviceID;
+		this.maxConcurrency = maxConcurrency;
+		this.maxQueueDepth = Math.max(0, maxQueueDepth);
+		this.maxQueueWaitMillis = Math.max(0, maxQueueWaitMillis);
+		this.adaptive = adaptive;
+		this.metrics = metrics;
+		this.semaphore = new LimitSemaphore(maxConcurrency);
+		this.limit = maxConcurrency;
+	}
+
+	/**
+	 * 注釈と設定値から同時実行数の制限を生成します。
+	 * @param serviceID
+	 * @param businessLogic
+	 * @param settings
+	 * @param metrics
+	 * @return 制限しない場合はnull
+	 */
+	static ConcurrencyLimiter of(String serviceID, BusinessLogic businessLogic,
+			BLProxyProperties.Service settings, ServiceMetrics metrics) {
+		int maxConcurrency = businessLogic == null ? 0 : businessLogic.maxConcurrency();
+		int maxQueueDepth = businessLogic == null ? 0 : businessLogic.maxQueueDepth();
+		long maxQueueWaitMillis = businessLogic == null ? 30_000L : businessLogic.maxQueueWaitMillis();
+		boolean adaptive = businessLogic != null && businessLogic.adaptiveConcurrency();
+		if (settings != null) {
+			if (settings.getMaxConcurrency() != null)
+				maxConcurrency = settings.getMaxConcurrency();
+			if (settings.getMaxQueueDepth() != null)
+				maxQueueDepth = settings.getMaxQueueDepth();
+			if (settings.getMaxQueueWaitMillis() != null)
+				maxQueueWaitMillis = settings.getMaxQueueWaitMillis();
+			if (settings.getAdaptiveConcurrency() != null)
+				adaptive = settings.getAdaptiveConcurrency();
+		}
+		if (maxConcurrency <= 0)
+			return null;
+		return new ConcurrencyLimiter(
+				serviceID, maxConcurrency, maxQueueDepth, maxQueueWaitMillis, adaptive, metrics);
+	}
+
+	/**
+	 * 実行の許可を取得します。
+	 * <p>
+	 * 取得した場合は、実行後に必ず{@link #release(long)}を呼び出します。
+	 * </p>
+	 * @throws BLRejectedException 待ち行列または待機する時間の上限を超えた場合
+	 */
+	void acquire() {
+		if (semaphore.tryAcquire())
+			return;
+
+		// 待ち行列の上限を超える場合は拒否
+		if (maxQueueDepth < waiting.incrementAndGet()) {
+			waiting.decrementAndGet();
+			throw reject("Queue is full. limit = " + limit + ", maxQueueDepth = " + maxQueueDepth);
+		}
+		try {
+			if (!semaphore.tryAcquire(maxQueueWaitMillis, TimeUnit.MILLISECONDS))
+				throw reject("Timed out while waiting. limit = " + limit
+						+ ", maxQueueWaitMillis = " + maxQueueWaitMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw reject("Interrupted while waiting.");
+		} finally {
+			waiting.decrementAndGet();
+		}
+	}
+
+	/** 拒否を記録し、例外を生成します */
+	private BLRejectedException reject(String message) {
+		metrics.recordRejected();
+		return new BLRejectedException(serviceID, message);
+	}
+
+	/**
+	 * 実行の許可を返却します。
+	 * @param elapsedNanos 実行に要した時間
+	 */
+	void release(long elapsedNanos) {
+		semaphore.release();
+		if (adaptive)
+			sample(elapsedNanos);
+	}
+
+	/** 処理時間を記録し、必要に応じて上限を見直します */
+	private void sample(long elapsedNanos) {
+		windowSamples.increment();
+		windowNanos.add(elapsedNanos);
+		minNanos.accumulateAndGet(elapsedNanos, Math::min);
+
+		if (windowSamples.sum() < Math.max(limit, MIN_WINDOW_SIZE))
+			return;
+
+		// 見直しは1スレッドのみが行う
+		if (!adjusting.compareAndSet(false, true))
+			return;
+		try {
+			long samples = windowSamples.sumThenReset();
+			long nanos = windowNanos.sumThenReset();
+			if (samples == 0)
+				return;
+
+			long average = nanos / samples;
+			long min = minNanos.get();
+			int newLimit;
+			if (min * TOLERANCE < average)
+				newLimit = Math.max(1, (int) (limit * DECREASE_RATIO));
+			else
+				newLimit = Math.min(maxConcurrency, limit + 1);
+			setLimit(newLimit);
+
+			// 古い最小値に縛られないよう、最小値を平均値へ少しずつ近づける
+			minNanos.set(min + ((average - min) >> MIN_DRIFT_SHIFT));
+		} finally {
+			adjusting.set(false);
+		}
+	}
+
+	/** 同時実行数の上限を変更します */
+	private void setLimit(int newLimit) {
+		int delta = newLimit - limit;
+		if (0 < delta)
+			semaphore.release(delta);
+		else if (delta < 0)
+			semaphore.reduce(-delta);
+		limit = newLimit;
+	}
+}
@@ -0,0 +1,116 @@
+package com.egu.springboot.sample.service;
+
+import java.lang.reflect.Method;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+/**
+ * ビジネスロジックの実行対象となるBeanとメソッドのセットです。
+ * @author t-eguchi
+ */
+class ExecutableSet {
+
+	/** サービスID */
+	@Getter
+	private final String serviceID;
+
+	/** Bean */
+	@Getter
+	private final Object bean;
+
+	/** 実行メソッド */
+	@Getter
+	private final Method method;
+
+	/** メソッドを束縛した呼び出し */
+	@Getter
+	private final BusinessLogicInvoker invoker;
+
+	/** ビジネスロジックの注釈 */
+	@Getter
+	private final BusinessLogic businessLogic;
+
+	/** 計測値 */
+	@Getter
+	private final ServiceMetrics metrics;
+
+	/** 実行結果のキャッシュ(キャッシュしない場合はnull) */
+	@Getter
+	private final ResultCache resultCache;
+
+	/** 同じ入力値の呼び出しの集約(集約しない場合はnull) */
+	@Getter
+	private final RequestCoalescer requestCoalescer;
+
+	/** 個別の呼び出しの一括実行(一括実行しない場合はnull) */
+	@Getter
+	private final MicroBatcher microBatcher;
+
+	/** 同時実行数の制限(制限しない場合はnull) */
+	@Getter
+	private final ConcurrencyLimiter concurrencyLimiter;
+
+	/**
+	 * サービスIDとBean、メソッドを渡し、インスタンスを生成します。
+	 * @param serviceID
+	 * @param bean
+	 * @param method
+	 */
+	ExecutableSet(String serviceID, Object bean, Method method) {
+		this(serviceID, bean, method, BusinessLogicInvokers.create(bean, method),
+				AnnotatedElementUtils.findMergedAnnotation(method, BusinessLogic.class), null);
+	}
+
+	/**
+	 * サービスIDとBean、メソッド、生成済みの呼び出し、注釈、設定値を渡し、インスタンスを生成します。
+	 * @param serviceID
+	 * @param bean
+	 * @param method
+	 * @param invoker
+	 * @param businessLogic
+	 * @param settings 注釈の設定を上書きする設定値(存在しない場合はnull)
+	 */
+	ExecutableSet(String serviceID, Object bean, Method method,
+			BusinessLogicInvoker invoker, BusinessLogic businessLogic, BLProxyProperties.Service settings) {
+		this.serviceID = serviceID;
+		this.bean = bean;
+		this.method = method;
+		this.invoker = invoker;
+		this.businessLogic = businessLogic;
+		this.metrics = new ServiceMetrics(serviceID);
+		this.resultCache = ResultCache.of(businessLogic, settings);
+		this.requestCoalescer = RequestCoalescer.of(businessLogic, settings, metrics);
+		this.microBatcher = MicroBatcher.of(serviceID, businessLogic, settings);
+		this.concurrencyLimiter = ConcurrencyLimiter.of(serviceID, businessLogic, settings, metrics);
+	}
+
+	/**
+	 * オブジェクトを引数に実行します。
+	 * <p>
+	 * ビジネスロジックが送出した例外は検査例外も含めてそのまま送出します。
+	 * 呼び出しごとの処理時間と件数は{@link ServiceMetrics}に記録します。
+	 * </p>
+	 * @param arg
+	 * @return
+	 */
+	@SneakyThrows
+	public Object execute(Object arg) {
+		long start = metrics.start();
+		boolean success = false;
+		try {
+			Object result = invoker.invoke(arg);
+			success = true;
+			return result;
+		} finally {
+			metrics.end(start, success);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "serviceID = " + serviceID + ", method = " + method;
+	}
+}
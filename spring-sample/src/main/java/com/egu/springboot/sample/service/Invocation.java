@@ -0,0 +1,17 @@
+package com.egu.springboot.sample.service;
+
+import lombok.Value;
+
+/**
+ * ビジネスロジックの呼び出し内容を表すクラスです。
+ * @author t-eguchi
+ */
+@Value(staticConstructor = "of")
+public class Invocation {
+
+	/** サービスID */
+	private String serviceID;
+
+	/** 入力値 */
+	private Object input;
+}
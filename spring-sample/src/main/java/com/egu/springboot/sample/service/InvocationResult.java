@@ -0,0 +1,63 @@
+package com.egu.springboot.sample.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.Value;
+
+/**
+ * ビジネスロジックの呼び出し結果を表すクラスです。
+ * @author t-eguchi
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class InvocationResult {
+
+	/** サービスID */
+	private String serviceID;
+
+	/** 実行結果 */
+	private Object result;
+
+	/** 発生した例外 */
+	private Throwable error;
+
+	/**
+	 * 正常終了の結果を生成します。
+	 * @param serviceID
+	 * @param result
+	 * @return
+	 */
+	public static InvocationResult success(String serviceID, Object result) {
+		return new InvocationResult(serviceID, result, null);
+	}
+
+	/**
+	 * 異常終了の結果を生成します。
+	 * @param serviceID
+	 * @param error
+	 * @return
+	 */
+	public static InvocationResult failure(String serviceID, Throwable error) {
+		return new InvocationResult(serviceID, null, error);
+	}
+
+	/**
+	 * 正常終了したかを判別します。
+	 * @return
+	 */
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	/**
+	 * 実行結果を取得し、異常終了の場合は発生した例外をそのまま送出します。
+	 * @return
+	 */
+	@SneakyThrows
+	public Object getOrThrow() {
+		if (error != null)
+			throw error;
+		return result;
+	}
+}
@@ -0,0 +1,402 @@
+package com.egu.springboot.sample.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * 改行区切りのJSON(NDJSON / JSON Lines)のプロパティ名を複数のスレッドで一括してリネームするクラスです。
+ * <p>
+ * 呼び出し元のスレッドが1行ずつ読み込み、指定した数のスレッドが{@link JsonPropertyNameMapper#renameProperties(byte[])}で
+ * リネームし、書き込み用のスレッドが出力します。
+ * 読み込んでから書き込むまでのレコードの件数は待ち行列の容量までに制限するため、
+ * リネームや書き込みが遅い場合は読み込みが待たされ、メモリの使用量は入力の大きさに依存しません。
+ * 出力の順序は入力の順序とするか、リネームが完了した順序とするかを選択できます。
+ * 空の行は出力しません。
+ * </p>
+ * @author t-eguchi
+ */
+public class JsonLinesRenamer {
+
+	/** スレッド名の接頭辞 */
+	private static final String THREAD_NAME_PREFIX = "json-lines-";
+
+	/** ワーカーごとのデフォルトの待ち行列の容量 */
+	private static final int DEFAULT_CAPACITY_PER_WORKER = 256;
+
+	/** 読み込みのバッファの大きさ */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** 書き込み側の異常を確認する間隔(ミリ秒) */
+	private static final long POLL_MILLIS = 100L;
+
+	/** 入力の終了を表すレコード */
+	private static final LineRecord END = new LineRecord(-1L, -1L, null);
+
+	/** リネームに利用するマッパー */
+	private final JsonPropertyNameMapper mapper;
+
+	/** リネームするスレッドの数 */
+	@Getter
+	private final int workers;
+
+	/** 読み込んでから書き込むまでのレコードの件数の上限 */
+	@Getter
+	private final int queueCapacity;
+
+	/** 入力の順序で出力するか */
+	@Getter
+	private final boolean ordered;
+
+	/**
+	 * マッパーを渡し、利用可能なプロセッサの数のスレッドで入力の順序に出力するインスタンスを生成します。
+	 * @param mapper
+	 */
+	public JsonLinesRenamer(JsonPropertyNameMapper mapper) {
+		this(mapper, Runtime.getRuntime().availableProcessors(),
+				Runtime.getRuntime().availableProcessors() * DEFAULT_CAPACITY_PER_WORKER, true);
+	}
+
+	/**
+	 * マッパーと設定値を渡し、インスタンスを生成します。
+	 * @param mapper
+	 * @param workers リネームするスレッドの数
+	 * @param queueCapacity 読み込んでから書き込むまでのレコードの件数の上限
+	 * @param ordered 入力の順序で出力する場合はtrue、リネームが完了した順序で出力する場合はfalse
+	 */
+	public JsonLinesRenamer(JsonPropertyNameMapper mapper, int workers, int queueCapacity, boolean ordered) {
+		this.mapper = mapper;
+		this.workers = Math.max(1, workers);
+		this.queueCapacity = Math.max(1, queueCapacity);
+		this.ordered = ordered;
+	}
+
+	/**
+	 * ファイルを読み込み、リネームしたレコードをファイルへ書き込みます。
+	 * @param source
+	 * @param target
+	 * @return 処理の統計
+	 * @throws IOException
+	 */
+	public Statistics renameProperties(Path source, Path target) throws IOException {
+		try (InputStream input = Files.newInputStream(source);
+				OutputStream output = Files.newOutputStream(target)) {
+			return renameProperties(input, output);
+		}
+	}
+
+	/**
+	 * ストリームを読み込み、リネームしたレコードをストリームへ書き込みます。
+	 * <p>
+	 * 入力と出力のストリームは閉じません。
+	 * レコードのリネームに失敗した場合は、その行番号を含む{@link IOException}を送出します。
+	 * </p>
+	 * @param input UTF-8のNDJSON
+	 * @param output
+	 * @return 処理の統計
+	 * @throws IOException
+	 */
+	public Statistics renameProperties(InputStream input, OutputStream output) throws IOException {
+		long startNanos = System.nanoTime();
+		Pipeline pipeline = new Pipeline();
+		ExecutorService executor = Executors.newFixedThreadPool(
+				workers + 1, new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+		try {
+			for (int index = 0; index < workers; index++) {
+				executor.execute(pipeline::rename);
+			}
+			Future<Long> writer = executor.submit(() -> pipeline.write(output));
+
+			// 書き込みが追いつくまで読み込みを待つ
+			LineReader reader = new LineReader(input);
+			long sequence = 0;
+			byte[] line;
+			while ((line = reader.readLine()) != null) {
+				if (line.length == 0)
+					continue;
+				while (!pipeline.permits.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					// 書き込みが異常終了した場合は待たない
+					if (writer.isDone())
+						break;
+				}
+				if (writer.isDone())
+					break;
+				pipeline.input.put(new LineRecord(sequence++, reader.getLineNumber(), line));
+			}
+			for (int index = 0; index < workers; index++) {
+				pipeline.input.put(END);
+			}
+
+			long records = writer.get();
+			return new Statistics(records, reader.getBytes(), System.nanoTime() - startNanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/** 1回の処理で共有する待ち行列です */
+	private class Pipeline {
+
+		/** 読み込んでから書き込むまでのレコードの件数の許可 */
+		private final Semaphore permits = new Semaphore(queueCapacity);
+
+		/** リネームを待つレコード(終了の分だけ容量を加える) */
+		private final BlockingQueue<LineRecord> input = new ArrayBlockingQueue<>(queueCapacity + workers);
+
+		/** 書き込みを待つレコード(終了の分だけ容量を加える) */
+		private final BlockingQueue<LineRecord> output = new ArrayBlockingQueue<>(queueCapacity + workers);
+
+		/** 書き込んだレコードの件数 */
+		private long written;
+
+		/** リネームするスレッドが異常終了した原因(終了を書き込み側へ渡す前に設定) */
+		private volatile Throwable failure;
+
+		/** レコードをリネームします */
+		private void rename() {
+			try {
+				LineRecord record;
+				while ((record = input.take()) != END) {
+					try {
+						record.result = mapper.renameProperties(record.line);
+					} catch (RuntimeException e) {
+						record.error = e;
+					}
+					output.put(record);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Throwable e) {
+				failure = e;
+				throw e;
+			} finally {
+				// 終了の分の容量は確保しているため待たずに追加できる
+				output.offer(END);
+			}
+		}
+
+		/**
+		 * リネームしたレコードを書き込みます。
+		 * @return 書き込んだレコードの件数
+		 */
+		private long write(OutputStream stream) throws IOException, InterruptedException {
+			OutputStream buffered = new BufferedOutputStream(stream, BUFFER_SIZE);
+			Map<Long, LineRecord> pending = new HashMap<>();
+			long next = 0;
+			int ended = 0;
+			while (ended < workers) {
+				LineRecord record = output.take();
+				if (record == END) {
+					ended++;
+					failIfAborted();
+					continue;
+				}
+				if (!ordered) {
+					write(buffered, record);
+					continue;
+				}
+
+				// 先行して完了したレコードは順番が来るまで保持する
+				pending.put(record.sequence, record);
+				while ((record = pending.remove(next)) != null) {
+					write(buffered, record);
+					next++;
+				}
+			}
+			buffered.flush();
+			return written;
+		}
+
+		/** リネームするスレッドが異常終了した場合は、その原因により処理を失敗させます */
+		private void failIfAborted() throws IOException {
+			Throwable cause = failure;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			if (cause != null)
+				throw new IOException("Rename worker terminated abnormally.", cause);
+		}
+
+		/** レコードを1行として書き込みます */
+		private void write(OutputStream stream, LineRecord record) throws IOException {
+			if (record.error != null)
+				throw new IOException("Failed to rename the record. line = " + record.lineNumber, record.error);
+			stream.write(record.result);
+			stream.write('\n');
+			written++;
+			permits.release();
+		}
+	}
+
+	/** 1行のレコードです */
+	private static class LineRecord {
+
+		/** 入力の順序 */
+		private final long sequence;
+
+		/** 行番号 */
+		private final long lineNumber;
+
+		/** 入力の行 */
+		private final byte[] line;
+
+		/** リネームした行 */
+		private byte[] result;
+
+		/** リネームで発生した例外 */
+		private RuntimeException error;
+
+		/** 値を渡し、インスタンスを生成します */
+		private LineRecord(long sequence, long lineNumber, byte[] line) {
+			this.sequence = sequence;
+			this.lineNumber = lineNumber;
+			this.line = line;
+		}
+	}
+
+	/** ストリームを行ごとのバイト列として読み込むクラスです */
+	private static class LineReader {
+
+		/** 入力 */
+		private final InputStream input;
+
+		/** 読み込みのバッファ */
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+
+		/** バッファの読み込み位置 */
+		private int position;
+
+		/** バッファの有効な終端 */
+		private int limit;
+
+		/** 読み込んだ行番号 */
+		@Getter
+		private long lineNumber;
+
+		/** 読み込んだバイト数 */
+		@Getter
+		private long bytes;
+
+		/** 入力を渡し、インスタンスを生成します */
+		private LineReader(InputStream input) {
+			this.input = input;
+		}
+
+		/**
+		 * 改行を除いた1行を読み込みます。
+		 * @return 入力の終端に達した場合はnull
+		 */
+		private byte[] readLine() throws IOException {
+			byte[] line = null;
+			int length = 0;
+			while (true) {
+				if (position == limit) {
+					limit = input.read(buffer);
+					position = 0;
+					if (limit <= 0) {
+						limit = 0;
+						if (line == null)
+							return null;
+						lineNumber++;
+						return trim(line, length);
+					}
+					bytes += limit;
+				}
+
+				// 改行までをまとめて複写する
+				int start = position;
+				while (position < limit && buffer[position] != '\n') {
+					position++;
+				}
+				int count = position - start;
+				if (line == null)
+					line = new byte[Math.max(count, 64)];
+				else if (line.length < length + count)
+					line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+				System.arraycopy(buffer, start, line, length, count);
+				length += count;
+
+				if (position < limit) {
+					position++;
+					lineNumber++;
+					return trim(line, length);
+				}
+			}
+		}
+
+		/** 行末の復帰を除いた長さに切り詰めます */
+		private static byte[] trim(byte[] line, int length) {
+			if (0 < length && line[length - 1] == '\r')
+				length--;
+			return line.length == length ? line : Arrays.copyOf(line, length);
+		}
+	}
+
+	/**
+	 * 一括リネームの統計です。
+	 * @author t-eguchi
+	 */
+	@Value
+	public static class Statistics {
+
+		/** 書き込んだレコードの件数 */
+		private long records;
+
+		/** 読み込んだバイト数 */
+		private long bytes;
+
+		/** 処理時間(ナノ秒) */
+		private long elapsedNanos;
+
+		/**
+		 * 1秒あたりのレコードの件数を取得します。
+		 * @return
+		 */
+		public double getRecordsPerSecond() {
+			return perSecond(records);
+		}
+
+		/**
+		 * 1秒あたりのバイト数を取得します。
+		 * @return
+		 */
+		public double getBytesPerSecond() {
+			return perSecond(bytes);
+		}
+
+		/** 処理時間から1秒あたりの値を求めます */
+		private double perSecond(long value) {
+			return elapsedNanos == 0 ? 0 : value * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+		}
+	}
+}
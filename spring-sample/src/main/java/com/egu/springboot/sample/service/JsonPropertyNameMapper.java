@@ -1,45 +1,377 @@
 package com.egu.springboot.sample.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
-import org.springframework.boot.configurationprocessor.json.JSONArray;
-import org.springframework.boot.configurationprocessor.json.JSONException;
-import org.springframework.boot.configurationprocessor.json.JSONObject;
-
-import com.egu.springboot.sample.util.CollectionUtil.Node;
 import com.egu.springboot.sample.util.JacksonUtil;
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 
 /**
  * JSONのプロパティ名をリマップするコンポーネントです。
+ * <p>
+ * マッピングは生成時に決定性のオートマトンへ変換するため、プロパティ名ごとの照合は1回の検索で完了し、
+ * インスタンスは複数のスレッドから共有できます。
+ * </p>
  * @author t-eguchi
  */
 public class JsonPropertyNameMapper {
 
-	/** マッピングされている名前 */
-	@Data
-	@AllArgsConstructor
-	private static class MappedName {
-		private String from;
-		private String to;
+	/**
+	 * リネームの対象を表すノードです。
+	 * <p>
+	 * マッピングから作成した決定性のオートマトンの状態であり、プロパティ名による遷移先を子のノードとします。
+	 * 子のノードは登録順の配列とプロパティ名をキーとしたマップの両方で保持し、
+	 * 走査は配列、検索はマップにより行います。
+	 * ワイルドカードを含む場合は、子の名前以外のプロパティ名による遷移先を別に保持します。
+	 * 遷移は生成時にのみ設定し、以降は変更しません。
+	 * </p>
+	 */
+	private static final class RenameNode {
+
+		/** 空の子の名前 */
+		private static final String[] NO_NAMES = new String[0];
+
+		/** 空の子のノード */
+		private static final RenameNode[] NO_CHILDREN = new RenameNode[0];
+
+		/** 変更後の名前(経路のみの場合はnull) */
+		private final String to;
+
+		/** 引用符を含むUTF-8の変更後の名前(経路のみの場合はnull) */
+		private final byte[] quotedTo;
+
+		/** 登録順の子の名前 */
+		private String[] names = NO_NAMES;
+
+		/** 登録順の子のノード */
+		private RenameNode[] children = NO_CHILDREN;
+
+		/** 変更前の名前ごとの子のノード */
+		private Map<String, RenameNode> childrenByName = Map.of();
+
+		/** 子の名前以外のプロパティ名による遷移先(ワイルドカードを含まない場合はnull) */
+		private RenameNode otherwise;
+
+		/** 配下にリネームの対象を持つか */
+		private boolean hasChildren;
+
+		/** 変更後の名前を渡し、インスタンスを生成します */
+		private RenameNode(String to) {
+			this.to = to;
+			this.quotedTo = to == null ? null : quoteAsUTF8(to);
+		}
+
+		/** 遷移先を設定します */
+		private void link(Map<String, RenameNode> children, RenameNode otherwise, boolean hasChildren) {
+			this.names = children.isEmpty() ? NO_NAMES : children.keySet().toArray(String[]::new);
+			this.children = children.isEmpty() ? NO_CHILDREN : children.values().toArray(RenameNode[]::new);
+			this.childrenByName = Map.copyOf(children);
+			this.otherwise = otherwise;
+			this.hasChildren = hasChildren;
+		}
+
+		/** 引用符を含むUTF-8のプロパティ名に変換します */
+		private static byte[] quoteAsUTF8(String name) {
+			byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(name);
+			byte[] quoted = new byte[escaped.length + 2];
+			quoted[0] = '"';
+			System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+			quoted[quoted.length - 1] = '"';
+			return quoted;
+		}
+
+		/** 子のノードを持っているかを判別します */
+		private boolean hasChildren() {
+			return hasChildren;
+		}
+
+		/** 変更前の名前に合致する子のノードを取得します */
+		private RenameNode getChild(String name) {
+			RenameNode child = childrenByName.get(name);
+			return child != null ? child : otherwise;
+		}
+	}
+
+	/**
+	 * マッピングを決定性のオートマトンへ変換するクラスです。
+	 * <p>
+	 * マッピングごとの変更前の名前の位置を非決定性のオートマトンの状態とし、
+	 * 部分集合構成法により同時に取り得る状態の集合を1つのノードへまとめます。
+	 * 複数のマッピングに合致する場合は、ワイルドカードの少ないマッピング、登録順の早いマッピングを優先します。
+	 * </p>
+	 */
+	private static final class RenameNodeCompiler {
+
+		/** マッピングごとの変更前の名前 */
+		private final List<String[]> froms = new ArrayList<>();
+
+		/** マッピングごとの変更後の末尾の名前 */
+		private final List<String> tos = new ArrayList<>();
+
+		/** 位置ごとのマッピングの番号 */
+		private int[] patternOf;
+
+		/** 位置ごとの変更前の名前の番号 */
+		private int[] segmentOf;
+
+		/** 状態の集合ごとのノード */
+		private final Map<BitSet, RenameNode> nodes = new HashMap<>();
+
+		/** 遷移先を未設定の状態の集合 */
+		private final Deque<BitSet> pending = new ArrayDeque<>();
+
+		/** マッピングを追加します */
+		private void add(String[] fromNames, String to) {
+			froms.add(fromNames);
+			tos.add(to);
+		}
+
+		/** ルートノードを作成します */
+		private RenameNode compile() {
+			// マッピングごとに名前の数と受理の分の位置を割り当てる
+			int size = froms.stream().mapToInt(fromNames -> fromNames.length + 1).sum();
+			patternOf = new int[size];
+			segmentOf = new int[size];
+			BitSet start = new BitSet(size);
+			int position = 0;
+			for (int pattern = 0; pattern < froms.size(); pattern++) {
+				start.set(position);
+				for (int segment = 0; segment <= froms.get(pattern).length; segment++, position++) {
+					patternOf[position] = pattern;
+					segmentOf[position] = segment;
+				}
+			}
+
+			RenameNode root = getNode(closure(start));
+			while (!pending.isEmpty()) {
+				BitSet state = pending.poll();
+
+				// 名前の遷移先は登録順とする
+				Map<String, RenameNode> children = new LinkedHashMap<>();
+				boolean hasChildren = false;
+				for (int index = state.nextSetBit(0); 0 <= index; index = state.nextSetBit(index + 1)) {
+					String segment = getSegment(index);
+					if (segment == null)
+						continue;
+					hasChildren = true;
+					if (!isWildcard(segment) && !children.containsKey(segment))
+						children.put(segment, getNode(move(state, segment)));
+				}
+				BitSet otherwise = move(state, null);
+				nodes.get(state).link(children, otherwise.isEmpty() ? null : getNode(otherwise), hasChildren);
+			}
+			return root;
+		}
+
+		/** 状態の集合のノードを取得します(存在しなければ作成) */
+		private RenameNode getNode(BitSet state) {
+			RenameNode node = nodes.get(state);
+			if (node == null) {
+				// ワイルドカードの組み合わせによっては状態が指数的に増えるため、上限を設ける
+				if (MAX_STATES <= nodes.size())
+					throw new IllegalArgumentException("Rename property mappings produce more than "
+							+ MAX_STATES + " states. Reduce the combination of wildcards (*, **).");
+				node = new RenameNode(getTo(state));
+				nodes.put(state, node);
+				pending.add(state);
+			}
+			return node;
+		}
+
+		/** 受理するマッピングのうち優先するものの変更後の名前を取得します */
+		private String getTo(BitSet state) {
+			int accepted = -1;
+			for (int index = state.nextSetBit(0); 0 <= index; index = state.nextSetBit(index + 1)) {
+				int pattern = patternOf[index];
+				if (segmentOf[index] != froms.get(pattern).length)
+					continue;
+				if (accepted < 0 || countWildcards(froms.get(pattern)) < countWildcards(froms.get(accepted)))
+					accepted = pattern;
+			}
+			return accepted < 0 ? null : tos.get(accepted);
+		}
+
+		/**
+		 * プロパティ名による遷移先の状態の集合を求めます。
+		 * @param name ワイルドカード以外に合致させない場合はnull
+		 */
+		private BitSet move(BitSet state, String name) {
+			BitSet next = new BitSet(patternOf.length);
+			for (int index = state.nextSetBit(0); 0 <= index; index = state.nextSetBit(index + 1)) {
+				String segment = getSegment(index);
+				if (segment == null)
+					continue;
+				if (RECURSIVE_WILDCARD.equals(segment))
+					next.set(index);
+				else if (WILDCARD.equals(segment) || segment.equals(name))
+					next.set(index + 1);
+			}
+			return closure(next);
+		}
+
+		/** 0個以上に合致するワイルドカードを読み飛ばした位置を加えます */
+		private BitSet closure(BitSet state) {
+			// 加える位置は常に後方のため、1回の走査で済む
+			for (int index = state.nextSetBit(0); 0 <= index; index = state.nextSetBit(index + 1)) {
+				if (RECURSIVE_WILDCARD.equals(getSegment(index)))
+					state.set(index + 1);
+			}
+			return state;
+		}
+
+		/** 位置の変更前の名前を取得します(受理の位置の場合はnull) */
+		private String getSegment(int index) {
+			String[] fromNames = froms.get(patternOf[index]);
+			int segment = segmentOf[index];
+			return segment < fromNames.length ? fromNames[segment] : null;
+		}
+
+		/** ワイルドカードの数を取得します */
+		private static int countWildcards(String[] names) {
+			int count = 0;
+			for (String name : names) {
+				if (isWildcard(name))
+					count++;
+			}
+			return count;
+		}
 	}
 
 	/** 名前の区切り文字 */
 	private static final String NAME_SPLIT_STRING = "\\.";
 
+	/** 任意の1つの名前に合致するワイルドカード */
+	private static final String WILDCARD = "*";
+
+	/** 0個以上の任意の名前に合致するワイルドカード */
+	private static final String RECURSIVE_WILDCARD = "**";
+
+	/** ストリーミングでの読み書きに利用するファクトリ */
+	private static final JsonFactory JSON_FACTORY = JacksonUtil.getJsonFactory();
+
+	/** マッピングから作成する状態の数の上限 */
+	private static final int MAX_STATES = 1 << 14;
+
+	/** 入れ子の深さの初期値 */
+	private static final int INITIAL_DEPTH = 16;
+
+	/** 置き換えによる増加を見込んだ出力の余裕 */
+	private static final int SPLICE_MARGIN = 64;
+
+	/** 並列にリネームする入力の大きさの閾値 */
+	private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+	/** 並列にリネームする際に配列の要素を分割する大きさ */
+	private static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+
+	/** 分割した範囲を配列として解析するための開始 */
+	private static final byte[] ARRAY_START = { '[' };
+
+	/** 分割した範囲を配列として解析するための終了 */
+	private static final byte[] ARRAY_END = { ']' };
+
 	/** ルートノード */
-	private Node<MappedName> rootNode = new Node<>();
+	private final RenameNode rootNode;
+
+	/** マッピングの名前 */
+	@Getter
+	private final String name;
+
+	/** マッピングの最大の深さ */
+	@Getter
+	private final int mappingDepth;
+
+	/** Java Flight Recorderのイベントを記録するかどうか */
+	@Getter
+	private final boolean flightRecorder;
 
 	/**
 	 * プロパティ名の変更前と変更後のマッピングによりインスタンスを生成します。
+	 * <p>
+	 * 変更前の名前には、任意の1つの名前に合致する{@value #WILDCARD}と、
+	 * 0個以上の任意の名前に合致する{@value #RECURSIVE_WILDCARD}を指定できます。
+	 * 変更後の名前には変更前の名前と同じ位置に同じワイルドカードを指定し、末尾にはワイルドカードを指定できません。
+	 * 例えば{@code **.PortCd}を{@code **.Fund}とした場合は、すべての深さの{@code PortCd}をリネームします。
+	 * </p>
 	 * @param nameMapping
 	 */
 	public JsonPropertyNameMapper(Map<String, String> nameMapping) {
-		// 変更前と変更後のマッピングノードを作成する
+		this(null, nameMapping, false);
+	}
+
+	/**
+	 * マッピングの名前とプロパティ名の変更前と変更後のマッピングによりインスタンスを生成します。
+	 * <p>
+	 * Java Flight Recorderのイベントを記録する場合は、{@link #renameProperties(String)}の段階ごと、
+	 * それ以外のリネームの呼び出しごとに{@link JsonRenameEvent}を記録します。
+	 * {@link #createRenamingParser(JsonParser)}と{@link #createRenamingGenerator(JsonGenerator)}は閉じた時点で記録します。
+	 * 記録しない場合はイベントを作成しません。
+	 * </p>
+	 * @param name マッピングの名前(イベントの記録に利用)
+	 * @param nameMapping
+	 * @param flightRecorder Java Flight Recorderのイベントを記録するかどうか
+	 * @throws IllegalArgumentException マッピングが不正な場合、または状態の数が上限を超える場合
+	 * @see #JsonPropertyNameMapper(Map)
+	 */
+	public JsonPropertyNameMapper(String name, Map<String, String> nameMapping, boolean flightRecorder) {
+		this.name = name;
+		this.flightRecorder = flightRecorder;
+		this.mappingDepth = nameMapping.keySet().stream()
+				.mapToInt(from -> from.split(NAME_SPLIT_STRING).length)
+				.max()
+				.orElse(0);
+
+		// 変更前と変更後のマッピングを検証する
+		RenameNodeCompiler compiler = new RenameNodeCompiler();
 		nameMapping.forEach((from, to) -> {
 			// .区切りで分割する
 			String[] fromNames = from.split(NAME_SPLIT_STRING);
@@ -51,186 +383,1218 @@ public class JsonPropertyNameMapper {
 						"Rename property names must be same depth."
 								+ "from = " + from + ", to = " + to);
 
-			// 末尾のみfromとtoを設定し、それ以外はfromのみ設定し、ノードを作成する
-			Node<MappedName> currentNode = rootNode;
+			// ワイルドカードの位置が異なる場合はエラーとする
 			int lastIndex = fromNames.length - 1;
 			for (int index = 0; index <= lastIndex; index++) {
-				// ノードを取得
-				String fromName = fromNames[index];
-				currentNode = getFromNode(currentNode, fromName);
-
-				// 末尾の場合はtoを設定
-				if (index == lastIndex) {
-					var mappedName = currentNode.getValue();
-					mappedName.setTo(toNames[index]);
-				}
+				if ((isWildcard(fromNames[index]) || isWildcard(toNames[index]))
+						&& (index == lastIndex || !fromNames[index].equals(toNames[index])))
+					throw new IllegalArgumentException(
+							"Rename property wildcards must be same position and not be last."
+									+ "from = " + from + ", to = " + to);
 			}
+
+			// 末尾のみtoを利用する
+			compiler.add(fromNames, toNames[lastIndex]);
 		});
+
+		// 呼び出しごとに計画を立てずに済むよう、決定性のオートマトンとして確定する
+		this.rootNode = compiler.compile();
+	}
+
+	/** ワイルドカードかを判別します */
+	private static boolean isWildcard(String name) {
+		return WILDCARD.equals(name) || RECURSIVE_WILDCARD.equals(name);
 	}
 
-	/** 合致するノードを検索して返し、存在しなければ作成して返します。 */
-	private Node<MappedName> getFromNode(
-			Node<MappedName> targetNode, String from) {
-		var result = targetNode.getChildren().stream()
-				.filter(node -> node.getValue().getFrom().equals(from))
-				.findFirst();
+	/**
+	 * JSONのプロパティ名をリネームします。
+	 * <p>
+	 * {@link JacksonUtil#getObjectMapper()}のツリーへ変換してリネームします。
+	 * リネームしたプロパティは他のリネームと同様に元の位置を維持するため、出力の順序はリネームの方法によらず同じです。
+	 * 経路の途中のプロパティが存在しない場合や、オブジェクトでない場合はリネームしません。
+	 * </p>
+	 * @param json
+	 * @return
+	 */
+	public String renameProperties(String json) {
+		// JsonNodeに変換
+		JsonRenameEvent event = beginEvent(JsonRenameEvent.PARSE, json.length());
+		JsonNode root = JacksonUtil.readTree(json);
+		commitEvent(event);
 
-		// 存在していればそのまま返す
-		if (result.isPresent())
-			return result.get();
+		// 深いところからプロパティ名の変更を行っていく
+		event = beginEvent(JsonRenameEvent.RENAME, json.length());
+		renameProperties(root, rootNode);
+		commitEvent(event);
 
-		// 存在していなければ作成及び追加して返す
-		MappedName name = new MappedName(from, null);
-		Node<MappedName> node = new Node<>(name);
-		targetNode.addChild(node);
+		// jsonへ戻す
+		event = beginEvent(JsonRenameEvent.SERIALIZE, json.length());
+		String renamed = JacksonUtil.writeValueAsString(root);
+		commitEvent(event);
+		return renamed;
+	}
+
+	/** イベントを記録する場合は段階の計測を開始します */
+	private JsonRenameEvent beginEvent(String stage, long payloadLength) {
+		if (!flightRecorder)
+			return null;
 
-		return node;
+		JsonRenameEvent event = new JsonRenameEvent();
+		event.mappingName = name;
+		event.stage = stage;
+		event.payloadLength = payloadLength;
+		event.mappingDepth = mappingDepth;
+		event.begin();
+		return event;
+	}
+
+	/** 計測を開始した段階を記録します */
+	private static void commitEvent(JsonRenameEvent event) {
+		if (event != null)
+			event.commit();
+	}
+
+	/** 解析を終えた入力の長さを取得します(バイト列はバイト数、文字列は文字数、不明な場合は-1) */
+	private static long getPayloadLength(JsonParser parser) {
+		JsonLocation location = parser.getCurrentLocation();
+		return Math.max(location.getByteOffset(), location.getCharOffset());
 	}
 
 	/**
-	 * JSONのプロパティ名をリネームします。
+	 * JSONのプロパティ名をストリーミングによりリネームします。
+	 * <p>
+	 * 入力のトークンを1回の走査で出力へ書き写し、現在の経路に合致するプロパティ名のみを書き換えます。
+	 * 文書全体を保持しないため、使用するメモリは入れ子の深さにのみ比例します。
+	 * {@link #renameProperties(String)}とは異なり、数値の表記は入力のまま維持します。
+	 * 値がnullのプロパティは{@link #renameProperties(String)}と同様にリネームしません。
+	 * </p>
 	 * @param json
 	 * @return
 	 */
-	public String renameProperties(String json) {
+	public String renamePropertiesStreaming(String json) {
+		StringWriter writer = new StringWriter(json.length());
+		try (JsonParser parser = JSON_FACTORY.createParser(json);
+				JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+			renameProperties(parser, generator);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * 入力から読み込んだJSONのプロパティ名をストリーミングによりリネームし、出力へ書き込みます。
+	 * <p>
+	 * 入力と出力は閉じません。
+	 * </p>
+	 * @param reader
+	 * @param writer
+	 * @throws IOException
+	 * @see #renamePropertiesStreaming(String)
+	 */
+	public void renameProperties(Reader reader, Writer writer) throws IOException {
+		try (JsonParser parser = JSON_FACTORY.createParser(reader);
+				JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			renameProperties(parser, generator);
+		}
+	}
+
+	/**
+	 * UTF-8のJSONのプロパティ名をリネームします。
+	 * <p>
+	 * リネームするプロパティ名の範囲のみを置き換え、それ以外のバイト列は入力のまま書き写します。
+	 * リネームするプロパティがない場合は、複製せずに入力をそのまま返します。
+	 * </p>
+	 * @param json
+	 * @return
+	 */
+	public byte[] renameProperties(byte[] json) {
+		JsonRenameEvent event = beginEvent(JsonRenameEvent.SPLICE, json.length);
+		ByteArrayOutputStream output = new ByteArrayOutputStream(json.length + SPLICE_MARGIN);
+		try {
+			if (!splice(ByteBuffer.wrap(json), Channels.newChannel(output)))
+				return json;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			commitEvent(event);
+		}
+		return output.toByteArray();
+	}
+
+	/**
+	 * UTF-8のJSONのプロパティ名をリネームします。
+	 * <p>
+	 * 入力の位置は変更しません。
+	 * リネームするプロパティがない場合は、複製せずに入力の残りの範囲を共有したバッファを返します。
+	 * </p>
+	 * @param json
+	 * @return
+	 * @see #renameProperties(byte[])
+	 */
+	public ByteBuffer renameProperties(ByteBuffer json) {
+		ByteBuffer source = json.slice();
+		JsonRenameEvent event = beginEvent(JsonRenameEvent.SPLICE, source.remaining());
+		ByteArrayOutputStream output = new ByteArrayOutputStream(source.remaining() + SPLICE_MARGIN);
 		try {
-			// JsonObjectに変換
-			JSONObject jsonObject = new JSONObject(json);
+			if (!splice(source, Channels.newChannel(output)))
+				return source;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			commitEvent(event);
+		}
+		return ByteBuffer.wrap(output.toByteArray());
+	}
+
+	/**
+	 * 入力から読み込んだUTF-8のJSONのプロパティ名をストリーミングによりリネームし、出力へ書き込みます。
+	 * <p>
+	 * 入力と出力は閉じません。
+	 * </p>
+	 * @param input
+	 * @param output
+	 * @throws IOException
+	 * @see #renamePropertiesStreaming(String)
+	 */
+	public void renameProperties(InputStream input, OutputStream output) throws IOException {
+		try (JsonParser parser = JSON_FACTORY.createParser(input);
+				JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			renameProperties(parser, generator);
+		}
+	}
 
-			// 最大の深さを算出
-			int maxDepth = rootNode.getMaxDepth();
+	/**
+	 * UTF-8のJSONファイルのプロパティ名をリネームし、別のファイルへ書き込みます。
+	 * <p>
+	 * 入力はメモリマップにより読み込むため、ファイル全体をヒープに読み込みません。
+	 * リネームするプロパティ名の範囲のみを置き換え、それ以外はマップした領域から直接書き込みます。
+	 * リネームするプロパティがない場合は、ファイルをそのまま転送します。
+	 * 書き込み先は入力を読み込む前に切り詰めるため、同じファイルは指定できません。
+	 * </p>
+	 * @param source
+	 * @param target
+	 * @throws IOException
+	 * @throws IllegalArgumentException 入力と書き込み先が同じファイルの場合
+	 */
+	public void renameProperties(Path source, Path target) throws IOException {
+		if (Files.exists(target) && Files.isSameFile(source, target))
+			throw new IllegalArgumentException("Source and target must be different files. path = " + source);
 
-			// 深いところからプロパティ名の変更を行っていく
-			for (int depth = maxDepth; 0 < depth; depth--) {
-				// 該当する深さのノードを取得
-				List<Node<MappedName>> nodes = rootNode.getDepthNodes(depth);
+		try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+				FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			long size = input.size();
 
-				// リネームの実行
-				renameProperties(jsonObject, nodes);
+			// 一度にマップできない大きさの場合はストリーミングで書き写す
+			if (Integer.MAX_VALUE < size) {
+				renameProperties(Channels.newInputStream(input), Channels.newOutputStream(output));
+				return;
 			}
 
-			// jsonへ戻す
-			return jsonObject.toString();
+			MappedByteBuffer mapped = input.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			JsonRenameEvent event = beginEvent(JsonRenameEvent.SPLICE, size);
+			try {
+				if (splice(mapped, output))
+					return;
+
+				// リネームしない場合はそのまま転送
+				long position = 0;
+				while (position < size) {
+					position += input.transferTo(position, size - position, output);
+				}
+			} finally {
+				commitEvent(event);
+			}
+		}
+	}
 
-		} catch (JSONException e) {
-			throw new RuntimeException(e);
+	/**
+	 * リネームするプロパティ名の範囲のみを置き換えて書き写します。
+	 * <p>
+	 * リネームするプロパティがない場合は何も書き込みません。
+	 * </p>
+	 * @return 書き込んだ場合はtrue
+	 */
+	private boolean splice(ByteBuffer source, WritableByteChannel output) throws IOException {
+		Edits edits = new Edits();
+		try (JsonParser parser = JSON_FACTORY.createParser(new ByteBufferInputStream(source.duplicate()))) {
+			collectEdits(parser, source, 0, rootNode, edits, null);
 		}
+		if (edits.size == 0)
+			return false;
+		write(output, source, List.of(edits));
+		return true;
 	}
 
-	/** JSONのリネームを行います */
-	private void renameProperties(
-			JSONObject jsonObject, List<Node<MappedName>> targetNodes) {
-		for (var targetNode : targetNodes) {
-			var routeNodes = targetNode.getRouteNodes();
-			Object current = jsonObject;
-			int lastIndex = routeNodes.size() - 1;
-			for (int i = 0; i <= lastIndex; i++) {
-				var node = routeNodes.get(i);
+	/**
+	 * UTF-8のJSONのプロパティ名を、大きな配列を分割して並列にリネームします。
+	 * <p>
+	 * 入力が{@value #PARALLEL_THRESHOLD}バイト未満の場合は{@link #renameProperties(byte[])}と同様に
+	 * 呼び出し元のスレッドのみでリネームします。
+	 * それ以上の場合は、マッピングの対象となる配列の要素を{@value #PARALLEL_CHUNK_SIZE}バイトごとに分割し、
+	 * 共通のフォーク/ジョインプールでリネームする範囲を求めてから、入力の順序で書き写します。
+	 * 分割する大きさに満たない配列や配列の残りの範囲は、呼び出し元のスレッドでリネームする範囲を求めます。
+	 * </p>
+	 * @param json
+	 * @return
+	 */
+	public byte[] renamePropertiesParallel(byte[] json) {
+		return renamePropertiesParallel(json, ForkJoinPool.commonPool());
+	}
 
-				// ルートはスキップ
-				if (node.isRoot())
-					continue;
+	/**
+	 * 指定したフォーク/ジョインプールを利用し、UTF-8のJSONのプロパティ名を並列にリネームします。
+	 * @param json
+	 * @param pool
+	 * @return
+	 * @see #renamePropertiesParallel(byte[])
+	 */
+	public byte[] renamePropertiesParallel(byte[] json, ForkJoinPool pool) {
+		return renamePropertiesParallel(json, pool, PARALLEL_THRESHOLD, PARALLEL_CHUNK_SIZE);
+	}
+
+	/** 閾値と分割する大きさを指定し、並列にリネームします */
+	byte[] renamePropertiesParallel(byte[] json, ForkJoinPool pool, int threshold, int chunkSize) {
+		if (json.length < threshold)
+			return renameProperties(json);
+
+		JsonRenameEvent event = beginEvent(JsonRenameEvent.PARALLEL, json.length);
+		ByteBuffer source = ByteBuffer.wrap(json);
+		ParallelEdits parallel = new ParallelEdits(pool, chunkSize);
+		ByteArrayOutputStream output = new ByteArrayOutputStream(json.length + SPLICE_MARGIN);
+		try {
+			try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+				Edits edits = collectEdits(parser, source, 0, rootNode, new Edits(), parallel);
+				parallel.parts.add(() -> edits);
+			}
+
+			// 分割した範囲の結果を入力の順序で集める
+			List<Edits> parts = new ArrayList<>(parallel.parts.size());
+			boolean renamed = false;
+			for (Supplier<Edits> part : parallel.parts) {
+				Edits edits = part.get();
+				parts.add(edits);
+				renamed |= edits.size != 0;
+			}
+			if (!renamed)
+				return json;
+			write(Channels.newChannel(output), source, parts);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			commitEvent(event);
+		}
+		return output.toByteArray();
+	}
+
+	/**
+	 * 構文を辿り、リネームするプロパティ名の範囲を収集します。
+	 * @param parser 入力の解析
+	 * @param source 入力
+	 * @param offset 解析の位置に対する入力の位置の差
+	 * @param root 最上位の値に対応するノード
+	 * @param edits 収集先
+	 * @param parallel 配列を分割して並列に収集する場合に指定(逐次の場合はnull)
+	 * @return 収集を続けた収集先
+	 */
+	private static Edits collectEdits(JsonParser parser, ByteBuffer source, int offset,
+			RenameNode root, Edits edits, ParallelEdits parallel) throws IOException {
+		// 入れ子ごとの対象ノード(マッピングがない場合はnull)
+		RenameNode[] stack = new RenameNode[INITIAL_DEPTH];
+		int depth = 0;
+		RenameNode current = null;
+		RenameNode fieldNode = null;
+
+		JsonToken token = parser.nextToken();
+		while (token != null) {
+			switch (token) {
+			case FIELD_NAME: {
+				fieldNode = current == null ? null : current.getChild(parser.getCurrentName());
+				if (fieldNode == null || fieldNode.to == null)
+					break;
+
+				// 値がnullの場合はリネームしない
+				int nameStart = offset + (int) parser.getTokenLocation().getByteOffset();
+				token = parser.nextToken();
+				if (token == JsonToken.VALUE_NULL)
+					break;
+
+				edits.add(nameStart, skipName(source, nameStart), fieldNode);
+				continue;
+			}
+			case START_OBJECT:
+			case START_ARRAY: {
+				// 配列の要素は配列と同じノードを対象とする
+				JsonStreamContext parent = parser.getParsingContext().getParent();
+				RenameNode next = parent.inRoot() ? root
+						: parent.inArray() ? current : fieldNode;
 
-				// 最後の要素であれば、リネームする
-				if (i == lastIndex) {
-					renameProperty(current, node.getValue());
+				// マッピングがない配下は読み飛ばす
+				if (next == null || !next.hasChildren()) {
+					parser.skipChildren();
 					break;
 				}
 
-				// ターゲットを取得
-				current = getCurrent(current, node.getValue());
+				// 並列の場合は配列の要素を分割して収集する
+				if (parallel != null && token == JsonToken.START_ARRAY) {
+					edits = parallel.fork(parser, source, offset, next, edits);
+					break;
+				}
+				if (depth == stack.length)
+					stack = Arrays.copyOf(stack, depth * 2);
+				stack[depth++] = current;
+				current = next;
+				break;
 			}
+			case END_OBJECT:
+			case END_ARRAY:
+				current = stack[--depth];
+				stack[depth] = null;
+				break;
+			default:
+				break;
+			}
+			token = parser.nextToken();
 		}
+		return edits;
 	}
 
-	/** プロパティのリネームを実行します */
-	@SuppressWarnings("unchecked")
-	private void renameProperty(Object current, MappedName name) {
-		if (current == null)
-			return;
+	/** 収集した範囲を置き換えながら入力を書き写します */
+	private static void write(WritableByteChannel output, ByteBuffer source, List<Edits> parts) throws IOException {
+		int copied = 0;
+		for (Edits edits : parts) {
+			for (int index = 0; index < edits.size; index++) {
+				write(output, source, copied, edits.starts[index]);
+				output.write(ByteBuffer.wrap(edits.nodes[index].quotedTo));
+				copied = edits.ends[index];
+			}
+		}
+		write(output, source, copied, source.limit());
+	}
 
-		// JSONオブジェクトの場合はそのままリネーム
-		if (current instanceof JSONObject) {
-			JSONObject jsonObject = (JSONObject) current;
-			renameProperty(jsonObject, name.getFrom(), name.getTo());
-			return;
+	/** リネームするプロパティ名の範囲の一覧です */
+	private static final class Edits {
+
+		/** 開始位置 */
+		private int[] starts = new int[INITIAL_DEPTH];
+
+		/** 終了位置 */
+		private int[] ends = new int[INITIAL_DEPTH];
+
+		/** 置き換えるノード */
+		private RenameNode[] nodes = new RenameNode[INITIAL_DEPTH];
+
+		/** 件数 */
+		private int size;
+
+		/** 範囲を追加します */
+		private void add(int start, int end, RenameNode node) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+				nodes = Arrays.copyOf(nodes, size * 2);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			nodes[size] = node;
+			size++;
 		}
+	}
+
+	/** 配列の要素を分割して並列に収集する状態です */
+	@RequiredArgsConstructor
+	private static final class ParallelEdits {
+
+		/** 利用するプール */
+		private final ForkJoinPool pool;
 
-		// JSONオブジェクトのコレクションの場合
-		if (current instanceof List<?>) {
-			for (JSONObject jsonObject : (List<JSONObject>) current) {
-				renameProperty(jsonObject, name.getFrom(), name.getTo());
+		/** 分割する大きさ */
+		private final int chunkSize;
+
+		/** 入力の順序で並べた収集結果(分割した範囲は完了を待って取得) */
+		private final List<Supplier<Edits>> parts = new ArrayList<>();
+
+		/**
+		 * 配列の要素を読み飛ばしながら分割し、分割した範囲ごとに収集を開始します。
+		 * <p>
+		 * 分割する大きさに満たない範囲はプールへ渡さず、呼び出し元スレッドで収集します。
+		 * そのため分割する大きさ未満の配列は、フォークせずに逐次の場合と同じスレッドで収集します。
+		 * </p>
+		 * @return 配列の後に続く範囲の収集先
+		 */
+		private Edits fork(JsonParser parser, ByteBuffer source, int offset, RenameNode node, Edits edits)
+				throws IOException {
+			// 構造を持つ要素の範囲をまとめる(間にある値は範囲に含まれる)
+			boolean forked = false;
+			int chunkStart = -1;
+			int chunkEnd = -1;
+			JsonToken token;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY)
+					continue;
+				int start = offset + (int) parser.getTokenLocation().getByteOffset();
+				parser.skipChildren();
+				chunkEnd = offset + (int) parser.getCurrentLocation().getByteOffset();
+				if (chunkStart < 0)
+					chunkStart = start;
+				if (chunkSize <= chunkEnd - chunkStart) {
+					// 最初に分割する際に、配列の前までの収集結果を確定する
+					if (!forked)
+						parts.add(() -> edits);
+					forked = true;
+					submit(source, chunkStart, chunkEnd, node);
+					chunkStart = -1;
+				}
 			}
-			return;
+
+			// 残りの範囲は配列の後に続く範囲と同じ収集先へ収集する
+			Edits rest = forked ? new Edits() : edits;
+			if (0 <= chunkStart)
+				collectRange(source, chunkStart, chunkEnd, node, rest);
+			return rest;
 		}
 
-		throw new IllegalArgumentException(current.getClass() + " must not be set.");
+		/** 範囲を収集する処理を開始します */
+		private void submit(ByteBuffer source, int start, int end, RenameNode node) {
+			ForkJoinTask<Edits> task = pool.submit(() -> collectRange(source, start, end, node, new Edits()));
+			parts.add(task::join);
+		}
+
+		/** 範囲を配列として解析し、収集します */
+		private static Edits collectRange(ByteBuffer source, int start, int end, RenameNode node, Edits edits)
+				throws IOException {
+			ByteBuffer chunk = source.duplicate();
+			chunk.limit(end).position(start);
+			InputStream input = new SequenceInputStream(Collections.enumeration(List.of(
+					new ByteArrayInputStream(ARRAY_START),
+					new ByteBufferInputStream(chunk),
+					new ByteArrayInputStream(ARRAY_END))));
+			try (JsonParser parser = JSON_FACTORY.createParser(input)) {
+				// 先頭の[の分だけ位置をずらす
+				return collectEdits(parser, source, start - ARRAY_START.length, node, edits, null);
+			}
+		}
 	}
 
-	/** JSONオブジェクトのプロパティ名を変更します */
-	private void renameProperty(JSONObject jsonObject, String from, String to) {
-		if (jsonObject == null)
-			return;
+	/** 引用符で囲まれたプロパティ名の終端の位置を取得します */
+	private static int skipName(ByteBuffer source, int nameStart) {
+		int index = nameStart + 1;
+		while (true) {
+			byte b = source.get(index++);
+			if (b == '\\')
+				index++;
+			else if (b == '"')
+				return index;
+		}
+	}
 
-		if (jsonObject.isNull(from))
-			return;
+	/** 入力の範囲を出力へ書き込みます */
+	private static void write(WritableByteChannel output, ByteBuffer source, int from, int to) throws IOException {
+		ByteBuffer range = source.duplicate();
+		range.limit(to).position(from);
+		while (range.hasRemaining()) {
+			output.write(range);
+		}
+	}
+
+	/** バッファを読み込む入力です */
+	@RequiredArgsConstructor
+	private static final class ByteBufferInputStream extends InputStream {
+
+		/** 読み込むバッファ */
+		private final ByteBuffer buffer;
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining())
+				return -1;
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+	}
+
+	/**
+	 * 読み込みながらプロパティ名をリネームするパーサーを作成します。
+	 * <p>
+	 * データバインドへ渡すことで、中間の文字列やツリーを作成せずにリネームした名前でバインドできます。
+	 * バインド先ではnullと未設定を区別しないため、他のリネームとは異なり値がnullのプロパティもリネームします。
+	 * </p>
+	 * @param parser
+	 * @return
+	 */
+	public JsonParser createRenamingParser(JsonParser parser) {
+		return new RenamingParser(parser, rootNode, beginEvent(JsonRenameEvent.BINDING, -1));
+	}
+
+	/** 読み込みながらプロパティ名をリネームするパーサーです */
+	private static final class RenamingParser extends JsonParserDelegate {
+
+		/** ルートノード */
+		private final RenameNode rootNode;
+
+		/** 入れ子ごとの対象ノード(マッピングがない場合はnull) */
+		private RenameNode[] stack = new RenameNode[INITIAL_DEPTH];
+
+		/** 入れ子の深さ */
+		private int depth;
+
+		/** 現在の対象ノード */
+		private RenameNode current;
+
+		/** 直前のプロパティ名のノード */
+		private RenameNode fieldNode;
+
+		/** 閉じた時点で記録するイベント(記録しない場合はnull) */
+		private JsonRenameEvent event;
+
+		/** パーサーとルートノード、イベントを渡し、インスタンスを生成します */
+		private RenamingParser(JsonParser parser, RenameNode rootNode, JsonRenameEvent event) {
+			super(parser);
+			this.rootNode = rootNode;
+			this.event = event;
+		}
+
+		@Override
+		public void close() throws IOException {
+			JsonRenameEvent closing = event;
+			event = null;
+			if (closing != null)
+				closing.payloadLength = getPayloadLength(delegate);
+			try {
+				super.close();
+			} finally {
+				commitEvent(closing);
+			}
+		}
+
+		@Override
+		public JsonToken nextToken() throws IOException {
+			JsonToken token = delegate.nextToken();
+			if (token == null)
+				return null;
+			switch (token) {
+			case FIELD_NAME:
+				fieldNode = current == null ? null : current.getChild(delegate.getCurrentName());
+				break;
+			case START_OBJECT:
+			case START_ARRAY: {
+				// 配列の要素は配列と同じノードを対象とする
+				JsonStreamContext parent = delegate.getParsingContext().getParent();
+				RenameNode next = parent.inRoot() ? rootNode
+						: parent.inArray() ? current : fieldNode;
+				if (depth == stack.length)
+					stack = Arrays.copyOf(stack, depth * 2);
+				stack[depth++] = current;
+				current = next != null && next.hasChildren() ? next : null;
+				break;
+			}
+			case END_OBJECT:
+			case END_ARRAY:
+				current = stack[--depth];
+				stack[depth] = null;
+				break;
+			default:
+				break;
+			}
+			return token;
+		}
+
+		@Override
+		public JsonToken nextValue() throws IOException {
+			// 委譲先で進めると入れ子を追えないため、自身のnextTokenで進める
+			JsonToken token = nextToken();
+			return token == JsonToken.FIELD_NAME ? nextToken() : token;
+		}
+
+		@Override
+		public JsonParser skipChildren() throws IOException {
+			// 読み飛ばした入れ子の終了を反映する
+			JsonToken token = delegate.currentToken();
+			if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY)
+				return this;
+			delegate.skipChildren();
+			current = stack[--depth];
+			stack[depth] = null;
+			return this;
+		}
+
+		@Override
+		public String getCurrentName() throws IOException {
+			String renamed = getRenamed();
+			return renamed != null ? renamed : delegate.getCurrentName();
+		}
+
+		@Override
+		public String getText() throws IOException {
+			String renamed = getRenamed();
+			return renamed != null ? renamed : delegate.getText();
+		}
+
+		@Override
+		public char[] getTextCharacters() throws IOException {
+			String renamed = getRenamed();
+			return renamed != null ? renamed.toCharArray() : delegate.getTextCharacters();
+		}
+
+		@Override
+		public int getTextLength() throws IOException {
+			String renamed = getRenamed();
+			return renamed != null ? renamed.length() : delegate.getTextLength();
+		}
+
+		@Override
+		public int getTextOffset() throws IOException {
+			return getRenamed() != null ? 0 : delegate.getTextOffset();
+		}
+
+		@Override
+		public int getText(Writer writer) throws IOException {
+			String renamed = getRenamed();
+			if (renamed == null)
+				return delegate.getText(writer);
+			writer.write(renamed);
+			return renamed.length();
+		}
+
+		@Override
+		public String getValueAsString() throws IOException {
+			String renamed = getRenamed();
+			return renamed != null ? renamed : delegate.getValueAsString();
+		}
+
+		@Override
+		public String getValueAsString(String defaultValue) throws IOException {
+			String renamed = getRenamed();
+			return renamed != null ? renamed : delegate.getValueAsString(defaultValue);
+		}
+
+		/** 現在のトークンがリネームするプロパティ名の場合は変更後の名前を取得します */
+		private String getRenamed() {
+			if (delegate.currentToken() != JsonToken.FIELD_NAME || fieldNode == null)
+				return null;
+			return fieldNode.to;
+		}
+	}
+
+	/**
+	 * 書き込みながらプロパティ名をリネームする生成器を作成します。
+	 * <p>
+	 * データバインドの書き込み先とすることで、中間のトークンやツリーを作成せずにリネームした名前で出力できます。
+	 * リネームするプロパティ名は値の書き込みまで保留し、
+	 * 値がnullのプロパティは{@link #renameProperties(JsonParser, JsonGenerator)}と同様にリネームしません。
+	 * 生成器を閉じた時点でイベントを記録します。
+	 * </p>
+	 * @param generator
+	 * @return
+	 */
+	public JsonGenerator createRenamingGenerator(JsonGenerator generator) {
+		return new RenamingGenerator(generator, rootNode, beginEvent(JsonRenameEvent.GENERATING, -1));
+	}
+
+	/** 書き込みながらプロパティ名をリネームする生成器です */
+	private static final class RenamingGenerator extends JsonGeneratorDelegate {
+
+		/** ルートノード */
+		private final RenameNode rootNode;
+
+		/** 入れ子ごとの対象ノード(マッピングがない場合はnull) */
+		private RenameNode[] stack = new RenameNode[INITIAL_DEPTH];
+
+		/** 入れ子の深さ */
+		private int depth;
+
+		/** 現在の対象ノード */
+		private RenameNode current;
+
+		/** 直前のプロパティ名のノード */
+		private RenameNode fieldNode;
+
+		/** 値の書き込みまで保留している変更前のプロパティ名(保留していない場合はnull) */
+		private String pendingName;
+
+		/** 閉じた時点で記録するイベント(記録しない場合はnull) */
+		private JsonRenameEvent event;
+
+		/** 生成器とルートノード、イベントを渡し、インスタンスを生成します */
+		private RenamingGenerator(JsonGenerator generator, RenameNode rootNode, JsonRenameEvent event) {
+			// オブジェクトとツリーの書き込みも自身を経由させる
+			super(generator, false);
+			this.rootNode = rootNode;
+			this.event = event;
+		}
+
+		@Override
+		public void close() throws IOException {
+			JsonRenameEvent closing = event;
+			event = null;
+			try {
+				super.close();
+			} finally {
+				commitEvent(closing);
+			}
+		}
+
+		@Override
+		public void writeFieldName(String name) throws IOException {
+			fieldNode = current == null ? null : current.getChild(name);
+			if (fieldNode != null && fieldNode.to != null)
+				pendingName = name;
+			else
+				delegate.writeFieldName(name);
+		}
+
+		@Override
+		public void writeFieldName(SerializableString name) throws IOException {
+			fieldNode = current == null ? null : current.getChild(name.getValue());
+			if (fieldNode != null && fieldNode.to != null)
+				pendingName = name.getValue();
+			else
+				delegate.writeFieldName(name);
+		}
+
+		@Override
+		public void writeFieldId(long id) throws IOException {
+			writeFieldName(Long.toString(id));
+		}
+
+		/** 保留しているプロパティ名を書き込みます(値がnullの場合は変更前の名前) */
+		private void writePendingName(boolean nullValue) throws IOException {
+			if (pendingName == null)
+				return;
+			String name = nullValue ? pendingName : fieldNode.to;
+			pendingName = null;
+			delegate.writeFieldName(name);
+		}
+
+		/** 入れ子の開始を反映します */
+		private void push() throws IOException {
+			writePendingName(false);
+
+			// 配列の要素は配列と同じノードを対象とする
+			JsonStreamContext parent = delegate.getOutputContext();
+			RenameNode next = parent.inRoot() ? rootNode
+					: parent.inArray() ? current : fieldNode;
+			if (depth == stack.length)
+				stack = Arrays.copyOf(stack, depth * 2);
+			stack[depth++] = current;
+			current = next != null && next.hasChildren() ? next : null;
+		}
+
+		/** 入れ子の終了を反映します */
+		private void pop() {
+			current = stack[--depth];
+			stack[depth] = null;
+		}
+
+		@Override
+		public void writeStartArray() throws IOException {
+			push();
+			delegate.writeStartArray();
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public void writeStartArray(int size) throws IOException {
+			push();
+			delegate.writeStartArray(size);
+		}
+
+		@Override
+		public void writeStartArray(Object forValue) throws IOException {
+			push();
+			delegate.writeStartArray(forValue);
+		}
+
+		@Override
+		public void writeStartArray(Object forValue, int size) throws IOException {
+			push();
+			delegate.writeStartArray(forValue, size);
+		}
+
+		@Override
+		public void writeEndArray() throws IOException {
+			pop();
+			delegate.writeEndArray();
+		}
+
+		@Override
+		public void writeStartObject() throws IOException {
+			push();
+			delegate.writeStartObject();
+		}
+
+		@Override
+		public void writeStartObject(Object forValue) throws IOException {
+			push();
+			delegate.writeStartObject(forValue);
+		}
+
+		@Override
+		public void writeStartObject(Object forValue, int size) throws IOException {
+			push();
+			delegate.writeStartObject(forValue, size);
+		}
+
+		@Override
+		public void writeEndObject() throws IOException {
+			pop();
+			delegate.writeEndObject();
+		}
+
+		@Override
+		public void writeArray(int[] array, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeArray(array, offset, length);
+		}
+
+		@Override
+		public void writeArray(long[] array, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeArray(array, offset, length);
+		}
+
+		@Override
+		public void writeArray(double[] array, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeArray(array, offset, length);
+		}
+
+		@Override
+		public void writeArray(String[] array, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeArray(array, offset, length);
+		}
+
+		@Override
+		public void writeString(String text) throws IOException {
+			writePendingName(text == null);
+			delegate.writeString(text);
+		}
+
+		@Override
+		public void writeString(Reader reader, int length) throws IOException {
+			writePendingName(reader == null);
+			delegate.writeString(reader, length);
+		}
+
+		@Override
+		public void writeString(char[] text, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeString(text, offset, length);
+		}
+
+		@Override
+		public void writeString(SerializableString text) throws IOException {
+			writePendingName(false);
+			delegate.writeString(text);
+		}
+
+		@Override
+		public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeRawUTF8String(text, offset, length);
+		}
+
+		@Override
+		public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeUTF8String(text, offset, length);
+		}
+
+		@Override
+		public void writeRawValue(String text) throws IOException {
+			writePendingName(false);
+			delegate.writeRawValue(text);
+		}
+
+		@Override
+		public void writeRawValue(String text, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeRawValue(text, offset, length);
+		}
+
+		@Override
+		public void writeRawValue(char[] text, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeRawValue(text, offset, length);
+		}
+
+		@Override
+		public void writeRawValue(SerializableString text) throws IOException {
+			writePendingName(false);
+			delegate.writeRawValue(text);
+		}
+
+		@Override
+		public void writeBinary(Base64Variant variant, byte[] data, int offset, int length) throws IOException {
+			writePendingName(data == null);
+			delegate.writeBinary(variant, data, offset, length);
+		}
+
+		@Override
+		public int writeBinary(Base64Variant variant, InputStream data, int dataLength) throws IOException {
+			writePendingName(false);
+			return delegate.writeBinary(variant, data, dataLength);
+		}
+
+		@Override
+		public void writeNumber(short value) throws IOException {
+			writePendingName(false);
+			delegate.writeNumber(value);
+		}
+
+		@Override
+		public void writeNumber(int value) throws IOException {
+			writePendingName(false);
+			delegate.writeNumber(value);
+		}
+
+		@Override
+		public void writeNumber(long value) throws IOException {
+			writePendingName(false);
+			delegate.writeNumber(value);
+		}
+
+		@Override
+		public void writeNumber(BigInteger value) throws IOException {
+			writePendingName(value == null);
+			delegate.writeNumber(value);
+		}
+
+		@Override
+		public void writeNumber(double value) throws IOException {
+			writePendingName(false);
+			delegate.writeNumber(value);
+		}
+
+		@Override
+		public void writeNumber(float value) throws IOException {
+			writePendingName(false);
+			delegate.writeNumber(value);
+		}
+
+		@Override
+		public void writeNumber(BigDecimal value) throws IOException {
+			writePendingName(value == null);
+			delegate.writeNumber(value);
+		}
+
+		@Override
+		public void writeNumber(String encodedValue) throws IOException {
+			writePendingName(encodedValue == null);
+			delegate.writeNumber(encodedValue);
+		}
+
+		@Override
+		public void writeNumber(char[] encodedValue, int offset, int length) throws IOException {
+			writePendingName(false);
+			delegate.writeNumber(encodedValue, offset, length);
+		}
+
+		@Override
+		public void writeBoolean(boolean state) throws IOException {
+			writePendingName(false);
+			delegate.writeBoolean(state);
+		}
+
+		@Override
+		public void writeNull() throws IOException {
+			writePendingName(true);
+			delegate.writeNull();
+		}
+
+		@Override
+		public void writeObjectId(Object id) throws IOException {
+			writePendingName(false);
+			delegate.writeObjectId(id);
+		}
+
+		@Override
+		public void writeObjectRef(Object id) throws IOException {
+			writePendingName(false);
+			delegate.writeObjectRef(id);
+		}
+
+		@Override
+		public void writeTypeId(Object id) throws IOException {
+			writePendingName(false);
+			delegate.writeTypeId(id);
+		}
+
+		@Override
+		public void writeEmbeddedObject(Object object) throws IOException {
+			writePendingName(object == null);
+			delegate.writeEmbeddedObject(object);
+		}
+	}
 
+	/**
+	 * パーサーのトークンを生成器へ書き写しながらリネームします。
+	 * <p>
+	 * パーサーと生成器は閉じません。
+	 * </p>
+	 * @param parser
+	 * @param generator
+	 * @throws IOException
+	 * @see #renamePropertiesStreaming(String)
+	 */
+	public void renameProperties(JsonParser parser, JsonGenerator generator) throws IOException {
+		JsonRenameEvent event = beginEvent(JsonRenameEvent.STREAMING, -1);
 		try {
-			Object targetObject = jsonObject.get(from);
-			jsonObject.remove(from);
-			jsonObject.put(to, targetObject);
-		} catch (JSONException e) {
-			throw new RuntimeException(e);
+			renameTokens(parser, generator);
+		} finally {
+			if (event != null) {
+				event.payloadLength = getPayloadLength(parser);
+				event.commit();
+			}
 		}
 	}
 
-	/** ターゲットを取得します */
-	private Object getCurrent(Object current, MappedName name) {
-		if (current == null)
-			return null;
+	/** パーサーのトークンを生成器へ書き写しながらリネームします */
+	private void renameTokens(JsonParser parser, JsonGenerator generator) throws IOException {
+		// 入れ子ごとの対象ノード(マッピングがない場合はnull)
+		RenameNode[] stack = new RenameNode[INITIAL_DEPTH];
+		int depth = 0;
+		RenameNode current = null;
+		RenameNode fieldNode = null;
 
-		String fromName = name.getFrom();
+		JsonToken token = parser.nextToken();
+		while (token != null) {
+			switch (token) {
+			case FIELD_NAME: {
+				// 値がnullの場合はリネームしない
+				String name = parser.getCurrentName();
+				fieldNode = current == null ? null : current.getChild(name);
+				token = parser.nextToken();
+				String to = fieldNode == null ? null : fieldNode.to;
+				generator.writeFieldName(to == null || token == JsonToken.VALUE_NULL ? name : to);
+				continue;
+			}
+			case START_OBJECT:
+			case START_ARRAY: {
+				// 配列の要素は配列と同じノードを対象とする
+				JsonStreamContext parent = parser.getParsingContext().getParent();
+				RenameNode next = parent.inRoot() ? rootNode
+						: parent.inArray() ? current : fieldNode;
+				if (depth == stack.length)
+					stack = Arrays.copyOf(stack, depth * 2);
+				stack[depth++] = current;
+				current = next != null && next.hasChildren() ? next : null;
+				if (token == JsonToken.START_OBJECT)
+					generator.writeStartObject();
+				else
+					generator.writeStartArray();
+				break;
+			}
+			case END_OBJECT:
+			case END_ARRAY:
+				current = stack[--depth];
+				stack[depth] = null;
+				if (token == JsonToken.END_OBJECT)
+					generator.writeEndObject();
+				else
+					generator.writeEndArray();
+				break;
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				// 数値は表記を変えずに書き写す
+				generator.writeNumber(parser.getText());
+				break;
+			default:
+				generator.copyCurrentEvent(parser);
+				break;
+			}
+			token = parser.nextToken();
+		}
+	}
 
-		// JSONオブジェクトの場合
-		if (current instanceof JSONObject) {
-			JSONObject jsonObject = (JSONObject) current;
-			Object obj = JacksonUtil.get(jsonObject, fromName);
-			if (obj instanceof JSONObject)
-				return obj;
-			if (obj instanceof JSONArray)
-				return getObjectList((JSONArray) obj);
+	/**
+	 * JSONのリネームを行います。
+	 * <p>
+	 * 子のノードの配下を先にリネームしてから子のノード自身をリネームするため、
+	 * 変更前の名前で配下を辿ることができます。
+	 * ノードを直接辿るため、呼び出しごとに対象を集めたリストは作成しません。
+	 * </p>
+	 */
+	private void renameProperties(JsonNode current, RenameNode node) {
+		// 配列の要素は配列と同じノードを対象とする(オブジェクト以外の要素は除く)
+		if (current instanceof ArrayNode) {
+			for (int index = 0, size = current.size(); index < size; index++) {
+				renameProperties(current.get(index), node);
+			}
+			return;
+		}
+		if (!(current instanceof ObjectNode))
+			return;
+		ObjectNode objectNode = (ObjectNode) current;
 
-			throw new IllegalArgumentException(obj + " must not be assigned.");
+		// ワイルドカードを含む場合は実際のプロパティ名で辿る
+		if (node.otherwise != null) {
+			renameMatchedProperties(objectNode, node);
+			return;
 		}
 
-		// JSON配列の場合
-		if (current instanceof JSONArray) {
-			JSONArray jsonArray = (JSONArray) current;
-			return getObjectList(jsonArray, fromName);
+		// 配下を持つ子のノードは先にリネーム
+		for (int index = 0; index < node.children.length; index++) {
+			if (node.children[index].hasChildren())
+				renameProperties(objectNode.get(node.names[index]), node.children[index]);
 		}
 
-		throw new IllegalArgumentException(current + " must not be assigned.");
+		// 子のノード自身をリネーム
+		for (int index = 0; index < node.children.length; index++) {
+			if (node.children[index].to != null)
+				renameProperty(objectNode, node.names[index], node.children[index].to);
+		}
 	}
 
-	/** JSON配列をオブジェクトのコレクションに変換します */
-	private Object getObjectList(JSONArray array) {
-		List<JSONObject> objectList = new ArrayList<>();
-		for (int index = 0; index < array.length(); index++) {
-			JSONObject jsonObject = null;
-			if (!array.isNull(index))
-				jsonObject = JacksonUtil.getJsonObject(array, index);
-			objectList.add(jsonObject);
+	/** 実際のプロパティ名によりノードを辿り、リネームを行います */
+	private void renameMatchedProperties(ObjectNode objectNode, RenameNode node) {
+		// 配下を先にリネーム(オブジェクト自身は変わらないため、そのまま走査する)
+		boolean renaming = false;
+		Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			RenameNode child = node.getChild(field.getKey());
+			if (child == null)
+				continue;
+			if (child.hasChildren())
+				renameProperties(field.getValue(), child);
+			if (child.to != null && !field.getValue().isNull())
+				renaming = true;
 		}
-		return objectList;	}
+		if (!renaming)
+			return;
 
-	/** JSON配列をオブジェクトのコレクションに変換します */
-	private Object getObjectList(JSONArray array, String name) {
-		List<Object> objectList = new ArrayList<>();
-		for (int index = 0; index < array.length(); index++) {
-			JSONObject jsonObject = JacksonUtil.getJsonObject(array, index);
-			Object object = JacksonUtil.get(jsonObject, name);
-			objectList.add(object);
+		// リネームにより変わるため、リネームする場合のみプロパティ名を複写してから変更
+		String[] names = new String[objectNode.size()];
+		Iterator<String> fieldNames = objectNode.fieldNames();
+		for (int index = 0; index < names.length; index++) {
+			names[index] = fieldNames.next();
 		}
-		return objectList;
+		for (String name : names) {
+			RenameNode child = node.getChild(name);
+			if (child != null && child.to != null)
+				renameProperty(objectNode, name, child.to);
+		}
+	}
+
+	/** JSONオブジェクトのプロパティ名を変更します */
+	private void renameProperty(ObjectNode objectNode, String from, String to) {
+		JsonNode value = objectNode.get(from);
+		if (value == null || value.isNull())
+			return;
+
+		JacksonUtil.rename(objectNode, from, to);
 	}
 }
@@ -0,0 +1,42 @@
+package com.egu.springboot.sample.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * {@link JsonPropertyNameMapperRegistry}の設定値です。
+ * <p>
+ * 名前ごとに変更前と変更後のプロパティ名のマッピングを定義します。
+ * 大文字や.を含むプロパティ名は{@code json.mapper.mappings.cshmnt.[FundInfList.PortCd]=FundInfList.Fund}
+ * のように[]で囲みます。
+ * </p>
+ * @author t-eguchi
+ */
+@Data
+@ConfigurationProperties(prefix = JsonPropertyNameMapperProperties.PREFIX)
+public class JsonPropertyNameMapperProperties {
+
+	/** 設定値の接頭辞 */
+	public static final String PREFIX = "json.mapper";
+
+	/** 名前ごとのプロパティ名のマッピング */
+	private final Map<String, Map<String, String>> mappings = new LinkedHashMap<>();
+
+	/** Java Flight Recorderの設定 */
+	private final FlightRecorder flightRecorder = new FlightRecorder();
+
+	/**
+	 * Java Flight Recorderの設定値です。
+	 * @author t-eguchi
+	 */
+	@Data
+	public static class FlightRecorder {
+
+		/** リネームの段階ごとのイベント({@link JsonRenameEvent})を記録するかどうか */
+		private boolean enabled;
+	}
+}
@@ -0,0 +1,154 @@
+package com.egu.springboot.sample.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 設定値から生成した{@link JsonPropertyNameMapper}を名前ごとに保持するレジストリです。
+ * <p>
+ * マッピングは読み込み時に一度だけ変換し、以降の検索はマップの参照のみで完了します。
+ * 再読み込みでは新しいマップを別に作成してから参照を差し替えるため、
+ * リネーム中の呼び出しを待たせることも、作成途中の状態を参照させることもありません。
+ * マッピングが変わらない名前は生成済みのインスタンスをそのまま引き継ぎます。
+ * </p>
+ * <p>
+ * Spring Cloudの{@code EnvironmentChangeEvent}または{@code RefreshScopeRefreshedEvent}を受け取ると、
+ * 環境から設定値を読み直します。Spring Cloudを利用しない場合は、設定値を変更した後に{@link #reload()}を呼び出してください。
+ * </p>
+ * @author t-eguchi
+ */
+@Slf4j
+@Component
+public class JsonPropertyNameMapperRegistry implements ApplicationListener<ApplicationEvent> {
+
+	/** 再読み込みを行うイベントのクラス名(Spring Cloudへの依存を避けるため名前で判別する) */
+	private static final Set<String> RELOAD_EVENTS = Set.of(
+			"org.springframework.cloud.context.environment.EnvironmentChangeEvent",
+			"org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent");
+
+	/** 生成済みのマッパー */
+	@AllArgsConstructor
+	private static class Entry {
+
+		/** 生成元のマッピング */
+		private final Map<String, String> mapping;
+
+		/** マッパー */
+		private final JsonPropertyNameMapper mapper;
+	}
+
+	/** 環境 */
+	private final Environment environment;
+
+	/** 名前ごとの生成済みのマッパー */
+	private final AtomicReference<Map<String, Entry>> entries = new AtomicReference<>(Map.of());
+
+	/** Java Flight Recorderのイベントを記録するかどうか */
+	private boolean flightRecorder;
+
+	/**
+	 * 環境を渡し、設定値からマッパーを生成します。
+	 * @param environment
+	 */
+	public JsonPropertyNameMapperRegistry(Environment environment) {
+		this.environment = environment;
+		reload();
+	}
+
+	/**
+	 * 名前に該当するマッパーを取得します。
+	 * @param name
+	 * @return 存在しない場合はnull
+	 */
+	public JsonPropertyNameMapper get(String name) {
+		if (name == null)
+			return null;
+		Entry entry = entries.get().get(name);
+		return entry == null ? null : entry.mapper;
+	}
+
+	/**
+	 * 名前が登録されているかを判別します。
+	 * @param name
+	 * @return
+	 */
+	public boolean contains(String name) {
+		return get(name) != null;
+	}
+
+	/**
+	 * 登録されている名前の一覧を取得します。
+	 * @return
+	 */
+	public Set<String> getNames() {
+		return entries.get().keySet();
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationEvent event) {
+		if (!RELOAD_EVENTS.contains(event.getClass().getName()))
+			return;
+
+		// 不正なマッピングの場合は現在のマッパーを維持し、イベントの発行元へは伝えない
+		try {
+			reload();
+		} catch (RuntimeException e) {
+			log.warn("Could not reload JSON property name mappings.", e);
+		}
+	}
+
+	/**
+	 * 現在の環境から設定値を読み直し、マッパーを差し替えます。
+	 * <p>
+	 * 不正なマッピングが含まれる場合は例外とし、現在のマッパーを維持します。
+	 * </p>
+	 */
+	public void reload() {
+		JsonPropertyNameMapperProperties properties = Binder.get(environment)
+				.bind(JsonPropertyNameMapperProperties.PREFIX, JsonPropertyNameMapperProperties.class)
+				.orElseGet(JsonPropertyNameMapperProperties::new);
+		reload(properties.getMappings(), properties.getFlightRecorder().isEnabled());
+	}
+
+	/**
+	 * 名前ごとのマッピングを渡し、マッパーを差し替えます。
+	 * <p>
+	 * 不正なマッピングが含まれる場合は例外とし、現在のマッパーを維持します。
+	 * </p>
+	 * @param mappings
+	 */
+	public synchronized void reload(Map<String, Map<String, String>> mappings) {
+		reload(mappings, flightRecorder);
+	}
+
+	/** Java Flight Recorderの設定を含めてマッパーを差し替えます */
+	private synchronized void reload(Map<String, Map<String, String>> mappings, boolean flightRecorder) {
+		// 現在のマッパーを参照したまま、新しいマップを作成する
+		Map<String, Entry> current = entries.get();
+		Map<String, Entry> resolved = new LinkedHashMap<>();
+		mappings.forEach((name, mapping) -> {
+			Entry entry = current.get(name);
+			if (entry == null || !entry.mapping.equals(mapping) || entry.mapper.isFlightRecorder() != flightRecorder) {
+				Map<String, String> copied = Collections.unmodifiableMap(new LinkedHashMap<>(mapping));
+				entry = new Entry(copied, new JsonPropertyNameMapper(name, copied, flightRecorder));
+			}
+			resolved.put(name, entry);
+		});
+
+		// 作成が完了してから差し替える
+		entries.set(Collections.unmodifiableMap(resolved));
+		this.flightRecorder = flightRecorder;
+	}
+}
@@ -0,0 +1,69 @@
+package com.egu.springboot.sample.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * {@link JsonPropertyNameMapper}のリネームの段階を表すJava Flight Recorderのイベントです。
+ * <p>
+ * ツリーによるリネームは解析、リネーム、変換の段階ごとに記録し、1回の走査で完了するリネームは1つの段階として記録します。
+ * 入力の長さが事前にわからないストリームは、読み込みを終えた位置を長さとします。
+ * {@code json.mapper.flight-recorder.enabled}が有効な場合のみ作成します。
+ * </p>
+ * @author t-eguchi
+ */
+@Name(JsonRenameEvent.NAME)
+@Label("JSON Rename")
+@Category({ "Spring Sample", "JSON Mapper" })
+@Description("Stage of renaming JSON property names.")
+@StackTrace(false)
+class JsonRenameEvent extends Event {
+
+	/** イベント名 */
+	static final String NAME = "com.egu.springboot.sample.JsonRename";
+
+	/** ツリーへの解析 */
+	static final String PARSE = "parse";
+
+	/** ツリーのリネーム */
+	static final String RENAME = "rename";
+
+	/** ツリーからの変換 */
+	static final String SERIALIZE = "serialize";
+
+	/** トークンを書き写しながらのリネーム */
+	static final String STREAMING = "streaming";
+
+	/** プロパティ名の範囲のみの置き換え */
+	static final String SPLICE = "splice";
+
+	/** 配列を分割した並列の置き換え */
+	static final String PARALLEL = "parallel";
+
+	/** 読み込みながらリネームするパーサーによるバインド */
+	static final String BINDING = "binding";
+
+	/** 書き込みながらリネームする生成器による変換 */
+	static final String GENERATING = "generating";
+
+	/** マッピングの名前 */
+	@Label("Mapping Name")
+	String mappingName;
+
+	/** 段階 */
+	@Label("Stage")
+	String stage;
+
+	/** 入力の長さ(文字列は文字数、バイト列はバイト数、不明な場合は-1) */
+	@Label("Payload Length")
+	@Description("Length of the input in chars for strings or in bytes for byte arrays, or -1 if unknown.")
+	long payloadLength;
+
+	/** マッピングの最大の深さ */
+	@Label("Mapping Depth")
+	int mappingDepth;
+}
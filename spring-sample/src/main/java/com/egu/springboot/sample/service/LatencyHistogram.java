@@ -0,0 +1,118 @@
+package com.egu.springboot.sample.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 処理時間(ナノ秒)の分布を記録するヒストグラムです。
+ * <p>
+ * 2のべき乗ごとの区間をさらに16分割した対数線形のバケットに記録するため、
+ * 値の誤差は最大でおよそ6%です。各バケットは{@link LongAdder}とし、
+ * 記録時に割り当てやロックを行いません。
+ * </p>
+ * @author t-eguchi
+ */
+public class LatencyHistogram {
+
+	/** 区間を分割するビット数 */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/** 区間の分割数 */
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/** 記録できる最大の指数(2^40ナノ秒はおよそ18分) */
+	private static final int MAX_EXPONENT = 40;
+
+	/** バケット数 */
+	private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	/** バケットごとの件数 */
+	private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+	/**
+	 * 空のヒストグラムを生成します。
+	 */
+	public LatencyHistogram() {
+		for (int index = 0; index < BUCKET_COUNT; index++) {
+			buckets[index] = new LongAdder();
+		}
+	}
+
+	/**
+	 * 値を記録します。
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		buckets[indexOf(nanos)].increment();
+	}
+
+	/**
+	 * 指定したパーセンタイルの値を取得します。
+	 * @param percentile 0から1の範囲の値
+	 * @return 記録がない場合は0
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] counts = getCounts();
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		return getValueAtPercentile(counts, total, percentile);
+	}
+
+	/**
+	 * 各バケットの件数を取得します。
+	 * @return
+	 */
+	long[] getCounts() {
+		long[] counts = new long[BUCKET_COUNT];
+		for (int index = 0; index < BUCKET_COUNT; index++) {
+			counts[index] = buckets[index].sum();
+		}
+		return counts;
+	}
+
+	/**
+	 * 件数の配列から指定したパーセンタイルの値を取得します。
+	 * @param counts
+	 * @param total
+	 * @param percentile
+	 * @return
+	 */
+	static long getValueAtPercentile(long[] counts, long total, double percentile) {
+		if (total == 0)
+			return 0;
+
+		long threshold = Math.max(1, (long) Math.ceil(total * percentile));
+		long cumulative = 0;
+		for (int index = 0; index < counts.length; index++) {
+			cumulative += counts[index];
+			if (threshold <= cumulative)
+				return upperBoundOf(index);
+		}
+		return upperBoundOf(counts.length - 1);
+	}
+
+	/** 値に該当するバケットの位置を取得します */
+	static int indexOf(long nanos) {
+		if (nanos < SUB_BUCKET_COUNT)
+			return (int) Math.max(0, nanos);
+
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		if (MAX_EXPONENT < exponent)
+			return BUCKET_COUNT - 1;
+
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/** バケットに含まれる最大の値を取得します */
+	static long upperBoundOf(int index) {
+		if (index < SUB_BUCKET_COUNT)
+			return index;
+
+		int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKET_COUNT;
+		long lowerBound = (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
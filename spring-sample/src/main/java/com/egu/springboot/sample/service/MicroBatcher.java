@@ -0,0 +1,184 @@
+package com.egu.springboot.sample.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+/**
+ * 個別の呼び出しをまとめ、リストを受け取るビジネスロジックへ一括で渡すクラスです。
+ * <p>
+ * 空の一括実行に最初に追加した呼び出し元が待ち時間の上限まで後続の呼び出しを待ち、
+ * まとめて実行します。件数の上限に達した場合は、上限に達した呼び出し元が待たずに実行します。
+ * 結果のリストは入力と同じ順序であるものとし、各呼び出し元には対応する要素を返します。
+ * 実行は呼び出し元のスレッドで行うため、専用のスレッドは使用しません。
+ * </p>
+ * @author t-eguchi
+ */
+class MicroBatcher {
+
+	/** 一括実行の待ち */
+	private static class Batch {
+
+		/** 入力値 */
+		private final List<Object> inputs = new ArrayList<>();
+
+		/** 入力値ごとの結果 */
+		private final List<CompletableFuture<Object>> futures = new ArrayList<>();
+	}
+
+	/** サービスID */
+	private final String serviceID;
+
+	/** 一括実行の件数の上限 */
+	@Getter
+	private final int maxBatchSize;
+
+	/** 一括実行を待つ時間の上限(ミリ秒) */
+	@Getter
+	private final long batchWindowMillis;
+
+	/** 待ちの操作を保護するロック */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** 待ちが実行に移ったことの通知 */
+	private final Condition dispatched = lock.newCondition();
+
+	/** 追加中の一括実行の待ち */
+	private Batch current = new Batch();
+
+	/**
+	 * 設定値を渡し、インスタンスを生成します。
+	 * @param serviceID
+	 * @param maxBatchSize
+	 * @param batchWindowMillis
+	 */
+	MicroBatcher(String serviceID, int maxBatchSize, long batchWindowMillis) {
+		this.serviceID = serviceID;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.batchWindowMillis = Math.max(0, batchWindowMillis);
+	}
+
+	/**
+	 * 注釈と設定値から一括実行を生成します。
+	 * @param serviceID
+	 * @param businessLogic
+	 * @param settings
+	 * @return 一括実行しない場合はnull
+	 */
+	static MicroBatcher of(String serviceID, BusinessLogic businessLogic, BLProxyProperties.Service settings) {
+		if (businessLogic == null || !businessLogic.batch())
+			return null;
+		int maxBatchSize = businessLogic.maxBatchSize();
+		long batchWindowMillis = businessLogic.batchWindowMillis();
+		if (settings != null) {
+			if (settings.getMaxBatchSize() != null)
+				maxBatchSize = settings.getMaxBatchSize();
+			if (settings.getBatchWindowMillis() != null)
+				batchWindowMillis = settings.getBatchWindowMillis();
+		}
+		return new MicroBatcher(serviceID, maxBatchSize, batchWindowMillis);
+	}
+
+	/**
+	 * 入力値を一括実行に加え、その結果を取得します。
+	 * <p>
+	 * 例外は一括実行で発生したものをラップせずに送出します。
+	 * </p>
+	 * @param input
+	 * @param execution 入力値のリストを渡してビジネスロジックを実行する処理
+	 * @return
+	 */
+	@SneakyThrows
+	Object execute(Object input, Function<List<Object>, Object> execution) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		Batch batch;
+		boolean leader;
+		boolean full;
+		lock.lock();
+		try {
+			batch = current;
+			leader = batch.inputs.isEmpty();
+			batch.inputs.add(input);
+			batch.futures.add(future);
+
+			// 件数の上限に達した場合は待ちを締め切る
+			full = maxBatchSize <= batch.inputs.size();
+			if (full) {
+				current = new Batch();
+				dispatched.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		// 締め切った呼び出し元か、待ち時間の上限に達した先頭の呼び出し元が実行
+		if (full || (leader && awaitWindow(batch)))
+			dispatch(batch, execution);
+
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * 待ち時間の上限まで後続の呼び出しを待ち、待ちを締め切ります。
+	 * @return 締め切った場合はtrue、他の呼び出し元が締め切った場合はfalse
+	 */
+	private boolean awaitWindow(Batch batch) {
+		long remaining = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+		lock.lock();
+		try {
+			while (current == batch && 0 < remaining) {
+				remaining = dispatched.awaitNanos(remaining);
+			}
+			if (current != batch)
+				return false;
+			current = new Batch();
+			return true;
+		} catch (InterruptedException e) {
+			// 割り込まれた場合も待ちを残さないよう締め切る
+			Thread.currentThread().interrupt();
+			if (current != batch)
+				return false;
+			current = new Batch();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** まとめた入力値で実行し、結果を呼び出し元ごとに設定します */
+	private void dispatch(Batch batch, Function<List<Object>, Object> execution) {
+		Object results;
+		try {
+			results = execution.apply(batch.inputs);
+		} catch (Throwable e) {
+			batch.futures.forEach(future -> future.completeExceptionally(e));
+			return;
+		}
+
+		// 結果の件数が入力と一致しない場合は対応付けられない
+		int size = batch.futures.size();
+		if (!(results instanceof List) || ((List<?>) results).size() != size) {
+			IllegalStateException e = new IllegalStateException("Service[" + serviceID + "] must return "
+					+ size + " results in the same order as inputs. result = "
+					+ (results instanceof List ? ((List<?>) results).size() + " results" : results));
+			batch.futures.forEach(future -> future.completeExceptionally(e));
+			return;
+		}
+		List<?> list = (List<?>) results;
+		for (int index = 0; index < size; index++) {
+			batch.futures.get(index).complete(list.get(index));
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.egu.springboot.sample.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import lombok.SneakyThrows;
+
+/**
+ * 同じ入力値による同時の呼び出しを1回の実行にまとめるクラスです。
+ * <p>
+ * 入力値ごとに実行中の呼び出しを保持し、後続の呼び出しはその完了を待って同じ結果を共有します。
+ * 実行が完了した時点で保持を解除するため、キャッシュとは異なり結果は残りません。
+ * </p>
+ * @author t-eguchi
+ */
+class RequestCoalescer {
+
+	/** 計測値 */
+	private final ServiceMetrics metrics;
+
+	/** 入力値ごとの実行中の呼び出し */
+	private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * 計測値を渡し、インスタンスを生成します。
+	 * @param metrics
+	 */
+	RequestCoalescer(ServiceMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * 注釈と設定値から呼び出しの集約を生成します。
+	 * @param businessLogic
+	 * @param settings
+	 * @param metrics
+	 * @return 集約しない場合はnull
+	 */
+	static RequestCoalescer of(BusinessLogic businessLogic, BLProxyProperties.Service settings,
+			ServiceMetrics metrics) {
+		boolean coalesce = businessLogic != null && businessLogic.coalesce();
+		if (settings != null && settings.getCoalesce() != null)
+			coalesce = settings.getCoalesce();
+		return coalesce ? new RequestCoalescer(metrics) : null;
+	}
+
+	/**
+	 * 同じ入力値の呼び出しが実行中であればその結果を待ち、なければ実行します。
+	 * <p>
+	 * 例外は実行中の呼び出しと同じものをラップせずに送出します。
+	 * </p>
+	 * @param input
+	 * @param execution
+	 * @return
+	 */
+	@SneakyThrows
+	Object execute(Object input, Supplier<Object> execution) {
+		// 入力値がない場合は集約しない
+		if (input == null)
+			return execution.get();
+
+		// 実行中の呼び出しがあればその完了を待つ
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> running = inFlight.putIfAbsent(input, future);
+		if (running != null) {
+			metrics.recordCoalesced();
+			try {
+				return running.join();
+			} catch (CompletionException e) {
+				throw e.getCause();
+			}
+		}
+
+		// 完了前に保持を解除し、結果を残さない
+		Object result;
+		try {
+			result = execution.get();
+		} catch (Throwable e) {
+			inFlight.remove(input, future);
+			future.completeExceptionally(e);
+			throw e;
+		}
+		inFlight.remove(input, future);
+		future.complete(result);
+		return result;
+	}
+
+	/**
+	 * 実行中の入力値の件数を取得します。
+	 * @return
+	 */
+	int getInFlightCount() {
+		return inFlight.size();
+	}
+}
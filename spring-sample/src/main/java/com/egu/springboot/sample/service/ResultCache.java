@@ -0,0 +1,124 @@
+package com.egu.springboot.sample.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.SneakyThrows;
+
+/**
+ * ビジネスロジックの実行結果を入力値ごとに保持するキャッシュです。
+ * <p>
+ * 件数の上限を超えた場合は、参照頻度を考慮したCaffeineのW-TinyLFUにより追い出します。
+ * 同じ入力値の同時の呼び出しは、キャッシュへの追加が完了するまで待機し、1回のみ実行します。
+ * 実行はキャッシュの更新処理の外で行うため、時間のかかる実行が他の入力値の参照や追加を妨げることはありません。
+ * キャッシュした結果は呼び出し元の間で共有されるため、呼び出し元で変更しないでください。
+ * </p>
+ * @author t-eguchi
+ */
+class ResultCache {
+
+	/** 入力値をキーとしたキャッシュ */
+	private final AsyncCache<Object, Object> cache;
+
+	/**
+	 * 有効期間と最大件数を渡し、インスタンスを生成します。
+	 * @param ttl
+	 * @param maximumSize
+	 */
+	ResultCache(Duration ttl, long maximumSize) {
+		this.cache = Caffeine.newBuilder()
+				.expireAfterWrite(ttl)
+				.maximumSize(maximumSize)
+				.buildAsync();
+	}
+
+	/**
+	 * 注釈の設定と設定値からキャッシュを生成します。
+	 * @param businessLogic
+	 * @param settings 注釈の設定を上書きする設定値(存在しない場合はnull)
+	 * @return キャッシュしない場合はnull
+	 */
+	static ResultCache of(BusinessLogic businessLogic, BLProxyProperties.Service settings) {
+		boolean cacheable = businessLogic != null && businessLogic.cacheable();
+		long ttlMillis = businessLogic == null ? 60_000L : businessLogic.cacheTtlMillis();
+		long maximumSize = businessLogic == null ? 1_000L : businessLogic.cacheMaximumSize();
+		if (settings != null) {
+			if (settings.getCacheable() != null)
+				cacheable = settings.getCacheable();
+			if (settings.getCacheTtlMillis() != null)
+				ttlMillis = settings.getCacheTtlMillis();
+			if (settings.getCacheMaximumSize() != null)
+				maximumSize = settings.getCacheMaximumSize();
+		}
+		if (!cacheable)
+			return null;
+		return new ResultCache(Duration.ofMillis(ttlMillis), maximumSize);
+	}
+
+	/**
+	 * キャッシュした結果を取得し、存在しない場合は実行してキャッシュします。
+	 * <p>
+	 * 入力値がnullの場合はキャッシュせずに実行します。
+	 * 結果がnullの場合と例外の場合はキャッシュしません。
+	 * 実行は未完了の結果をキャッシュに追加した後に呼び出し元スレッドで行い、
+	 * 同じ入力値の後続の呼び出しはその完了を待ちます。
+	 * 例外は実行と同じものをラップせずに送出します。
+	 * 例外の場合はキャッシュから除いた後に待機中の呼び出しへ渡すため、Caffeineによる警告ログは出力されません。
+	 * </p>
+	 * @param input
+	 * @param loader 入力値を受け取り結果を返す実行
+	 * @return
+	 */
+	@SneakyThrows
+	Object get(Object input, Function<Object, Object> loader) {
+		if (input == null)
+			return loader.apply(null);
+
+		// 未完了の結果のみをキャッシュの更新処理の中で追加
+		CompletableFuture<Object> loading = new CompletableFuture<>();
+		CompletableFuture<Object> future = cache.get(input, (key, executor) -> loading);
+
+		// 既に存在する場合はその完了を待つ
+		if (future != loading) {
+			Object result;
+			try {
+				result = future.join();
+			} catch (CompletionException e) {
+				throw e.getCause();
+			}
+			if (result instanceof Failure)
+				throw ((Failure) result).cause;
+			return result;
+		}
+
+		// 追加した場合は実行して完了させる(nullはキャッシュから除かれる)
+		Object result;
+		try {
+			result = loader.apply(input);
+		} catch (Throwable e) {
+			cache.asMap().remove(input, loading);
+			loading.complete(new Failure(e));
+			throw e;
+		}
+		loading.complete(result);
+		return result;
+	}
+
+	/**
+	 * 待機中の呼び出しへ渡す、キャッシュしない実行の例外です。
+	 */
+	private static class Failure {
+
+		/** 実行の例外 */
+		private final Throwable cause;
+
+		Failure(Throwable cause) {
+			this.cause = cause;
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package com.egu.springboot.sample.service;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * サービスIDごとの呼び出しの計測値を記録するクラスです。
+ * <p>
+ * 計測値は{@link LongAdder}により記録するため、複数のスレッドから同時に記録しても
+ * 競合点にならず、記録時の割り当ても発生しません。
+ * </p>
+ * @author t-eguchi
+ */
+public class ServiceMetrics {
+
+	/** サービスID */
+	@Getter
+	private final String serviceID;
+
+	/** 呼び出し回数 */
+	private final LongAdder calls = new LongAdder();
+
+	/** 例外の発生回数 */
+	private final LongAdder errors = new LongAdder();
+
+	/** 実行中の件数 */
+	private final LongAdder inFlight = new LongAdder();
+
+	/** 合計の処理時間 */
+	private final LongAdder totalNanos = new LongAdder();
+
+	/** 最大の処理時間 */
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	/** キャッシュのヒット回数 */
+	private final LongAdder cacheHits = new LongAdder();
+
+	/** キャッシュのミス回数 */
+	private final LongAdder cacheMisses = new LongAdder();
+
+	/** 同時実行数の制限による拒否回数 */
+	private final LongAdder rejected = new LongAdder();
+
+	/** 実行中の呼び出しに集約した回数 */
+	private final LongAdder coalesced = new LongAdder();
+
+	/** 処理時間の分布 */
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	/**
+	 * サービスIDを渡し、インスタンスを生成します。
+	 * @param serviceID
+	 */
+	public ServiceMetrics(String serviceID) {
+		this.serviceID = serviceID;
+	}
+
+	/**
+	 * 呼び出しの開始を記録します。
+	 * @return 開始時刻
+	 */
+	long start() {
+		inFlight.increment();
+		return System.nanoTime();
+	}
+
+	/**
+	 * 呼び出しの終了を記録します。
+	 * @param startNanos {@link #start()}の戻り値
+	 * @param success
+	 */
+	void end(long startNanos, boolean success) {
+		long elapsed = System.nanoTime() - startNanos;
+		inFlight.decrement();
+		calls.increment();
+		if (!success)
+			errors.increment();
+		totalNanos.add(elapsed);
+		maxNanos.accumulate(elapsed);
+		latency.record(elapsed);
+	}
+
+	/**
+	 * キャッシュのヒットを記録します。
+	 */
+	void recordCacheHit() {
+		cacheHits.increment();
+	}
+
+	/**
+	 * キャッシュのミスを記録します。
+	 */
+	void recordCacheMiss() {
+		cacheMisses.increment();
+	}
+
+	/**
+	 * 同時実行数の制限による拒否を記録します。
+	 */
+	void recordRejected() {
+		rejected.increment();
+	}
+
+	/**
+	 * 実行中の呼び出しへの集約を記録します。
+	 */
+	void recordCoalesced() {
+		coalesced.increment();
+	}
+
+	/**
+	 * 呼び出し回数を取得します。
+	 * @return
+	 */
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	/**
+	 * 例外の発生回数を取得します。
+	 * @return
+	 */
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	/**
+	 * 実行中の件数を取得します。
+	 * @return
+	 */
+	public long getInFlight() {
+		return inFlight.sum();
+	}
+
+	/**
+	 * キャッシュのヒット回数を取得します。
+	 * @return
+	 */
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	/**
+	 * キャッシュのミス回数を取得します。
+	 * @return
+	 */
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	/**
+	 * 同時実行数の制限による拒否回数を取得します。
+	 * @return
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * 実行中の呼び出しに集約した回数を取得します。
+	 * @return
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * 合計の処理時間(ナノ秒)を取得します。
+	 * @return
+	 */
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	/**
+	 * 指定したパーセンタイルの処理時間(ナノ秒)を取得します。
+	 * @param percentile 0から1の範囲の値
+	 * @return
+	 */
+	public long getLatencyNanos(double percentile) {
+		return latency.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * 現時点の計測値を取得します。
+	 * @return
+	 */
+	public ServiceMetricsSnapshot snapshot() {
+		long[] counts = latency.getCounts();
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		return ServiceMetricsSnapshot.builder()
+				.serviceID(serviceID)
+				.calls(calls.sum())
+				.errors(errors.sum())
+				.inFlight(inFlight.sum())
+				.cacheHits(cacheHits.sum())
+				.cacheMisses(cacheMisses.sum())
+				.rejected(rejected.sum())
+				.coalesced(coalesced.sum())
+				.totalNanos(totalNanos.sum())
+				.maxNanos(maxNanos.get())
+				.p50Nanos(LatencyHistogram.getValueAtPercentile(counts, total, 0.5))
+				.p99Nanos(LatencyHistogram.getValueAtPercentile(counts, total, 0.99))
+				.p999Nanos(LatencyHistogram.getValueAtPercentile(counts, total, 0.999))
+				.build();
+	}
+}
@@ -0,0 +1,52 @@
+package com.egu.springboot.sample.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * サービスIDごとの計測値のある時点の値です。
+ * @author t-eguchi
+ */
+@Value
+@Builder
+public class ServiceMetricsSnapshot {
+
+	/** サービスID */
+	private String serviceID;
+
+	/** 呼び出し回数 */
+	private long calls;
+
+	/** 例外の発生回数 */
+	private long errors;
+
+	/** 実行中の件数 */
+	private long inFlight;
+
+	/** キャッシュのヒット回数 */
+	private long cacheHits;
+
+	/** キャッシュのミス回数 */
+	private long cacheMisses;
+
+	/** 同時実行数の制限による拒否回数 */
+	private long rejected;
+
+	/** 実行中の呼び出しに集約した回数 */
+	private long coalesced;
+
+	/** 合計の処理時間(ナノ秒) */
+	private long totalNanos;
+
+	/** 最大の処理時間(ナノ秒) */
+	private long maxNanos;
+
+	/** 処理時間の50パーセンタイル(ナノ秒) */
+	private long p50Nanos;
+
+	/** 処理時間の99パーセンタイル(ナノ秒) */
+	private long p99Nanos;
+
+	/** 処理時間の99.9パーセンタイル(ナノ秒) */
+	private long p999Nanos;
+}
@@ -1,9 +1,26 @@
 package com.egu.springboot.sample.util;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,6 +35,11 @@ public class CollectionUtil {
 
 	/**
 	 * ノードを表すコレクションオブジェクトです。
+	 * <p>
+	 * 走査は全て再帰を使わずに行うため、深い階層でもスタックは溢れません。
+	 * 最大の深さと部分木のノードの数は一度計算すると保持し、{@link #addChild(Node)}で祖先の分を破棄します。
+	 * 保持した値が古くならないよう、子供と親は{@link #addChild(Node)}でのみ変更できます。
+	 * </p>
 	 * @author t-eguchi
 	 * @param <T>
 	 */
@@ -31,12 +53,17 @@ public class CollectionUtil {
 
 		/** 親ノード */
 		@Getter
-		@Setter
 		private Node<T> parent;
 
 		/** 子供のコレクション */
 		private final List<Node<T>> children = new ArrayList<>();
 
+		/** 最大の深さ(未計算の場合は0) */
+		private int maxDepth;
+
+		/** 自分を含む部分木のノードの数 */
+		private int subtreeSize;
+
 		/**
 		 * 値を渡すことによりインスタンスを生成します。
 		 * @param value
@@ -47,10 +74,10 @@ public class CollectionUtil {
 
 		/**
 		 * 子供のコレクションを取得します。
-		 * @return
+		 * @return 変更できないコレクション
 		 */
 		public List<Node<T>> getChildren() {
-			return this.children;
+			return Collections.unmodifiableList(this.children);
 		}
 
 		/**
@@ -59,7 +86,14 @@ public class CollectionUtil {
 		 */
 		public void addChild(Node<T> node) {
 			children.add(node);
-			node.setParent(this);
+			node.parent = this;
+
+			// 計算済みの祖先の深さを破棄(未計算のノードより上は未計算のまま)
+			Node<T> current = this;
+			while (current != null && current.maxDepth != 0) {
+				current.maxDepth = 0;
+				current = current.getParent();
+			}
 		}
 
 		/**
@@ -102,53 +136,94 @@ public class CollectionUtil {
 		 * @return
 		 */
 		public List<Node<T>> getDepthNodes(int depth) {
-			List<Node<T>> nodes = new ArrayList<>();
-			addDepthNode(nodes, this, depth);
-			return nodes;
-		}
+			if (depth < 1)
+				return new ArrayList<>();
 
-		/** 対象のノードから指定する深さに該当するノードを収集します */
-		private void addDepthNode(List<Node<T>> collectList, Node<T> target, int depth) {
-			if (depth == 1) {
-				collectList.add(target);
-				return;
+			// 1階層ずつ子供へ置き換える
+			List<Node<T>> nodes = new ArrayList<>(List.of(this));
+			for (int current = 1; current < depth && !nodes.isEmpty(); current++) {
+				List<Node<T>> next = new ArrayList<>();
+				for (var node : nodes) {
+					next.addAll(node.children);
+				}
+				nodes = next;
 			}
+			return nodes;
+		}
 
-			// 深さを1つ減らす
-			depth--;
-			for (var child : target.getChildren()) {
-				addDepthNode(collectList, child, depth);
+		/**
+		 * 現在から加味して、深さごとのノードを1回の走査で取得します。
+		 * @return 深さ1(自分)から順のノードのコレクション
+		 */
+		public List<List<Node<T>>> getLevels() {
+			List<List<Node<T>>> levels = new ArrayList<>();
+			List<Node<T>> nodes = List.of(this);
+			while (!nodes.isEmpty()) {
+				levels.add(nodes);
+				List<Node<T>> next = new ArrayList<>();
+				for (var node : nodes) {
+					next.addAll(node.children);
+				}
+				nodes = next;
 			}
+			return levels;
 		}
 
 		/**
 		 * 最大の深さを取得します。
+		 * <p>
+		 * 帰りがけ順に子孫の深さを計算して保持し、計算済みの部分木は再計算しません。
+		 * </p>
 		 * @return
 		 */
 		public int getMaxDepth() {
-			// 葉の部分のみを取得
-			List<Node<T>> leafs = getLeafs();
-			int maxDepth = 1;
-			for (var leaf : leafs) {
-				int depth = getGenerationDiff(leaf) + 1;
-				if (maxDepth < depth) {
-					maxDepth = depth;
-				}
-			}
+			computeSubtree();
 			return maxDepth;
 		}
 
-		/** 指定したノードとの世代差を計算します */
-		private int getGenerationDiff(Node<T> node) {
-			int count = 0;
-			Node<T> current = node;
-			while (current != this) {
-				if (current == null)
-					throw new IllegalArgumentException(node + " is not children.");
-				count++;
-				current = current.getParent();
+		/**
+		 * 自分を含む部分木のノードの数を取得します。
+		 * <p>
+		 * {@link #getMaxDepth()}と同時に計算して保持します。
+		 * </p>
+		 * @return
+		 */
+		public int getSubtreeSize() {
+			computeSubtree();
+			return subtreeSize;
+		}
+
+		/** 未計算の場合は子孫の深さとノードの数を計算します */
+		private void computeSubtree() {
+			if (maxDepth != 0)
+				return;
+
+			Deque<Node<T>> stack = new ArrayDeque<>();
+			stack.push(this);
+			while (!stack.isEmpty()) {
+				Node<T> node = stack.peek();
+
+				// 未計算の子供があれば先に計算する
+				boolean pending = false;
+				for (var child : node.children) {
+					if (child.maxDepth == 0) {
+						stack.push(child);
+						pending = true;
+					}
+				}
+				if (pending)
+					continue;
+
+				stack.pop();
+				int depth = 0;
+				int size = 1;
+				for (var child : node.children) {
+					depth = Math.max(depth, child.maxDepth);
+					size += child.subtreeSize;
+				}
+				node.subtreeSize = size;
+				node.maxDepth = depth + 1;
 			}
-			return count;
 		}
 
 		/**
@@ -156,27 +231,146 @@ public class CollectionUtil {
 		 * @return
 		 */
 		public List<Node<T>> getLeafs() {
-			return getAllNodes().stream()
+			return preOrderStream()
 					.filter(node -> !node.hasChildren())
 					.collect(Collectors.toList());
 		}
 
 		/**
 		 * 全てのノードを階層によらず収集します。
-		 * @return
+		 * @return 行きがけ順のノードのコレクション
 		 */
 		public List<Node<T>> getAllNodes() {
 			List<Node<T>> nodes = new ArrayList<>();
-			addAllNodes(nodes, this);
+			preOrderIterator().forEachRemaining(nodes::add);
 			return nodes;
 		}
 
-		/** 全てのノードを階層によらず追加します。 */
-		private void addAllNodes(List<Node<T>> nodes, Node<T> node) {
-			nodes.add(node);
-			for (var child : node.getChildren()) {
-				addAllNodes(nodes, child);
-			}
+		/**
+		 * 自分を含む子孫を行きがけ順(親、子供の順)に走査するイテレーターを取得します。
+		 * @return
+		 */
+		public Iterator<Node<T>> preOrderIterator() {
+			return new PreOrderIterator<>(this);
+		}
+
+		/**
+		 * 自分を含む子孫を帰りがけ順(子供、親の順)に走査するイテレーターを取得します。
+		 * @return
+		 */
+		public Iterator<Node<T>> postOrderIterator() {
+			return new PostOrderIterator<>(this);
+		}
+
+		/**
+		 * 自分を含む子孫を幅優先(浅い階層から順)に走査するイテレーターを取得します。
+		 * @return
+		 */
+		public Iterator<Node<T>> breadthFirstIterator() {
+			return new BreadthFirstIterator<>(this);
+		}
+
+		/**
+		 * 自分を含む子孫を行きがけ順に走査するストリームを取得します。
+		 * <p>
+		 * ノードは終端操作で要素を取り出す時点で走査します。
+		 * </p>
+		 * @return
+		 */
+		public Stream<Node<T>> preOrderStream() {
+			return stream(preOrderIterator());
+		}
+
+		/**
+		 * 自分を含む子孫を帰りがけ順に走査するストリームを取得します。
+		 * @return
+		 */
+		public Stream<Node<T>> postOrderStream() {
+			return stream(postOrderIterator());
+		}
+
+		/**
+		 * 自分を含む子孫を幅優先に走査するストリームを取得します。
+		 * @return
+		 */
+		public Stream<Node<T>> breadthFirstStream() {
+			return stream(breadthFirstIterator());
+		}
+
+		/**
+		 * 自分を含む子孫を行きがけ順に走査する分割可能な{@link Spliterator}を取得します。
+		 * <p>
+		 * 部分木の単位で分割し、木を複写せずに並列に処理できます。
+		 * 要素の数は作成時に計算するため、走査中に木を変更しないでください。
+		 * </p>
+		 * @return
+		 */
+		public Spliterator<Node<T>> spliterator() {
+			return new NodeSpliterator<>(this);
+		}
+
+		/**
+		 * 自分を含む子孫を並列に処理するストリームを取得します。
+		 * @return
+		 * @see #spliterator()
+		 */
+		public Stream<Node<T>> parallelStream() {
+			return StreamSupport.stream(spliterator(), true);
+		}
+
+		/**
+		 * 子供の結果から親の結果を求め、自分の結果を共通のプールで並列に計算します。
+		 * @param <R>
+		 * @param folder ノードと子供の結果(子供の順)から結果を求める関数
+		 * @return
+		 */
+		public <R> R fold(BiFunction<? super Node<T>, ? super List<R>, ? extends R> folder) {
+			return fold(folder, ForkJoinPool.commonPool());
+		}
+
+		/**
+		 * 子供の結果から親の結果を求め、自分の結果を指定したプールで並列に計算します。
+		 * <p>
+		 * 兄弟のうち大きな部分木は別のタスクとして計算し、それ以外は再帰を使わずに計算します。
+		 * 関数は複数のスレッドから呼び出されるため、計算中に木を変更しないでください。
+		 * </p>
+		 * @param <R>
+		 * @param folder ノードと子供の結果(子供の順)から結果を求める関数
+		 * @param pool
+		 * @return
+		 */
+		public <R> R fold(BiFunction<? super Node<T>, ? super List<R>, ? extends R> folder, ForkJoinPool pool) {
+			return fold(folder, pool, FORK_THRESHOLD);
+		}
+
+		/** 指定した大きさ以上の部分木を別のタスクとして計算します */
+		<R> R fold(BiFunction<? super Node<T>, ? super List<R>, ? extends R> folder, ForkJoinPool pool,
+				int threshold) {
+			// 分割の判定に利用する大きさを呼び出し元で計算しておく
+			computeSubtree();
+			return pool.invoke(new FoldTask<>(this, folder, threshold));
+		}
+
+		/**
+		 * 値を変換した同じ形の木を並列に作成します。
+		 * @param <R>
+		 * @param mapper
+		 * @return
+		 */
+		public <R> Node<R> map(Function<? super T, ? extends R> mapper) {
+			return fold((Node<T> node, List<Node<R>> children) -> {
+				Node<R> mapped = new Node<>(mapper.apply(node.getValue()));
+				for (var child : children) {
+					mapped.addChild(child);
+				}
+				return mapped;
+			});
+		}
+
+		/** イテレーターを順序付きのストリームとします */
+		private static <T> Stream<Node<T>> stream(Iterator<Node<T>> iterator) {
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+					iterator, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
 		}
 
 		@Override
@@ -184,4 +378,569 @@ public class CollectionUtil {
 			return "value = " + value + ", children(" + children.size() + ")";
 		}
 	}
+
+	/** 別のタスクとして計算する部分木のノードの数の下限 */
+	private static final int FORK_THRESHOLD = 1 << 12;
+
+	/**
+	 * {@link Node}の木を配列で表す変更不可能なコレクションオブジェクトです。
+	 * <p>
+	 * ノードは行きがけ順の番号で表し、親、先頭の子供、次の兄弟、根からの深さをそれぞれ番号の配列で保持します。
+	 * 部分木は連続した番号となるため、部分木の問い合わせは配列の範囲を順に読むだけで済みます。
+	 * ノードごとのオブジェクトを持たないため、{@link Node}と比べてメモリの使用量が小さくなります。
+	 * 存在しない関係は{@link #NONE}で表します。
+	 * </p>
+	 * @author t-eguchi
+	 * @param <T>
+	 */
+	public static final class CompactTree<T> {
+
+		/** 存在しないノードの番号 */
+		public static final int NONE = -1;
+
+		/** 親の番号 */
+		private final int[] parents;
+
+		/** 先頭の子供の番号 */
+		private final int[] firstChildren;
+
+		/** 次の兄弟の番号 */
+		private final int[] nextSiblings;
+
+		/** 根からの深さ(根は1) */
+		private final int[] levels;
+
+		/** 値 */
+		private final Object[] values;
+
+		/** 配列を渡し、インスタンスを生成します */
+		private CompactTree(int[] parents, int[] firstChildren, int[] nextSiblings, int[] levels, Object[] values) {
+			this.parents = parents;
+			this.firstChildren = firstChildren;
+			this.nextSiblings = nextSiblings;
+			this.levels = levels;
+			this.values = values;
+		}
+
+		/**
+		 * ノードを根とする木を1回の走査で配列へ変換します。
+		 * @param <T>
+		 * @param root
+		 * @return
+		 */
+		public static <T> CompactTree<T> of(Node<T> root) {
+			int capacity = 16;
+			int[] parents = new int[capacity];
+			int[] firstChildren = new int[capacity];
+			int[] nextSiblings = new int[capacity];
+			int[] levels = new int[capacity];
+			int[] lastChildren = new int[capacity];
+			Object[] values = new Object[capacity];
+
+			// 未走査のノードとその親の番号
+			Deque<Node<T>> stack = new ArrayDeque<>();
+			int[] stackParents = new int[capacity];
+			stack.push(root);
+			stackParents[0] = NONE;
+
+			int size = 0;
+			while (!stack.isEmpty()) {
+				int parent = stackParents[stack.size() - 1];
+				Node<T> node = stack.pop();
+				if (size == capacity) {
+					capacity *= 2;
+					parents = Arrays.copyOf(parents, capacity);
+					firstChildren = Arrays.copyOf(firstChildren, capacity);
+					nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+					levels = Arrays.copyOf(levels, capacity);
+					lastChildren = Arrays.copyOf(lastChildren, capacity);
+					values = Arrays.copyOf(values, capacity);
+				}
+
+				int index = size++;
+				parents[index] = parent;
+				firstChildren[index] = NONE;
+				nextSiblings[index] = NONE;
+				values[index] = node.getValue();
+				if (parent == NONE) {
+					levels[index] = 1;
+				} else {
+					levels[index] = levels[parent] + 1;
+					if (firstChildren[parent] == NONE)
+						firstChildren[parent] = index;
+					else
+						nextSiblings[lastChildren[parent]] = index;
+					lastChildren[parent] = index;
+				}
+
+				// 先頭の子供から取り出すため逆順に積む
+				List<Node<T>> children = node.getChildren();
+				for (int child = children.size() - 1; 0 <= child; child--) {
+					if (stackParents.length == stack.size())
+						stackParents = Arrays.copyOf(stackParents, stackParents.length * 2);
+					stackParents[stack.size()] = index;
+					stack.push(children.get(child));
+				}
+			}
+			return new CompactTree<>(Arrays.copyOf(parents, size), Arrays.copyOf(firstChildren, size),
+					Arrays.copyOf(nextSiblings, size), Arrays.copyOf(levels, size), Arrays.copyOf(values, size));
+		}
+
+		/**
+		 * ノードの数を取得します。
+		 * @return
+		 */
+		public int size() {
+			return values.length;
+		}
+
+		/**
+		 * 値を取得します。
+		 * @param node
+		 * @return
+		 */
+		@SuppressWarnings("unchecked")
+		public T getValue(int node) {
+			return (T) values[Objects.checkIndex(node, values.length)];
+		}
+
+		/**
+		 * 親ノードの番号を取得します。
+		 * @param node
+		 * @return 根の場合は{@link #NONE}
+		 */
+		public int getParent(int node) {
+			return parents[node];
+		}
+
+		/**
+		 * 先頭の子供の番号を取得します。
+		 * @param node
+		 * @return 子供を持たない場合は{@link #NONE}
+		 */
+		public int getFirstChild(int node) {
+			return firstChildren[node];
+		}
+
+		/**
+		 * 次の兄弟の番号を取得します。
+		 * @param node
+		 * @return 末尾の兄弟の場合は{@link #NONE}
+		 */
+		public int getNextSibling(int node) {
+			return nextSiblings[node];
+		}
+
+		/**
+		 * 根からの深さを取得します。
+		 * @param node
+		 * @return 根の場合は1
+		 */
+		public int getLevel(int node) {
+			return levels[node];
+		}
+
+		/**
+		 * 子供を持っているかを判別します。
+		 * @param node
+		 * @return
+		 */
+		public boolean hasChildren(int node) {
+			return firstChildren[node] != NONE;
+		}
+
+		/**
+		 * ルートノードかどうか
+		 * @param node
+		 * @return
+		 */
+		public boolean isRoot(int node) {
+			return parents[node] == NONE;
+		}
+
+		/**
+		 * 根から指定したノードまでの経路に登場するノードの番号を取得します。
+		 * @param node
+		 * @return
+		 */
+		public int[] getRouteNodes(int node) {
+			int[] nodes = new int[levels[node]];
+			for (int index = nodes.length - 1, current = node; 0 <= index; index--, current = parents[current]) {
+				nodes[index] = current;
+			}
+			return nodes;
+		}
+
+		/**
+		 * 根から加味して、指定する深さに存在するノードの番号を取得します。
+		 * @param depth
+		 * @return
+		 */
+		public int[] getDepthNodes(int depth) {
+			return getDepthNodes(0, depth);
+		}
+
+		/**
+		 * 指定したノードから加味して、指定する深さに存在するノードの番号を取得します。
+		 * @param node
+		 * @param depth
+		 * @return
+		 */
+		public int[] getDepthNodes(int node, int depth) {
+			if (depth < 1)
+				return new int[0];
+			int level = levels[node] + depth - 1;
+			return filter(node, index -> levels[index] == level);
+		}
+
+		/**
+		 * 子供を持たない葉のノードの番号を取得します。
+		 * @return
+		 */
+		public int[] getLeafs() {
+			return getLeafs(0);
+		}
+
+		/**
+		 * 指定したノードの子孫のうち、子供を持たない葉のノードの番号を取得します。
+		 * @param node
+		 * @return
+		 */
+		public int[] getLeafs(int node) {
+			return filter(node, index -> firstChildren[index] == NONE);
+		}
+
+		/**
+		 * 最大の深さを取得します。
+		 * @return
+		 */
+		public int getMaxDepth() {
+			return getMaxDepth(0);
+		}
+
+		/**
+		 * 指定したノードから加味して、最大の深さを取得します。
+		 * @param node
+		 * @return
+		 */
+		public int getMaxDepth(int node) {
+			int max = levels[node];
+			for (int index = node + 1, end = getSubtreeEnd(node); index < end; index++) {
+				max = Math.max(max, levels[index]);
+			}
+			return max - levels[node] + 1;
+		}
+
+		/**
+		 * 行きがけ順の番号の値を{@link Node}の木へ戻します。
+		 * @return
+		 */
+		public Node<T> toNode() {
+			List<Node<T>> nodes = new ArrayList<>(values.length);
+			for (int index = 0; index < values.length; index++) {
+				Node<T> node = new Node<>(getValue(index));
+				nodes.add(node);
+				if (parents[index] != NONE)
+					nodes.get(parents[index]).addChild(node);
+			}
+			return nodes.get(0);
+		}
+
+		/** 部分木の範囲で条件を満たすノードの番号を取得します */
+		private int[] filter(int node, IntPredicate predicate) {
+			return IntStream.range(node, getSubtreeEnd(node)).filter(predicate).toArray();
+		}
+
+		/** 部分木の直後の番号を取得します */
+		private int getSubtreeEnd(int node) {
+			// 自分か祖先の次の兄弟が部分木の直後となる
+			for (int current = node; current != NONE; current = parents[current]) {
+				if (nextSiblings[current] != NONE)
+					return nextSiblings[current];
+			}
+			return values.length;
+		}
+	}
+
+	/**
+	 * 行きがけ順に走査し、部分木の単位で分割する{@link Spliterator}です。
+	 * <p>
+	 * 先頭のノード(子供を含まない)と、それに続く部分木の列を保持します。
+	 * 部分木が1つの場合は根を先頭のノード、子供を部分木の列として展開してから、前半の部分木を分割します。
+	 * 大きさは{@link Node#getSubtreeSize()}の保持した値から求めます。子供は{@link Node#addChild(Node)}でのみ変更でき、
+	 * その際に祖先の値を破棄するため、走査中に変更しない限り{@link #SIZED}と{@link #SUBSIZED}の大きさは正確です。
+	 * </p>
+	 */
+	private static class NodeSpliterator<T> implements Spliterator<Node<T>> {
+
+		/** 先頭のノード(子供を含まない) */
+		private Node<T> head;
+
+		/** 先頭のノードに続く部分木の根 */
+		private final Deque<Node<T>> roots;
+
+		/** 残りのノードの数 */
+		private long size;
+
+		/** 根を渡し、インスタンスを生成します */
+		private NodeSpliterator(Node<T> root) {
+			this(null, new ArrayDeque<>(List.of(root)), root.getSubtreeSize());
+		}
+
+		/** 値を渡し、インスタンスを生成します */
+		private NodeSpliterator(Node<T> head, Deque<Node<T>> roots, long size) {
+			this.head = head;
+			this.roots = roots;
+			this.size = size;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Node<T>> action) {
+			Node<T> node = head;
+			if (node != null) {
+				head = null;
+			} else {
+				node = roots.poll();
+				if (node == null)
+					return false;
+
+				// 子供の部分木を先頭へ逆順に積む
+				List<Node<T>> children = node.getChildren();
+				for (int index = children.size() - 1; 0 <= index; index--) {
+					roots.push(children.get(index));
+				}
+			}
+			size--;
+			action.accept(node);
+			return true;
+		}
+
+		@Override
+		public Spliterator<Node<T>> trySplit() {
+			// 部分木が1つの場合は根と子供へ展開する
+			while (head == null && roots.size() == 1) {
+				head = roots.poll();
+				roots.addAll(head.getChildren());
+			}
+			if (roots.isEmpty())
+				return null;
+
+			// 残りの部分木を1つ以上残し、半分までの部分木を前半とする
+			Deque<Node<T>> prefix = new ArrayDeque<>();
+			long prefixSize = head == null ? 0 : 1;
+			while (1 < roots.size() && (prefix.isEmpty()
+					|| prefixSize + roots.peek().getSubtreeSize() <= size / 2)) {
+				Node<T> root = roots.poll();
+				prefix.add(root);
+				prefixSize += root.getSubtreeSize();
+			}
+			if (head == null && prefix.isEmpty())
+				return null;
+
+			Spliterator<Node<T>> split = new NodeSpliterator<>(head, prefix, prefixSize);
+			head = null;
+			size -= prefixSize;
+			return split;
+		}
+
+		@Override
+		public long estimateSize() {
+			return size;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+		}
+	}
+
+	/** 子供の結果から親の結果を求めるタスクです */
+	private static class FoldTask<T, R> extends RecursiveTask<R> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** 部分木の根 */
+		private final Node<T> root;
+
+		/** ノードと子供の結果から結果を求める関数 */
+		private final BiFunction<? super Node<T>, ? super List<R>, ? extends R> folder;
+
+		/** 別のタスクとして計算する部分木のノードの数の下限 */
+		private final int threshold;
+
+		/** 値を渡し、インスタンスを生成します */
+		private FoldTask(Node<T> root, BiFunction<? super Node<T>, ? super List<R>, ? extends R> folder,
+				int threshold) {
+			this.root = root;
+			this.folder = folder;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected R compute() {
+			// 走査中のノードと、ノードごとの別のタスク(なければnull)と次の子供の位置
+			Deque<Node<T>> stack = new ArrayDeque<>();
+			List<List<FoldTask<T, R>>> forks = new ArrayList<>();
+			int[] indexes = new int[16];
+			List<R> results = new ArrayList<>();
+
+			stack.push(root);
+			forks.add(fork(root));
+			while (!stack.isEmpty()) {
+				int top = stack.size() - 1;
+				Node<T> node = stack.peek();
+				List<Node<T>> children = node.getChildren();
+				List<FoldTask<T, R>> tasks = forks.get(top);
+				if (indexes[top] < children.size()) {
+					int index = indexes[top]++;
+					FoldTask<T, R> task = tasks == null ? null : tasks.get(index);
+					if (task != null) {
+						results.add(task.join());
+						continue;
+					}
+
+					// 別のタスクとしない子供は同じスレッドで降りる
+					if (indexes.length == top + 1)
+						indexes = Arrays.copyOf(indexes, indexes.length * 2);
+					indexes[top + 1] = 0;
+					Node<T> child = children.get(index);
+					stack.push(child);
+					forks.add(fork(child));
+					continue;
+				}
+
+				// 子供の結果を親の結果へ置き換える
+				stack.pop();
+				forks.remove(top);
+				List<R> childResults = results.subList(results.size() - children.size(), results.size());
+				R result = folder.apply(node, new ArrayList<>(childResults));
+				childResults.clear();
+				results.add(result);
+			}
+			return results.get(0);
+		}
+
+		/**
+		 * 兄弟を持つ大きな部分木を別のタスクとして開始します。
+		 * @return 子供の位置ごとのタスク(別のタスクとしない子供はnull)、別のタスクがない場合はnull
+		 */
+		private List<FoldTask<T, R>> fork(Node<T> node) {
+			List<Node<T>> children = node.getChildren();
+			if (children.size() < 2)
+				return null;
+
+			List<FoldTask<T, R>> tasks = null;
+			for (int index = 0; index < children.size(); index++) {
+				Node<T> child = children.get(index);
+				if (child.getSubtreeSize() < threshold)
+					continue;
+				if (tasks == null)
+					tasks = new ArrayList<>(Collections.nCopies(children.size(), null));
+				FoldTask<T, R> task = new FoldTask<>(child, folder, threshold);
+				task.fork();
+				tasks.set(index, task);
+			}
+			return tasks;
+		}
+	}
+
+	/** 行きがけ順に走査するイテレーターです */
+	private static class PreOrderIterator<T> implements Iterator<Node<T>> {
+
+		/** 未走査のノード */
+		private final Deque<Node<T>> stack = new ArrayDeque<>();
+
+		/** 起点を渡し、インスタンスを生成します */
+		private PreOrderIterator(Node<T> root) {
+			stack.push(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+
+		@Override
+		public Node<T> next() {
+			Node<T> node = stack.poll();
+			if (node == null)
+				throw new NoSuchElementException();
+
+			// 先頭の子供から取り出すため逆順に積む
+			List<Node<T>> children = node.getChildren();
+			for (int index = children.size() - 1; 0 <= index; index--) {
+				stack.push(children.get(index));
+			}
+			return node;
+		}
+	}
+
+	/** 帰りがけ順に走査するイテレーターです */
+	private static class PostOrderIterator<T> implements Iterator<Node<T>> {
+
+		/** 走査中の祖先 */
+		private final Deque<Node<T>> stack = new ArrayDeque<>();
+
+		/** 祖先ごとの次に走査する子供の位置 */
+		private int[] indexes = new int[16];
+
+		/** 起点を渡し、インスタンスを生成します */
+		private PostOrderIterator(Node<T> root) {
+			stack.push(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+
+		@Override
+		public Node<T> next() {
+			if (stack.isEmpty())
+				throw new NoSuchElementException();
+
+			// 子供を全て走査したノードまで降りる
+			while (true) {
+				int top = stack.size() - 1;
+				Node<T> node = stack.peek();
+				List<Node<T>> children = node.getChildren();
+				if (indexes[top] < children.size()) {
+					Node<T> child = children.get(indexes[top]++);
+					if (indexes.length == top + 1)
+						indexes = Arrays.copyOf(indexes, indexes.length * 2);
+					indexes[top + 1] = 0;
+					stack.push(child);
+					continue;
+				}
+				stack.pop();
+				return node;
+			}
+		}
+	}
+
+	/** 幅優先に走査するイテレーターです */
+	private static class BreadthFirstIterator<T> implements Iterator<Node<T>> {
+
+		/** 未走査のノード */
+		private final Deque<Node<T>> queue = new ArrayDeque<>();
+
+		/** 起点を渡し、インスタンスを生成します */
+		private BreadthFirstIterator(Node<T> root) {
+			queue.add(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !queue.isEmpty();
+		}
+
+		@Override
+		public Node<T> next() {
+			Node<T> node = queue.poll();
+			if (node == null)
+				throw new NoSuchElementException();
+			queue.addAll(node.getChildren());
+			return node;
+		}
+	}
 }
@@ -1,13 +1,321 @@
 package com.egu.springboot.sample.util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.boot.configurationprocessor.json.JSONArray;
 import org.springframework.boot.configurationprocessor.json.JSONException;
 import org.springframework.boot.configurationprocessor.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * JacksonによりJSONを扱うユーティリティクラスです。
+ * <p>
+ * 共有の{@link JsonFactory}と{@link ObjectMapper}、一度だけ解析して再利用するJSON Pointer形式の経路を提供します。
+ * オブジェクトのノードはプロパティの順序を維持し、小数は表記の桁を変えずに{@link java.math.BigDecimal}として扱います。
+ * ファクトリーはプロパティ名を正規化した記号表で再利用し、{@link String#intern()}による共有と
+ * 解析位置への入力の保持は行いません。
+ * </p>
+ * @author t-eguchi
+ */
 public final class JacksonUtil {
 
+	/** 共有のファクトリー */
+	private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+			// プロパティ名は記号表で再利用し、グローバルなintern表の競合は避ける
+			.enable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+			.disable(JsonFactory.Feature.INTERN_FIELD_NAMES)
+			// 解析位置に入力の参照を保持せず、例外のメッセージに入力の内容を含めない
+			.disable(StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION)
+			.build();
+
+	/** 共有のマッパー */
+	private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder(JSON_FACTORY)
+			.nodeFactory(JsonNodeFactory.withExactBigDecimals(true))
+			.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+			.build();
+
+	/** 配列の末尾への追加を表す経路の要素 */
+	private static final String APPEND = "-";
+
 	private JacksonUtil() {}
 
+	/**
+	 * 共有のファクトリーを取得します。
+	 * <p>
+	 * 複数のスレッドから共有するため、設定を変更しないでください。
+	 * </p>
+	 * @return
+	 */
+	public static JsonFactory getJsonFactory() {
+		return JSON_FACTORY;
+	}
+
+	/**
+	 * 共有のマッパーを取得します。
+	 * <p>
+	 * 複数のスレッドから共有するため、設定を変更しないでください。
+	 * </p>
+	 * @return
+	 */
+	public static ObjectMapper getObjectMapper() {
+		return OBJECT_MAPPER;
+	}
+
+	/**
+	 * JSONをノードへ変換します。
+	 * @param json
+	 * @return
+	 */
+	public static JsonNode readTree(String json) {
+		try {
+			return OBJECT_MAPPER.readTree(json);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * UTF-8のJSONをノードへ変換します。
+	 * @param json
+	 * @return
+	 */
+	public static JsonNode readTree(byte[] json) {
+		try {
+			return OBJECT_MAPPER.readTree(json);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * ノードをJSONへ変換します。
+	 * @param node
+	 * @return
+	 */
+	public static String writeValueAsString(JsonNode node) {
+		try {
+			return OBJECT_MAPPER.writeValueAsString(node);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * プロパティの順序を維持する空のオブジェクトのノードを作成します。
+	 * @return
+	 */
+	public static ObjectNode createObjectNode() {
+		return OBJECT_MAPPER.createObjectNode();
+	}
+
+	/**
+	 * JSON Pointer形式の経路を解析します。
+	 * <p>
+	 * 解析した経路は変更不可能なため、定数として保持して複数のスレッドから再利用できます。
+	 * </p>
+	 * @param expression {@code /Order/Items/0/Name}の形式(空の場合はルート)
+	 * @return
+	 */
+	public static CompiledPath compile(String expression) {
+		return new CompiledPath(JsonPointer.compile(expression));
+	}
+
+	/**
+	 * オブジェクトのプロパティ名を変更します。
+	 * <p>
+	 * 変更したプロパティは元の位置を維持するため、リネームの方法によらず出力の順序は同じになります。
+	 * 変更後の名前のプロパティが既に存在する場合は、その値を置き換えます。
+	 * </p>
+	 * @param objectNode
+	 * @param from
+	 * @param to
+	 * @return プロパティが存在した場合はtrue
+	 */
+	public static boolean rename(ObjectNode objectNode, String from, String to) {
+		if (!objectNode.has(from))
+			return false;
+		if (from.equals(to))
+			return true;
+
+		// 変更するプロパティ以降を取り除き、変更後の名前に続けて戻す
+		List<Map.Entry<String, JsonNode>> following = null;
+		JsonNode value = null;
+		Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			if (following != null) {
+				following.add(field);
+				fields.remove();
+			} else if (field.getKey().equals(from)) {
+				following = new ArrayList<>();
+				value = field.getValue();
+				fields.remove();
+			}
+		}
+		objectNode.set(to, value);
+		for (Map.Entry<String, JsonNode> field : following) {
+			if (!field.getKey().equals(to))
+				objectNode.set(field.getKey(), field.getValue());
+		}
+		return true;
+	}
+
+	/**
+	 * 解析済みのJSON Pointer形式の経路です。
+	 * @author t-eguchi
+	 */
+	public static final class CompiledPath {
+
+		/** 経路 */
+		private final JsonPointer pointer;
+
+		/** 親の経路 */
+		private final JsonPointer parent;
+
+		/** 末尾のプロパティ名 */
+		private final String property;
+
+		/** 末尾の配列の位置(位置として解釈できない場合は-1) */
+		private final int index;
+
+		/** 経路を渡し、インスタンスを生成します */
+		private CompiledPath(JsonPointer pointer) {
+			this.pointer = pointer;
+			this.parent = pointer.head();
+			JsonPointer last = pointer.last();
+			this.property = last == null ? null : last.getMatchingProperty();
+			this.index = last == null ? -1 : last.getMatchingIndex();
+		}
+
+		/**
+		 * 経路の値を取得します。
+		 * @param root
+		 * @return 存在しない場合はnull
+		 */
+		public JsonNode get(JsonNode root) {
+			JsonNode node = root.at(pointer);
+			return node.isMissingNode() ? null : node;
+		}
+
+		/**
+		 * 経路へ値を設定します。
+		 * <p>
+		 * 途中のオブジェクトが存在しない場合は作成します。
+		 * 配列は既存の位置の値を置き換えるか、末尾({@code -}または要素の数)へ追加します。
+		 * </p>
+		 * @param root
+		 * @param value
+		 */
+		public void put(JsonNode root, JsonNode value) {
+			if (parent == null)
+				throw new IllegalArgumentException("Root node can not be replaced.");
+
+			// 末尾を除く要素を順に辿る
+			JsonNode container = root;
+			for (JsonPointer segment = pointer; !segment.tail().matches(); segment = segment.tail()) {
+				container = getOrCreate(container, segment);
+			}
+			if (container instanceof ObjectNode) {
+				((ObjectNode) container).set(property, value);
+				return;
+			}
+			if (container instanceof ArrayNode) {
+				ArrayNode array = (ArrayNode) container;
+				if (APPEND.equals(property) || index == array.size())
+					array.add(value);
+				else if (0 <= index && index < array.size())
+					array.set(index, value);
+				else
+					throw new IllegalArgumentException("Index is out of range. path = " + pointer);
+				return;
+			}
+			throw new IllegalArgumentException(parent + " is not a container.");
+		}
+
+		/**
+		 * 経路の値を削除します。
+		 * @param root
+		 * @return 削除した値、存在しない場合はnull
+		 */
+		public JsonNode remove(JsonNode root) {
+			if (parent == null)
+				throw new IllegalArgumentException("Root node can not be removed.");
+
+			JsonNode container = root.at(parent);
+			if (container instanceof ObjectNode)
+				return ((ObjectNode) container).remove(property);
+			if (container instanceof ArrayNode && 0 <= index && index < container.size())
+				return ((ArrayNode) container).remove(index);
+			return null;
+		}
+
+		/**
+		 * 経路のプロパティ名を変更します。
+		 * <p>
+		 * 変更したプロパティは元の位置を維持します。
+		 * </p>
+		 * @param root
+		 * @param name 変更後のプロパティ名
+		 * @return プロパティが存在した場合はtrue
+		 */
+		public boolean rename(JsonNode root, String name) {
+			if (parent == null)
+				throw new IllegalArgumentException("Root node can not be renamed.");
+
+			JsonNode container = root.at(parent);
+			return container instanceof ObjectNode && JacksonUtil.rename((ObjectNode) container, property, name);
+		}
+
+		/** 経路の先頭の要素に該当する値を取得します(オブジェクトのプロパティが存在しない場合は作成) */
+		private static JsonNode getOrCreate(JsonNode container, JsonPointer segment) {
+			if (container instanceof ObjectNode) {
+				ObjectNode object = (ObjectNode) container;
+				JsonNode child = object.get(segment.getMatchingProperty());
+				if (child == null || child.isNull()) {
+					child = object.objectNode();
+					object.set(segment.getMatchingProperty(), child);
+				}
+				return child;
+			}
+			if (container instanceof ArrayNode) {
+				int index = segment.getMatchingIndex();
+				if (0 <= index && index < container.size())
+					return container.get(index);
+				throw new IllegalArgumentException("Index is out of range. segment = " + segment);
+			}
+			throw new IllegalArgumentException(segment + " is not a container.");
+		}
+
+		@Override
+		public String toString() {
+			return pointer.toString();
+		}
+	}
+
+	/**
+	 * プロパティの値を取得します。
+	 * @param jsonObject
+	 * @param name
+	 * @return
+	 * @deprecated {@link CompiledPath#get(JsonNode)}を利用してください。
+	 */
+	@Deprecated
 	public static Object get(JSONObject jsonObject, String name) {
 		try {
 			return jsonObject.get(name);
@@ -16,6 +324,14 @@ public final class JacksonUtil {
 		}
 	}
 
+	/**
+	 * プロパティの値を設定します。
+	 * @param jsonObject
+	 * @param name
+	 * @param value
+	 * @deprecated {@link CompiledPath#put(JsonNode, JsonNode)}を利用してください。
+	 */
+	@Deprecated
 	public static void put(JSONObject jsonObject, String name, Object value) {
 		try {
 			jsonObject.put(name, value);
@@ -24,10 +340,25 @@ public final class JacksonUtil {
 		}
 	}
 
+	/**
+	 * プロパティを削除します。
+	 * @param jsonObject
+	 * @param name
+	 * @deprecated {@link CompiledPath#remove(JsonNode)}を利用してください。
+	 */
+	@Deprecated
 	public static void remove(JSONObject jsonObject, String name) {
 		jsonObject.remove(name);
 	}
 
+	/**
+	 * 配列の要素をオブジェクトとして取得します。
+	 * @param array
+	 * @param index
+	 * @return
+	 * @deprecated {@link CompiledPath#get(JsonNode)}を利用してください。
+	 */
+	@Deprecated
 	public static JSONObject getJsonObject(JSONArray array, int index) {
 		try {
 			return array.getJSONObject(index);
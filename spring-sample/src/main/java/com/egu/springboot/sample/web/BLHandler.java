@@ -0,0 +1,156 @@
+package com.egu.springboot.sample.web;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.egu.springboot.sample.service.BLInputException;
+import com.egu.springboot.sample.service.BLJsonProxyService;
+import com.egu.springboot.sample.service.BLProxyProperties;
+import com.egu.springboot.sample.service.BLRejectedException;
+import com.egu.springboot.sample.service.BusinessLogicRegistry;
+import com.egu.springboot.sample.service.JsonPropertyNameMapper;
+import com.egu.springboot.sample.service.JsonPropertyNameMapperRegistry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * HTTPのリクエストからBLサービスを実行するハンドラーです。
+ * <p>
+ * リクエストの本文はプールされたバッファのまま読み込み、
+ * {@link BLProxyProperties.Web#getMaxRequestBodySize()}を上限として1つのバッファに結合してから解析します。
+ * 上限を超えた場合は、{@code Content-Length}による事前の判定か読み込み中の判定により413とします。
+ * レスポンスの本文もプールされたバッファへ直接書き込むため、本文をバイト配列や文字列へ複写しません。
+ * レスポンスのバッファは本文の書き込み時に確保するため、書き込む前に切断された場合も残りません。
+ * ビジネスロジックは{@link BLJsonProxyService}により非同期に実行するため、I/Oのスレッドを待機させません。
+ * サービスIDごとの{@link BLProxyProperties.Service#getRequestMapping()}と
+ * {@link BLProxyProperties.Service#getResponseMapping()}が設定されている場合は、該当するマッピングでリネームします。
+ * 500の場合は例外のメッセージを返さず、ログにのみ出力します。
+ * </p>
+ * @author t-eguchi
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BLHandler {
+
+	/** 500の場合に返すメッセージ */
+	static final String INTERNAL_SERVER_ERROR_MESSAGE = "Internal server error.";
+
+	/** パスのサービスIDの変数名 */
+	public static final String SERVICE_ID_VARIABLE = "serviceId";
+
+	/** ビジネスロジックのレジストリ */
+	private final BusinessLogicRegistry registry;
+
+	/** JSONを入出力とするBLサービス */
+	private final BLJsonProxyService jsonProxyService;
+
+	/** BLサービスの設定値 */
+	private final BLProxyProperties properties;
+
+	/** マッピングのレジストリ */
+	private final JsonPropertyNameMapperRegistry mapperRegistry;
+
+	/**
+	 * リクエストの本文を入力として、パスのサービスIDの処理を実行します。
+	 * @param request
+	 * @return
+	 */
+	public Mono<ServerResponse> execute(ServerRequest request) {
+		String serviceID = request.pathVariable(SERVICE_ID_VARIABLE);
+		if (!registry.contains(serviceID))
+			return error(HttpStatus.NOT_FOUND, "Service[" + serviceID + "] is not found.");
+
+		// サービスIDごとのマッピングを取得
+		JsonPropertyNameMapper requestMapper;
+		JsonPropertyNameMapper responseMapper;
+		try {
+			BLProxyProperties.Service settings = properties.getService(serviceID);
+			requestMapper = getMapper(settings == null ? null : settings.getRequestMapping());
+			responseMapper = getMapper(settings == null ? null : settings.getResponseMapping());
+		} catch (RuntimeException e) {
+			return error(serviceID, e);
+		}
+
+		// 本文の上限を超える場合は読み込まない
+		long maxBodySize = properties.getWeb().getMaxRequestBodySize().toBytes();
+		if (maxBodySize < request.headers().contentLength().orElse(0L))
+			return payloadTooLarge(maxBodySize);
+
+		return DataBufferUtils.join(request.body(BodyExtractors.toDataBuffers()),
+				(int) Math.min(maxBodySize, Integer.MAX_VALUE))
+				.flatMap(body -> Mono.fromFuture(
+						jsonProxyService.executeAsync(serviceID, body.asInputStream(), requestMapper)
+								.thenApply(Optional::ofNullable))
+						.doFinally(signal -> DataBufferUtils.release(body)))
+				.flatMap(result -> ServerResponse.ok()
+						.contentType(MediaType.APPLICATION_JSON)
+						.body(write(serviceID, result.orElse(null), responseMapper)))
+				.switchIfEmpty(Mono.defer(() -> error(HttpStatus.BAD_REQUEST, "Request body is required.")))
+				.onErrorResume(DataBufferLimitException.class, e -> payloadTooLarge(maxBodySize))
+				.onErrorResume(e -> error(serviceID, e));
+	}
+
+	/** 本文の上限を超えた場合のレスポンスを作成します */
+	private static Mono<ServerResponse> payloadTooLarge(long maxBodySize) {
+		return error(HttpStatus.PAYLOAD_TOO_LARGE, "Request body must not exceed " + maxBodySize + " bytes.");
+	}
+
+	/** 結果をレスポンスのバッファへ直接書き込む本文を作成します */
+	private BodyInserter<Mono<DataBuffer>, ReactiveHttpOutputMessage> write(
+			String serviceID, Object result, JsonPropertyNameMapper responseMapper) {
+		return (message, context) -> message.writeWith(Mono.fromCallable(() -> {
+			// 書き込みに失敗した場合のみ解放し、それ以外は書き込み側が解放する
+			DataBuffer output = message.bufferFactory().allocateBuffer();
+			try {
+				jsonProxyService.write(serviceID, result, output.asOutputStream(), responseMapper);
+				return output;
+			} catch (RuntimeException e) {
+				DataBufferUtils.release(output);
+				throw e;
+			}
+		}));
+	}
+
+	/** マッピングの名前から取得します */
+	private JsonPropertyNameMapper getMapper(String name) {
+		if (name == null)
+			return null;
+		JsonPropertyNameMapper mapper = mapperRegistry.get(name);
+		if (mapper == null)
+			throw new IllegalStateException("Mapping[" + name + "] is not found.");
+		return mapper;
+	}
+
+	/** 例外に応じた状態のレスポンスを作成します(500の場合はメッセージを返さずにログへ出力) */
+	private static Mono<ServerResponse> error(String serviceID, Throwable e) {
+		Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		if (cause instanceof BLInputException)
+			return error(HttpStatus.BAD_REQUEST, String.valueOf(cause.getMessage()));
+		if (cause instanceof BLRejectedException)
+			return error(HttpStatus.SERVICE_UNAVAILABLE, String.valueOf(cause.getMessage()));
+
+		log.error("Service[{}] failed.", serviceID, cause);
+		return error(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR_MESSAGE);
+	}
+
+	/** 状態とメッセージのレスポンスを作成します */
+	private static Mono<ServerResponse> error(HttpStatus status, String message) {
+		return ServerResponse.status(status)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(Map.of("message", message));
+	}
+}
@@ -0,0 +1,56 @@
+package com.egu.springboot.sample.web;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.egu.springboot.sample.service.BLJsonProxyService;
+import com.egu.springboot.sample.service.BLProxyProperties;
+import com.egu.springboot.sample.service.BusinessLogicRegistry;
+import com.egu.springboot.sample.service.JsonPropertyNameMapperRegistry;
+
+/**
+ * BLサービスをHTTPで公開する設定です。
+ * <p>
+ * リアクティブなWebアプリケーションとして起動した場合に、{@value #PATH}への{@code POST}を{@link BLHandler}へ振り分けます。
+ * </p>
+ * @author t-eguchi
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class BLWebConfiguration {
+
+	/** BLサービスを公開するパス */
+	public static final String PATH = "/bl/{" + BLHandler.SERVICE_ID_VARIABLE + "}";
+
+	/**
+	 * ハンドラーを定義します。
+	 * @param registry
+	 * @param jsonProxyService
+	 * @param properties
+	 * @param mapperRegistry
+	 * @return
+	 */
+	@Bean
+	public BLHandler blHandler(BusinessLogicRegistry registry, BLJsonProxyService jsonProxyService,
+			BLProxyProperties properties, JsonPropertyNameMapperRegistry mapperRegistry) {
+		return new BLHandler(registry, jsonProxyService, properties, mapperRegistry);
+	}
+
+	/**
+	 * パスとハンドラーの対応を定義します。
+	 * @param handler
+	 * @return
+	 */
+	@Bean
+	public RouterFunction<ServerResponse> blRouterFunction(BLHandler handler) {
+		return RouterFunctions.route(
+				RequestPredicates.POST(PATH).and(RequestPredicates.contentType(MediaType.APPLICATION_JSON)),
+				handler::execute);
+	}
+}
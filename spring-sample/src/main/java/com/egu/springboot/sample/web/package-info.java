@@ -0,0 +1 @@
+package com.egu.springboot.sample.web;
\ No newline at end of file
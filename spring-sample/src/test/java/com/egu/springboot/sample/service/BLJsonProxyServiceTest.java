@@ -0,0 +1,62 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * {@link BLJsonProxyService}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+@SpringBootTest
+class BLJsonProxyServiceTest {
+
+	/** テスト対象 */
+	@Autowired
+	private BLJsonProxyService target;
+
+	@Test
+	@DisplayName("リネームしながら引数の型へバインドした実行を検証します。")
+	void test1() throws Exception {
+		// 準備(値がnullのプロパティもリネームする)
+		var mapper = new JsonPropertyNameMapper(Map.of("ID", "id", "NAME", "name"));
+
+		// 検証
+		JSONAssert.assertEquals("{\"id\":\"id-1\",\"name\":null,\"memo\":\"GET\"}",
+				new String(target.execute("Get", "{\"ID\":\"id-1\",\"NAME\":null}".getBytes(StandardCharsets.UTF_8),
+						mapper), StandardCharsets.UTF_8),
+				true);
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> target.execute(
+				"Get", "{\"ID\":".getBytes(StandardCharsets.UTF_8), mapper));
+		assertTrue(e.getMessage().startsWith("Service[Get] input is invalid."), e.getMessage());
+		JSONAssert.assertEquals("{\"id\":\"id-2\",\"name\":\"name-2\",\"memo\":\"POST\"}",
+				new String(target.execute("Post", "{\"id\":\"id-2\",\"name\":\"name-2\"}"
+						.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8),
+				true);
+	}
+
+	@Test
+	@DisplayName("非同期実行と一括実行のメソッドの要素の型によるバインドを検証します。")
+	void test2() throws Exception {
+		var mapper = new JsonPropertyNameMapper(Map.of("ID", "id"));
+		JSONAssert.assertEquals("{\"id\":\"id-3\",\"name\":null,\"memo\":\"GET\"}",
+				new String(target.executeAsync("Get", "{\"ID\":\"id-3\"}".getBytes(StandardCharsets.UTF_8), mapper)
+						.join(), StandardCharsets.UTF_8),
+				true);
+		assertEquals("\"ABC\"", new String(target.executeAsync(
+				"Batched", "\"abc\"".getBytes(StandardCharsets.UTF_8), null).join(), StandardCharsets.UTF_8));
+
+		// 例外は異常終了として設定する
+		CompletionException e = assertThrows(CompletionException.class,
+				() -> target.executeAsync("None", new byte[0], mapper).join());
+		assertEquals("Service[None] is not found.", e.getCause().getMessage());
+	}
+}
@@ -0,0 +1,121 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.egu.springboot.sample.service.BusinessLogicRegistryTest.LazyBLService;
+import com.egu.springboot.sample.service.SampleBLService.SampleRequest;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link BLMetrics}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+@SpringBootTest
+class BLMetricsTest {
+
+	/** テスト対象 */
+	@Autowired
+	private BLMetrics target;
+
+	/** Micrometerのバインダー */
+	@Autowired
+	private BLMetricsMeterBinder meterBinder;
+
+	/** BLプロキシ */
+	@Autowired
+	private BLProxyService proxyService;
+
+	@Test
+	@DisplayName("サービスIDごとの計測値の記録を検証します。")
+	void test1() {
+		ServiceMetricsSnapshot getBefore = target.getSnapshot("Get");
+		ServiceMetricsSnapshot errorBefore = target.getSnapshot("Error");
+		long missesBefore = target.getLookupMisses();
+
+		for (int i = 0; i < 10; i++) {
+			proxyService.execute("Get", SampleRequest.builder().id("id").build());
+		}
+		assertThrows(Exception.class, () -> proxyService.execute("Error", SampleRequest.builder().build()));
+		assertThrows(RuntimeException.class, () -> proxyService.execute("None", SampleRequest.builder().build()));
+
+		ServiceMetricsSnapshot get = target.getSnapshot("Get");
+		assertEquals(10, get.getCalls() - getBefore.getCalls(), "calls");
+		assertEquals(0, get.getErrors() - getBefore.getErrors(), "errors");
+		assertEquals(0, get.getInFlight(), "inFlight");
+		assertTrue(0 < get.getP50Nanos(), "p50");
+		assertTrue(get.getP50Nanos() <= get.getP99Nanos(), "p99");
+		assertTrue(get.getP99Nanos() <= get.getP999Nanos(), "p999");
+
+		ServiceMetricsSnapshot error = target.getSnapshot("Error");
+		assertEquals(1, error.getCalls() - errorBefore.getCalls(), "calls");
+		assertEquals(1, error.getErrors() - errorBefore.getErrors(), "errors");
+
+		assertEquals(1, target.getLookupMisses() - missesBefore, "lookupMisses");
+		assertNull(target.getSnapshot("None"), "None");
+		assertTrue(target.getSnapshots().containsKey("Post"), "snapshots");
+	}
+
+	@Test
+	@DisplayName("ヒストグラムのパーセンタイルを検証します。")
+	void test2() {
+		var histogram = new LatencyHistogram();
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(value));
+		}
+		assertEquals(500_000, histogram.getValueAtPercentile(0.5), 500_000 * 0.07, "p50");
+		assertEquals(990_000, histogram.getValueAtPercentile(0.99), 990_000 * 0.07, "p99");
+		assertEquals(0, new LatencyHistogram().getValueAtPercentile(0.5), "empty");
+
+		// 各バケットの上限値が自身のバケットに含まれること
+		for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789 }) {
+			int index = LatencyHistogram.indexOf(value);
+			assertTrue(value <= LatencyHistogram.upperBoundOf(index), "upper " + value);
+			assertEquals(index, LatencyHistogram.indexOf(LatencyHistogram.upperBoundOf(index)), "index " + value);
+		}
+	}
+
+	@Test
+	@DisplayName("Micrometerへの公開を検証します。")
+	void test3() {
+		var registry = new SimpleMeterRegistry();
+		meterBinder.bindTo(registry);
+		proxyService.execute("Post", SampleRequest.builder().id("id").build());
+
+		FunctionTimer calls = registry.get("bl.proxy.calls").tag("service", "Post").functionTimer();
+		assertEquals(target.getSnapshot("Post").getCalls(), (long) calls.count(), "calls");
+		FunctionCounter misses = registry.get("bl.proxy.lookup.misses").functionCounter();
+		assertEquals(target.getLookupMisses(), (long) misses.count(), "lookupMisses");
+		assertNotNull(registry.get("bl.proxy.latency").tag("service", "Post").tag("quantile", "0.99").gauge());
+	}
+
+	@Test
+	@DisplayName("確定後に登録されたサービスIDがMicrometerへ公開されることを検証します。")
+	void test4() {
+		try (var context = new AnnotationConfigApplicationContext()) {
+			context.register(BusinessLogicRegistry.class, BLMetrics.class, BLMetricsMeterBinder.class);
+			context.registerBean("lazy", LazyBLService.class);
+			context.refresh();
+			var registry = new SimpleMeterRegistry();
+			context.getBean(BLMetricsMeterBinder.class).bindTo(registry);
+			assertNull(registry.find("bl.proxy.calls").tag("service", "Lazy").functionTimer(), "before");
+
+			// 生成時にメーターが登録される
+			context.getBean("lazy");
+			context.getBean(BusinessLogicRegistry.class).get("Lazy").execute("a");
+			FunctionTimer calls = registry.get("bl.proxy.calls").tag("service", "Lazy").functionTimer();
+			assertEquals(1, (long) calls.count(), "calls");
+			assertNotNull(registry.get("bl.proxy.in.flight").tag("service", "Lazy").gauge(), "inFlight");
+		}
+	}
+}
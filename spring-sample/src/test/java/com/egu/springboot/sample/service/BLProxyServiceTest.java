@@ -2,8 +2,22 @@ package com.egu.springboot.sample.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
@@ -14,13 +28,23 @@ import com.egu.springboot.sample.service.SampleBLService.SampleResponse;
  * {@link BLProxyService}を検証するためのクラスです。
  * @author t-eguchi
  */
-@SpringBootTest
+@SpringBootTest(properties = {
+		"bl.proxy.flight-recorder.enabled=true",
+		"bl.proxy.services.[Batched].batch-window-millis=60000" })
 class BLProxyServiceTest {
 
 	/** テスト対象 */
 	@Autowired
 	private BLProxyService target;
 
+	/** 計測値 */
+	@Autowired
+	private BLMetrics metrics;
+
+	/** サンプル用のサービス */
+	@Autowired
+	private SampleBLService sampleBLService;
+
 	@Test
 	@DisplayName("サービスIDごとの実行を検証します。")
 	void test() {
@@ -40,4 +64,175 @@ class BLProxyServiceTest {
 				RuntimeException.class,
 				() -> target.execute("None", SampleRequest.builder().id("id-3").name("name-3").build()));
 	}
+
+	@Test
+	@DisplayName("ビジネスロジックの例外がラップされずに送出されることを検証します。")
+	void testException() {
+		IOException actual = assertThrows(
+				IOException.class,
+				() -> target.execute("Error", SampleRequest.builder().id("id-4").name("name-4").build()));
+		assertEquals("id-4", actual.getMessage(), "message");
+	}
+
+	@Test
+	@DisplayName("非同期実行を検証します。")
+	void testAsync() throws Exception {
+		CompletableFuture<Object> future = target.executeAsync(
+				"Get", SampleRequest.builder().id("id-5").name("name-5").build());
+		SampleResponse actual = (SampleResponse) future.get();
+		assertEquals("id-5", actual.getId(), "id");
+		assertEquals("GET", actual.getMemo(), "memo");
+
+		// 例外は同期実行と同じものが設定される
+		ExecutionException notFound = assertThrows(ExecutionException.class,
+				() -> target.executeAsync("None", SampleRequest.builder().build()).get());
+		assertEquals(RuntimeException.class, notFound.getCause().getClass());
+		assertEquals("Service[None] is not found.", notFound.getCause().getMessage());
+
+		ExecutionException error = assertThrows(ExecutionException.class,
+				() -> target.executeAsync("Error", SampleRequest.builder().id("id-6").build()).get());
+		assertEquals(IOException.class, error.getCause().getClass());
+		assertEquals("id-6", error.getCause().getMessage());
+	}
+
+	@Test
+	@DisplayName("非同期実行時に呼び出し元のコンテキストが引き継がれることを検証します。")
+	void testAsyncContext() throws Exception {
+		MDC.put("traceId", "trace-1");
+		try {
+			assertEquals("trace-1", target.executeAsync("Context", "traceId").get());
+		} finally {
+			MDC.remove("traceId");
+		}
+	}
+
+	@Test
+	@DisplayName("複数のサービスIDの一括実行を検証します。")
+	void testBatch() {
+		List<InvocationResult> actual = target.executeBatch(List.of(
+				Invocation.of("Get", SampleRequest.builder().id("id-7").name("name-7").build()),
+				Invocation.of("None", SampleRequest.builder().build()),
+				Invocation.of("Error", SampleRequest.builder().id("id-8").build()),
+				Invocation.of("Post", SampleRequest.builder().id("id-9").name("name-9").build())));
+		assertEquals(4, actual.size(), "size");
+
+		assertTrue(actual.get(0).isSuccess(), "Get");
+		assertEquals("GET", ((SampleResponse) actual.get(0).getResult()).getMemo(), "Get");
+
+		assertFalse(actual.get(1).isSuccess(), "None");
+		assertEquals("Service[None] is not found.", actual.get(1).getError().getMessage(), "None");
+
+		assertFalse(actual.get(2).isSuccess(), "Error");
+		assertEquals(IOException.class, actual.get(2).getError().getClass(), "Error");
+		assertThrows(IOException.class, () -> actual.get(2).getOrThrow(), "Error");
+
+		assertTrue(actual.get(3).isSuccess(), "Post");
+		assertEquals("id-9", ((SampleResponse) actual.get(3).getOrThrow()).getId(), "Post");
+
+		assertTrue(target.executeBatch(List.of()).isEmpty(), "empty");
+	}
+
+	@Test
+	@DisplayName("一括実行でビジネスロジックのErrorが結果に変換されずに送出されることを検証します。")
+	void testBatchError() {
+		// 呼び出し元スレッドで実行した場合
+		AssertionError last = assertThrows(AssertionError.class, () -> target.executeBatch(List.of(
+				Invocation.of("Get", SampleRequest.builder().id("id").build()),
+				Invocation.of("Fatal", "last"))));
+		assertEquals("last", last.getMessage(), "last");
+
+		// 非同期に実行した場合
+		AssertionError async = assertThrows(AssertionError.class, () -> target.executeBatch(List.of(
+				Invocation.of("Fatal", "async"),
+				Invocation.of("Get", SampleRequest.builder().id("id").build()))));
+		assertEquals("async", async.getMessage(), "async");
+	}
+
+	@Test
+	@DisplayName("実行結果のキャッシュを検証します。")
+	void testCache() {
+		ServiceMetricsSnapshot before = metrics.getSnapshot("Cached");
+
+		SampleResponse first = (SampleResponse) target.execute(
+				"Cached", SampleRequest.builder().id("id-10").name("name-10").build());
+		SampleResponse second = (SampleResponse) target.execute(
+				"Cached", SampleRequest.builder().id("id-10").name("name-10").build());
+		SampleResponse other = (SampleResponse) target.execute(
+				"Cached", SampleRequest.builder().id("id-11").name("name-11").build());
+
+		// 等しい入力値は同じ結果を返し、異なる入力値は実行される
+		assertSame(first, second, "same input");
+		assertNotEquals(first.getMemo(), other.getMemo(), "other input");
+		assertEquals("id-11", other.getId(), "other input");
+
+		ServiceMetricsSnapshot after = metrics.getSnapshot("Cached");
+		assertEquals(1, after.getCacheHits() - before.getCacheHits(), "hits");
+		assertEquals(2, after.getCacheMisses() - before.getCacheMisses(), "misses");
+		assertEquals(2, after.getCalls() - before.getCalls(), "calls");
+	}
+
+	@Test
+	@DisplayName("同時実行数の上限を超えた呼び出しが拒否されることを検証します。")
+	void testConcurrencyLimit() throws Exception {
+		ServiceMetrics serviceMetrics = metrics.getServiceMetrics("Limited");
+		long rejected = serviceMetrics.getRejected();
+
+		// 1件目が実行中の間は待ち行列がないため拒否される
+		CountDownLatch latch = new CountDownLatch(1);
+		CompletableFuture<Object> running = target.executeAsync("Limited", latch);
+		while (serviceMetrics.getInFlight() == 0 && !running.isDone()) {
+			Thread.onSpinWait();
+		}
+		BLRejectedException actual = assertThrows(
+				BLRejectedException.class, () -> target.execute("Limited", new CountDownLatch(0)));
+		assertEquals("Limited", actual.getServiceID(), "serviceID");
+		assertEquals(1, serviceMetrics.getRejected() - rejected, "rejected");
+
+		// 完了後は実行できる
+		latch.countDown();
+		assertEquals("done", running.get());
+		assertEquals("done", target.execute("Limited", new CountDownLatch(0)));
+	}
+
+	@Test
+	@DisplayName("個別の呼び出しがまとめて実行されることを検証します。")
+	void testMicroBatch() {
+		sampleBLService.getBatchSizes().clear();
+
+		// 件数の上限に達した時点でまとめて実行される(待ち時間の上限は件数が揃うまでに達しない長さとする)
+		List<InvocationResult> actual = target.executeBatch(List.of(
+				Invocation.of("Batched", "a"),
+				Invocation.of("Batched", "b"),
+				Invocation.of("Batched", "c"),
+				Invocation.of("Batched", "d")));
+		assertEquals(List.of("A", "B", "C", "D"), actual.stream()
+				.map(InvocationResult::getResult).collect(Collectors.toList()));
+		assertEquals(List.of(4), sampleBLService.getBatchSizes(), "batch sizes");
+	}
+
+	@Test
+	@DisplayName("検索と実行のイベントが記録されることを検証します。")
+	void testFlightRecorder(@TempDir Path directory) throws Exception {
+		Path file = directory.resolve("bl.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(BLLookupEvent.NAME);
+			recording.enable(BLInvocationEvent.NAME);
+			recording.start();
+			target.execute("Get", SampleRequest.builder().id("id-12").build());
+			assertThrows(RuntimeException.class, () -> target.execute("None", SampleRequest.builder().build()));
+			assertThrows(IOException.class, () -> target.execute("Error", SampleRequest.builder().id("id-13").build()));
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		assertEquals(List.of("Get:true", "None:false", "Error:true"), events.stream()
+				.filter(event -> event.getEventType().getName().equals(BLLookupEvent.NAME))
+				.map(event -> event.getString("serviceID") + ":" + event.getBoolean("found"))
+				.collect(Collectors.toList()), "lookup");
+		assertEquals(List.of("Get:true", "Error:false"), events.stream()
+				.filter(event -> event.getEventType().getName().equals(BLInvocationEvent.NAME))
+				.map(event -> event.getString("serviceID") + ":" + event.getBoolean("success"))
+				.collect(Collectors.toList()), "invocation");
+	}
 }
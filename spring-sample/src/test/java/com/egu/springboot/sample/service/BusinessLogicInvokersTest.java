@@ -0,0 +1,66 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link BusinessLogicInvokers}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class BusinessLogicInvokersTest {
+
+	/** 非公開クラスのビジネスロジックです */
+	static class PackagePrivateBL {
+
+		/** 呼び出された値 */
+		private final List<Object> called = new ArrayList<>();
+
+		public int increment(int value) {
+			return value + 1;
+		}
+
+		public void accept(String value) {
+			called.add(value);
+		}
+
+		public String fail(String value) throws Exception {
+			throw new Exception(value);
+		}
+	}
+
+	@Test
+	@DisplayName("プリミティブ型の引数と戻り値を持つメソッドの呼び出しを検証します。")
+	void test1() throws Throwable {
+		var bean = new PackagePrivateBL();
+		var invoker = BusinessLogicInvokers.create(
+				bean, ReflectionUtils.findMethod(PackagePrivateBL.class, "increment", int.class));
+		assertEquals(2, invoker.invoke(1));
+	}
+
+	@Test
+	@DisplayName("戻り値を持たないメソッドの呼び出しを検証します。")
+	void test2() throws Throwable {
+		var bean = new PackagePrivateBL();
+		var invoker = BusinessLogicInvokers.create(
+				bean, ReflectionUtils.findMethod(PackagePrivateBL.class, "accept", String.class));
+		assertNull(invoker.invoke("value"));
+		assertEquals(List.of("value"), bean.called);
+	}
+
+	@Test
+	@DisplayName("検査例外がラップされずに送出されることを検証します。")
+	void test3() {
+		var bean = new PackagePrivateBL();
+		var invoker = BusinessLogicInvokers.create(
+				bean, ReflectionUtils.findMethod(PackagePrivateBL.class, "fail", String.class));
+		Exception actual = assertThrows(Exception.class, () -> invoker.invoke("message"));
+		assertEquals(Exception.class, actual.getClass());
+		assertEquals("message", actual.getMessage());
+	}
+}
@@ -0,0 +1,161 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link BusinessLogicRegistry}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+@SpringBootTest(properties = {
+		"bl.proxy.services.[Limited].max-queue-depth=5",
+		"bl.proxy.services.[Get].cacheable=true",
+		"bl.proxy.services.[Cached].cacheable=false" })
+class BusinessLogicRegistryTest {
+
+	/** 継承により重複したサービスIDを持つサービスです */
+	static class DuplicatedBLService extends SampleBLService {
+	}
+
+	/** 確定後に生成されるサービスです */
+	@Lazy
+	@Service
+	public static class LazyBLService {
+
+		/** 遅延して登録されるビジネスロジック */
+		@BusinessLogic("Lazy")
+		public String lazy(String input) {
+			return input.toUpperCase();
+		}
+	}
+
+	/** 確定後に生成され、サービスIDが重複するサービスです */
+	@Lazy
+	@Service
+	public static class LazyDuplicatedBLService extends LazyBLService {
+	}
+
+	/** オーバーライド元のメソッドにビジネスロジックの注釈を持つインターフェイスです */
+	public interface InheritedBL {
+
+		/** 実装クラスで注釈なしにオーバーライドされるビジネスロジック */
+		@BusinessLogic("Inherited")
+		String inherited(String input);
+	}
+
+	/** 生成されたディスパッチャーと継承元の注釈の両方を持つサービスです */
+	public static class InheritedBLService implements InheritedBL {
+
+		/** ディスパッチャーに含まれるビジネスロジック */
+		@BusinessLogic("Declared")
+		public String declared(String input) {
+			return input + "-declared";
+		}
+
+		@Override
+		public String inherited(String input) {
+			return input + "-inherited";
+		}
+	}
+
+	/** テスト対象 */
+	@Autowired
+	private BusinessLogicRegistry target;
+
+	@Test
+	@DisplayName("起動時に登録されたサービスIDの検索を検証します。")
+	void test1() {
+		assertTrue(target.contains("Get"), "Get");
+		assertTrue(target.contains("Post"), "Post");
+		assertFalse(target.contains("None"), "None");
+		assertFalse(target.contains(null), "null");
+
+		ExecutableSet executableSet = target.get("Get");
+		assertEquals(SampleBLService.class, executableSet.getMethod().getDeclaringClass());
+		assertTrue(target.getServiceIDs().containsAll(Set.of("Get", "Post", "Error", "Context")));
+
+		// 生成されたディスパッチテーブルが優先されていること
+		assertTrue(executableSet.getInvoker().getClass().getName()
+				.startsWith(SampleBLService_BusinessLogicDispatcher.class.getName()),
+				executableSet.getInvoker().getClass().getName());
+		assertThrows(UnsupportedOperationException.class, () -> target.getServiceIDs().clear());
+	}
+
+	@Test
+	@DisplayName("サービスIDごとの設定値が注釈の設定を上書きすることを検証します。")
+	void test3() {
+		ConcurrencyLimiter limiter = target.get("Limited").getConcurrencyLimiter();
+		assertEquals(1, limiter.getMaxConcurrency(), "maxConcurrency");
+		assertEquals(5, limiter.getMaxQueueDepth(), "maxQueueDepth");
+		assertNull(target.get("Get").getConcurrencyLimiter(), "Get");
+		assertNotNull(target.get("Get").getResultCache(), "Get cacheable");
+		assertNull(target.get("Cached").getResultCache(), "Cached cacheable");
+	}
+
+	@Test
+	@DisplayName("サービスIDが重複している場合に起動時に失敗することを検証します。")
+	void test2() {
+		var context = new AnnotationConfigApplicationContext();
+		context.register(BusinessLogicRegistry.class, SampleBLService.class, DuplicatedBLService.class);
+		var exception = assertThrows(BeanCreationException.class, context::refresh);
+		assertTrue(exception.getMostSpecificCause().getMessage().contains("Service[Get] is duplicated."),
+				exception.getMostSpecificCause().getMessage());
+	}
+
+	@Test
+	@DisplayName("確定後に生成されたシングルトンが登録されることを検証します。")
+	void test4() throws Exception {
+		try (var context = new AnnotationConfigApplicationContext()) {
+			context.register(BusinessLogicRegistry.class);
+			context.registerBean("lazy", LazyBLService.class);
+			context.registerBean("duplicated", LazyDuplicatedBLService.class);
+			context.refresh();
+			BusinessLogicRegistry registry = context.getBean(BusinessLogicRegistry.class);
+			assertFalse(registry.contains("Lazy"), "before");
+
+			// 生成時に登録される
+			context.getBean("lazy");
+			assertTrue(registry.contains("Lazy"), "after");
+			assertEquals("A", registry.get("Lazy").execute("a"));
+
+			// 重複した場合は生成に失敗する
+			var exception = assertThrows(BeanCreationException.class,
+					() -> context.getBean("duplicated"));
+			assertTrue(exception.getMostSpecificCause().getMessage().contains("Service[Lazy] is duplicated."),
+					exception.getMostSpecificCause().getMessage());
+		}
+	}
+
+	@Test
+	@DisplayName("生成されたディスパッチャーに含まれない継承元の注釈のメソッドも登録されることを検証します。")
+	void test5() {
+		try (var context = new AnnotationConfigApplicationContext()) {
+			context.register(BusinessLogicRegistry.class, InheritedBLService.class);
+			context.refresh();
+			BusinessLogicRegistry registry = context.getBean(BusinessLogicRegistry.class);
+			assertEquals(Set.of("Declared", "Inherited"), registry.getServiceIDs());
+
+			// ディスパッチャーに含まれるものは生成された呼び出しを利用する
+			ExecutableSet declared = registry.get("Declared");
+			assertEquals("a-declared", declared.execute("a"));
+			assertTrue(declared.getInvoker().getClass().getName()
+					.startsWith(BusinessLogicRegistryTest_InheritedBLService_BusinessLogicDispatcher.class.getName()),
+					declared.getInvoker().getClass().getName());
+
+			// 含まれないものはメソッドを呼び出す
+			ExecutableSet inherited = registry.get("Inherited");
+			assertEquals("a-inherited", inherited.execute("a"));
+			assertEquals(InheritedBLService.class, inherited.getMethod().getDeclaringClass());
+		}
+	}
+}
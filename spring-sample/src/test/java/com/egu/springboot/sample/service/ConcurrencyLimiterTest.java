@@ -0,0 +1,103 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link ConcurrencyLimiter}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class ConcurrencyLimiterTest {
+
+	@Test
+	@DisplayName("上限を超えた取得が拒否されることを検証します。")
+	void test1() {
+		ServiceMetrics metrics = new ServiceMetrics("Limited");
+		ConcurrencyLimiter target = new ConcurrencyLimiter("Limited", 1, 0, 0, false, metrics);
+
+		target.acquire();
+		assertThrows(BLRejectedException.class, target::acquire);
+		assertEquals(1, metrics.getRejected(), "rejected");
+
+		target.release(0);
+		target.acquire();
+		target.release(0);
+	}
+
+	@Test
+	@DisplayName("処理時間の悪化に応じて上限が縮小し、回復に応じて拡大することを検証します。")
+	void test2() {
+		ConcurrencyLimiter target = new ConcurrencyLimiter(
+				"Adaptive", 10, 0, 0, true, new ServiceMetrics("Adaptive"));
+
+		// 処理時間が安定している間は上限を維持
+		run(target, 10, 100);
+		assertEquals(10, target.getLimit(), "stable");
+
+		// 処理時間が悪化すると縮小
+		run(target, 10, 1_000);
+		assertEquals(9, target.getLimit(), "degraded");
+		run(target, 10, 1_000);
+		assertEquals(8, target.getLimit(), "degraded");
+
+		// 処理時間が回復すると拡大
+		run(target, 10, 100);
+		assertEquals(9, target.getLimit(), "recovered");
+	}
+
+	@Test
+	@DisplayName("設定値が注釈の設定を上書きすることを検証します。")
+	void test3() throws NoSuchMethodException {
+		BusinessLogic businessLogic = SampleBLService.class
+				.getMethod("limited", CountDownLatch.class)
+				.getAnnotation(BusinessLogic.class);
+		ServiceMetrics metrics = new ServiceMetrics("Limited");
+
+		ConcurrencyLimiter actual = ConcurrencyLimiter.of("Limited", businessLogic, null, metrics);
+		assertEquals(1, actual.getMaxConcurrency(), "annotation");
+		assertFalse(actual.isAdaptive(), "annotation");
+
+		BLProxyProperties.Service settings = new BLProxyProperties.Service();
+		settings.setMaxConcurrency(4);
+		settings.setAdaptiveConcurrency(true);
+		actual = ConcurrencyLimiter.of("Limited", businessLogic, settings, metrics);
+		assertEquals(4, actual.getMaxConcurrency(), "settings");
+		assertTrue(actual.isAdaptive(), "settings");
+
+		settings.setMaxQueueWaitMillis(100L);
+		actual = ConcurrencyLimiter.of("Limited", businessLogic, settings, metrics);
+		assertEquals(100L, actual.getMaxQueueWaitMillis(), "settings");
+
+		settings.setMaxConcurrency(0);
+		assertNull(ConcurrencyLimiter.of("Limited", businessLogic, settings, metrics), "disabled");
+	}
+
+	@Test
+	@DisplayName("待機が時間の上限を超えた場合に拒否されることを検証します。")
+	void test4() {
+		ServiceMetrics metrics = new ServiceMetrics("Limited");
+		ConcurrencyLimiter target = new ConcurrencyLimiter("Limited", 1, 1, 10, false, metrics);
+
+		target.acquire();
+		BLRejectedException actual = assertThrows(BLRejectedException.class, target::acquire);
+		assertTrue(actual.getMessage().contains("Timed out"), actual.getMessage());
+		assertEquals(1, metrics.getRejected(), "rejected");
+
+		// 待機していた件数は戻る
+		target.release(0);
+		target.acquire();
+		target.release(0);
+	}
+
+	/** 指定の処理時間で取得と返却を繰り返します */
+	private static void run(ConcurrencyLimiter target, int count, long elapsedNanos) {
+		for (int index = 0; index < count; index++) {
+			target.acquire();
+			target.release(elapsedNanos);
+		}
+	}
+}
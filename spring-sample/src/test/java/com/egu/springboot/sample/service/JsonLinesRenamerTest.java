@@ -0,0 +1,120 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * {@link JsonLinesRenamer}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class JsonLinesRenamerTest {
+
+	/** マッパー */
+	private final JsonPropertyNameMapper mapper = new JsonPropertyNameMapper(
+			Map.of("UserID", "USER_ID", "Items.Cd", "Items.CODE"));
+
+	@Test
+	@DisplayName("入力の順序を維持した一括リネームを検証します。")
+	void test1() throws IOException {
+		// 準備(待ち行列の容量を小さくして読み込みを待たせる)
+		List<String> lines = lines(2000);
+		var target = new JsonLinesRenamer(mapper, 4, 3, true);
+
+		// 実行
+		var output = new ByteArrayOutputStream();
+		var statistics = target.renameProperties(
+				new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)), output);
+
+		// 検証
+		assertEquals(expected(lines), Arrays.asList(output.toString(StandardCharsets.UTF_8).split("\n")));
+		assertEquals(2000, statistics.getRecords());
+		assertEquals(String.join("\n", lines).getBytes(StandardCharsets.UTF_8).length, statistics.getBytes());
+		assertTrue(0 < statistics.getRecordsPerSecond());
+		assertTrue(0 < statistics.getBytesPerSecond());
+	}
+
+	@Test
+	@DisplayName("順序を問わない一括リネームとファイルの入出力を検証します。")
+	void test2(@TempDir Path directory) throws IOException {
+		// 準備(空の行と復帰は出力しない)
+		List<String> lines = lines(500);
+		Path source = directory.resolve("source.ndjson");
+		Path target = directory.resolve("target.ndjson");
+		Files.writeString(source, String.join("\r\n", lines) + "\r\n\r\n");
+
+		// 実行
+		var statistics = new JsonLinesRenamer(mapper, 3, 16, false).renameProperties(source, target);
+
+		// 検証
+		assertEquals(500, statistics.getRecords());
+		List<String> actual = Files.readAllLines(target);
+		assertEquals(500, actual.size());
+		assertEquals(new HashSet<>(expected(lines)), new HashSet<>(actual));
+	}
+
+	@Test
+	@DisplayName("不正なレコードが行番号を含む例外となることを検証します。")
+	void test3() {
+		// 準備
+		String ndjson = "{\"UserID\":1}\n\n{\"UserID\":\n{\"UserID\":3}\n";
+		var target = new JsonLinesRenamer(mapper, 2, 2, true);
+
+		// 検証
+		IOException e = assertThrows(IOException.class, () -> target.renameProperties(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream()));
+		assertEquals("Failed to rename the record. line = 3", e.getMessage());
+	}
+
+	@Test
+	@DisplayName("リネームするスレッドがErrorで終了した場合に待ち続けずに失敗することを検証します。")
+	void test4() {
+		// 準備(2件目で異常終了するマッパー)
+		var failing = new JsonPropertyNameMapper(Map.of("UserID", "USER_ID")) {
+
+			@Override
+			public byte[] renameProperties(byte[] json) {
+				if (new String(json, StandardCharsets.UTF_8).contains("\"1\""))
+					throw new StackOverflowError("worker");
+				return super.renameProperties(json);
+			}
+		};
+		String ndjson = String.join("\n", lines(100));
+		var target = new JsonLinesRenamer(failing, 1, 4, true);
+
+		// 検証
+		StackOverflowError e = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(
+				StackOverflowError.class, () -> target.renameProperties(
+						new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+						new ByteArrayOutputStream())));
+		assertEquals("worker", e.getMessage());
+	}
+
+	/** 入力の行を作成します */
+	private static List<String> lines(int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> "{\"UserID\":\"" + i + "\",\"Items\":[{\"Cd\":" + i + "},{\"Name\":\"名前\"}]}")
+				.collect(Collectors.toList());
+	}
+
+	/** 1行ずつリネームした結果を作成します */
+	private List<String> expected(List<String> lines) {
+		return lines.stream().map(mapper::renamePropertiesStreaming).collect(Collectors.toList());
+	}
+}
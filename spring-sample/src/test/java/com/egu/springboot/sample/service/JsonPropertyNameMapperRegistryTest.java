@@ -0,0 +1,118 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * {@link JsonPropertyNameMapperRegistry}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+@SpringBootTest(properties = {
+		"json.mapper.mappings.auth.[CompanyCd]=COMPANY_CD",
+		"json.mapper.mappings.auth.[UserID]=USER_ID",
+		"json.mapper.mappings.cshmnt.[FundInfList]=FundInfs",
+		"json.mapper.mappings.cshmnt.[FundInfList.PortCd]=FundInfList.Fund",
+})
+class JsonPropertyNameMapperRegistryTest {
+
+	/** テスト対象 */
+	@Autowired
+	private JsonPropertyNameMapperRegistry target;
+
+	/** 環境 */
+	@Autowired
+	private ConfigurableEnvironment environment;
+
+	/** イベントの発行元 */
+	@Autowired
+	private ApplicationEventPublisher publisher;
+
+	@Test
+	@DisplayName("設定値から生成したマッパーの検索を検証します。")
+	void test1() {
+		assertEquals(Set.of("auth", "cshmnt"), target.getNames());
+		assertFalse(target.contains("none"), "none");
+		assertNull(target.get(null), "null");
+
+		assertEquals("{\"COMPANY_CD\":\"1000\",\"USER_ID\":\"Admin\"}",
+				target.get("auth").renamePropertiesStreaming("{\"CompanyCd\":\"1000\",\"UserID\":\"Admin\"}"));
+		assertEquals("{\"FundInfs\":[{\"Fund\":\"10000\"}]}",
+				target.get("cshmnt").renamePropertiesStreaming("{\"FundInfList\":[{\"PortCd\":\"10000\"}]}"));
+	}
+
+	@Test
+	@DisplayName("再読み込みにより変更されたマッピングのみが差し替えられることを検証します。")
+	void test2() {
+		JsonPropertyNameMapper auth = target.get("auth");
+		JsonPropertyNameMapper cshmnt = target.get("cshmnt");
+
+		var source = new MapPropertySource("reload", Map.of(
+				"json.mapper.mappings.auth.[UserID]", "USER"));
+		environment.getPropertySources().addFirst(source);
+		try {
+			target.reload();
+
+			// 変更されたマッピングのみが新しいインスタンスとなる
+			assertNotSame(auth, target.get("auth"), "auth");
+			assertSame(cshmnt, target.get("cshmnt"), "cshmnt");
+			assertEquals("{\"USER\":\"Admin\"}", target.get("auth").renamePropertiesStreaming("{\"UserID\":\"Admin\"}"));
+
+			// 差し替え前のインスタンスは変更されない
+			assertEquals("{\"USER_ID\":\"Admin\"}", auth.renamePropertiesStreaming("{\"UserID\":\"Admin\"}"));
+		} finally {
+			environment.getPropertySources().remove(source.getName());
+			target.reload();
+		}
+	}
+
+	@Test
+	@DisplayName("不正なマッピングの再読み込みで現在のマッパーが維持されることを検証します。")
+	void test3() {
+		JsonPropertyNameMapper auth = target.get("auth");
+		assertThrows(IllegalArgumentException.class,
+				() -> target.reload(Map.of("auth", Map.of("CompanyCd", "Company.Cd"))));
+		assertSame(auth, target.get("auth"));
+	}
+
+	@Test
+	@DisplayName("環境の変更イベントにより再読み込みされることを検証します。")
+	void test4() {
+		JsonPropertyNameMapper auth = target.get("auth");
+
+		var source = new MapPropertySource("event", Map.of(
+				"json.mapper.mappings.auth.[UserID]", "USER",
+				"json.mapper.mappings.auth.[CompanyCd]", "COMPANY"));
+		environment.getPropertySources().addFirst(source);
+		try {
+			// 関係のないイベントでは再読み込みしない
+			publisher.publishEvent(new PayloadApplicationEvent<>(this, "other"));
+			assertSame(auth, target.get("auth"), "other");
+
+			publisher.publishEvent(new EnvironmentChangeEvent(this, source.getSource().keySet()));
+			assertEquals("{\"COMPANY\":\"1000\",\"USER\":\"Admin\"}",
+					target.get("auth").renamePropertiesStreaming("{\"CompanyCd\":\"1000\",\"UserID\":\"Admin\"}"));
+
+			// 不正なマッピングではイベントの発行元へ例外を送出せず、現在のマッパーを維持する
+			JsonPropertyNameMapper changed = target.get("auth");
+			environment.getPropertySources().replace(source.getName(), new MapPropertySource("event", Map.of(
+					"json.mapper.mappings.auth.[CompanyCd]", "Company.Cd")));
+			publisher.publishEvent(new EnvironmentChangeEvent(this, Set.of("json.mapper.mappings.auth.[CompanyCd]")));
+			assertSame(changed, target.get("auth"), "invalid");
+		} finally {
+			environment.getPropertySources().remove(source.getName());
+			target.reload();
+		}
+	}
+}
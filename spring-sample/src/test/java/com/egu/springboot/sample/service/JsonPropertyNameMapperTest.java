@@ -2,11 +2,38 @@ package com.egu.springboot.sample.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.egu.springboot.sample.util.JacksonUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * {@link JsonPropertyNameMapper}の検証を行うクラスです。
@@ -69,8 +96,8 @@ class JsonPropertyNameMapperTest {
 				"{"
 				+ "\"Name\":\"AAA\","
 				+ "\"FundInfs\":["
-				+ "{\"CurCd\":\"USD\",\"RtEvalDt\":\"20210726\",\"Fund\":\"10000\"},"
-				+ "{\"CurCd\":\"JPY\",\"Fund\":\"10001\"}"
+				+ "{\"Fund\":\"10000\",\"CurCd\":\"USD\",\"RtEvalDt\":\"20210726\"},"
+				+ "{\"Fund\":\"10001\",\"CurCd\":\"JPY\"}"
 				+ "]"
 				+ "}",
 				actual);
@@ -97,9 +124,416 @@ class JsonPropertyNameMapperTest {
 		String actual = target.renameProperties(json);
 		assertEquals(
 				"{"
-				+ "\"Nicknames\":[\"take\",\"egu\"],"
-				+ "\"NameJp\":\"t-eguchi\""
+				+ "\"NameJp\":\"t-eguchi\","
+				+ "\"Nicknames\":[\"take\",\"egu\"]"
+				+ "}",
+				actual);
+	}
+
+	@Test
+	@DisplayName("ストリーミングによるリネームが既存のリネームと同じ内容になることを検証します。")
+	void test4() throws Exception {
+		// 準備
+		Map<String, String> names = new HashMap<>() {
+			{
+				put("Name", "NameJp");
+				put("FundInfList", "FundInfs");
+				put("FundInfList.PortCd", "FundInfList.Fund");
+				put("FundInfList.EvalDt", "FundInfList.RtEvalDt");
+				put("Pref", "Prefctr");
+			}
+		};
+		var target = new JsonPropertyNameMapper(names);
+
+		// 検証
+		String json = "{"
+				+ "\"Name\":\"AAA\","
+				+ "\"Pref\":null,"
+				+ "\"FundInfList\":["
+				+ "{\"PortCd\":\"10000\",\"CurCd\":\"USD\",\"EvalDt\":\"20210726\"},"
+				+ "null,"
+				+ "{\"PortCd\":\"10001\",\"CurCd\":\"JPY\",\"Nested\":{\"PortCd\":\"-\"}}"
+				+ "]"
+				+ "}";
+		String actual = target.renamePropertiesStreaming(json);
+		JSONAssert.assertEquals(target.renameProperties(json), actual, true);
+
+		// プロパティの順序は入力のまま維持され、ツリーによるリネームとも一致する
+		assertEquals(target.renameProperties(json), actual);
+		assertEquals(
+				"{"
+				+ "\"NameJp\":\"AAA\","
+				+ "\"Pref\":null,"
+				+ "\"FundInfs\":["
+				+ "{\"Fund\":\"10000\",\"CurCd\":\"USD\",\"RtEvalDt\":\"20210726\"},"
+				+ "null,"
+				+ "{\"Fund\":\"10001\",\"CurCd\":\"JPY\",\"Nested\":{\"PortCd\":\"-\"}}"
+				+ "]"
 				+ "}",
 				actual);
 	}
+
+	@Test
+	@DisplayName("入力と出力を指定したストリーミングによるリネームを検証します。")
+	void test5() throws Exception {
+		// 準備
+		var target = new JsonPropertyNameMapper(Map.of("Amount", "AMOUNT", "Rates", "RATES"));
+
+		// 検証(数値の表記は維持される)
+		String json = "{\"Amount\":1.10,\"Rates\":[12345678901234567890,-0.5e-3],\"Flag\":true}";
+		var writer = new StringWriter();
+		target.renameProperties(new StringReader(json), writer);
+		assertEquals("{\"AMOUNT\":1.10,\"RATES\":[12345678901234567890,-0.5e-3],\"Flag\":true}",
+				writer.toString());
+	}
+
+	@Test
+	@DisplayName("1つのインスタンスを複数のスレッドで共有したリネームを検証します。")
+	void test6() {
+		// 準備
+		Map<String, String> names = new HashMap<>() {
+			{
+				put("Order", "ORDER");
+				put("Order.Customer", "Order.CUSTOMER");
+				put("Order.Customer.Name", "Order.Customer.NAME");
+			}
+		};
+		var target = new JsonPropertyNameMapper(names);
+
+		// 検証
+		String json = "{\"Order\":{\"Customer\":{\"Name\":\"egu\",\"Age\":20}}}";
+		String expected = "{\"ORDER\":{\"CUSTOMER\":{\"NAME\":\"egu\",\"Age\":20}}}";
+		IntStream.range(0, 1_000).parallel().forEach(index -> {
+			assertEquals(expected, target.renameProperties(json));
+			assertEquals(expected, target.renamePropertiesStreaming(json));
+		});
+	}
+
+	@Test
+	@DisplayName("バイト列のリネームがプロパティ名以外を入力のまま維持することを検証します。")
+	void test7() {
+		// 準備
+		Map<String, String> names = new HashMap<>() {
+			{
+				put("FundInfList", "FundInfs");
+				put("FundInfList.PortCd", "FundInfList.Fund");
+				put("Name", "名前");
+				put("Pref", "Prefctr");
+			}
+		};
+		var target = new JsonPropertyNameMapper(names);
+
+		// 検証(空白や数値の表記、エスケープは維持される)
+		String json = "{ \"Name\" : \"\\u0041AA\",\n"
+				+ "  \"Pref\":null, \"Amount\": 1.10,\n"
+				+ "  \"Memo\": {\"Name\": \"\\\"x\\\"\"},\n"
+				+ "  \"FundInfList\" : [ {\"PortCd\":\"10000\"}, {\"CurCd\":\"JPY\"} ] }";
+		byte[] actual = target.renameProperties(json.getBytes(StandardCharsets.UTF_8));
+		assertEquals("{ \"名前\" : \"\\u0041AA\",\n"
+				+ "  \"Pref\":null, \"Amount\": 1.10,\n"
+				+ "  \"Memo\": {\"Name\": \"\\\"x\\\"\"},\n"
+				+ "  \"FundInfs\" : [ {\"Fund\":\"10000\"}, {\"CurCd\":\"JPY\"} ] }",
+				new String(actual, StandardCharsets.UTF_8));
+
+		// リネームしない場合は複製しない
+		byte[] unchanged = "{\"Other\":1}".getBytes(StandardCharsets.UTF_8);
+		assertSame(unchanged, target.renameProperties(unchanged));
+	}
+
+	@Test
+	@DisplayName("バッファとストリーム、ファイルのリネームを検証します。")
+	void test8(@TempDir Path directory) throws Exception {
+		// 準備
+		var target = new JsonPropertyNameMapper(Map.of("UserID", "USER_ID"));
+		String json = "{\"UserID\":\"Admin\",\"Password\":\"p@ssword\"}";
+		String expected = "{\"USER_ID\":\"Admin\",\"Password\":\"p@ssword\"}";
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+		// バッファ(直接バッファを含む)
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+		direct.put((byte) ' ').put(bytes).put((byte) ' ').flip().position(1).limit(bytes.length + 1);
+		ByteBuffer actual = target.renameProperties(direct);
+		assertEquals(expected, StandardCharsets.UTF_8.decode(actual).toString());
+		assertEquals(1, direct.position(), "position");
+
+		// ストリーム
+		var output = new ByteArrayOutputStream();
+		target.renameProperties(new ByteArrayInputStream(bytes), output);
+		assertEquals(expected, output.toString(StandardCharsets.UTF_8));
+
+		// ファイル
+		Path source = Files.write(directory.resolve("source.json"), bytes);
+		Path renamed = directory.resolve("renamed.json");
+		target.renameProperties(source, renamed);
+		assertEquals(expected, Files.readString(renamed));
+
+		Path unchanged = Files.writeString(directory.resolve("unchanged.json"), "{\"Other\":1}");
+		target.renameProperties(unchanged, renamed);
+		assertEquals("{\"Other\":1}", Files.readString(renamed));
+
+		// 同じファイルは切り詰める前に拒否する
+		assertThrows(IllegalArgumentException.class,
+				() -> target.renameProperties(source, directory.resolve(".").resolve("source.json")));
+		assertEquals(json, Files.readString(source));
+	}
+
+	@Test
+	@DisplayName("大きな配列を分割した並列のリネームが逐次のリネームと同じ内容になることを検証します。")
+	void test9() {
+		// 準備
+		Map<String, String> names = new HashMap<>() {
+			{
+				put("FundInfList", "FundInfs");
+				put("FundInfList.PortCd", "FundInfList.Fund");
+				put("FundInfList.Rates.Cd", "FundInfList.Rates.CODE");
+				put("Name", "名前");
+			}
+		};
+		var target = new JsonPropertyNameMapper(names);
+		String elements = IntStream.range(0, 500)
+				.mapToObj(i -> i % 50 == 0 ? "null, " + i
+						: "{ \"PortCd\" : \"" + i + "\", \"Name\":\"\\\"" + i + "\", "
+								+ "\"Rates\": [ {\"Cd\":" + i + "}, [1, 2] ] }")
+				.collect(Collectors.joining(",\n "));
+		byte[] json = ("{\"Name\":\"a\", \"FundInfList\": [ " + elements + " ], \"Tail\": {\"Name\":1}}")
+				.getBytes(StandardCharsets.UTF_8);
+
+		// 検証(閾値と分割する大きさを小さくして分割させる)
+		var pool = new ForkJoinPool(4);
+		try {
+			byte[] expected = target.renameProperties(json);
+			assertArrayEquals(expected, target.renamePropertiesParallel(json, pool, 0, 256));
+			assertArrayEquals(expected, target.renamePropertiesParallel(json, pool, 0, 1));
+			assertArrayEquals(expected, target.renamePropertiesParallel(json));
+
+			// 最上位の配列も分割する
+			byte[] array = ("[" + elements + "]").getBytes(StandardCharsets.UTF_8);
+			var arrayTarget = new JsonPropertyNameMapper(Map.of("PortCd", "Fund"));
+			assertArrayEquals(arrayTarget.renameProperties(array),
+					arrayTarget.renamePropertiesParallel(array, pool, 0, 256));
+
+			// リネームしない場合は複製しない
+			byte[] unchanged = "[{\"Other\":1}, {\"Other\":2}]".getBytes(StandardCharsets.UTF_8);
+			assertSame(unchanged, arrayTarget.renamePropertiesParallel(unchanged, pool, 0, 1));
+		} finally {
+			pool.shutdown();
+		}
+
+		// 分割する大きさに満たない配列はプールへ渡さない(停止したプールでも完了する)
+		assertArrayEquals(target.renameProperties(json), target.renamePropertiesParallel(json, pool, 0, json.length));
+		assertThrows(RejectedExecutionException.class, () -> target.renamePropertiesParallel(json, pool, 0, 256));
+	}
+
+	@Test
+	@DisplayName("ワイルドカードによるリネームを検証します。")
+	void test10() throws Exception {
+		// 準備(ワイルドカードより名前の一致するマッピングを優先する)
+		Map<String, String> names = new LinkedHashMap<>() {
+			{
+				put("**.PortCd", "**.Fund");
+				put("*.Cd", "*.CODE");
+				put("Memo.Cd", "Memo.MEMO_CD");
+				put("Items.**.Rates.Cd", "Items.**.Rates.RATE_CD");
+			}
+		};
+		var target = new JsonPropertyNameMapper(names);
+
+		// 検証
+		String json = "{\"PortCd\":1,\"Cd\":\"root\","
+				+ "\"FundInfList\":[{\"PortCd\":2,\"Cd\":\"a\",\"Sub\":{\"PortCd\":3,\"Cd\":\"b\"}},{\"PortCd\":null}],"
+				+ "\"Memo\":{\"Cd\":\"m\"},"
+				+ "\"Items\":[{\"Rates\":{\"Cd\":4}},{\"Deep\":{\"Rates\":[{\"Cd\":5}]}}]}";
+		String expected = "{\"Fund\":1,\"Cd\":\"root\","
+				+ "\"FundInfList\":[{\"Fund\":2,\"CODE\":\"a\",\"Sub\":{\"Fund\":3,\"Cd\":\"b\"}},{\"PortCd\":null}],"
+				+ "\"Memo\":{\"MEMO_CD\":\"m\"},"
+				+ "\"Items\":[{\"Rates\":{\"RATE_CD\":4}},{\"Deep\":{\"Rates\":[{\"RATE_CD\":5}]}}]}";
+		assertEquals(expected, target.renamePropertiesStreaming(json));
+		assertEquals(expected, new String(target.renameProperties(json.getBytes(StandardCharsets.UTF_8)),
+				StandardCharsets.UTF_8));
+		JSONAssert.assertEquals(expected, target.renameProperties(json), true);
+	}
+
+	@Test
+	@DisplayName("ワイルドカードの位置が異なるマッピングがエラーとなることを検証します。")
+	void test11() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new JsonPropertyNameMapper(Map.of("**.PortCd", "Fund.PortCd")));
+		assertThrows(IllegalArgumentException.class,
+				() -> new JsonPropertyNameMapper(Map.of("FundInfList.*", "FundInfList.*")));
+		assertThrows(IllegalArgumentException.class,
+				() -> new JsonPropertyNameMapper(Map.of("*.PortCd", "**.PortCd")));
+		assertThrows(IllegalArgumentException.class,
+				() -> new JsonPropertyNameMapper(Map.of("**.PortCd", "Fund")));
+
+		// 状態が指数的に増えるマッピングは上限を超えた時点でエラーとなる
+		String wildcards = "**.a" + ".*".repeat(20);
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> new JsonPropertyNameMapper(Map.of(wildcards + ".X", wildcards + ".Y")));
+		assertTrue(e.getMessage().contains("states"), e.getMessage());
+	}
+
+	@Test
+	@DisplayName("読み込みながらリネームするパーサーを検証します。")
+	void test12() throws Exception {
+		// 準備
+		Map<String, String> names = new HashMap<>() {
+			{
+				put("FundInfList.PortCd", "FundInfList.Fund");
+				put("**.Cd", "**.CODE");
+				put("Name", "名前");
+			}
+		};
+		var target = new JsonPropertyNameMapper(names);
+		String json = "{\"Name\":null,\"Skip\":{\"Cd\":[1,{\"Cd\":2}]},"
+				+ "\"FundInfList\":[{\"PortCd\":\"1\",\"Cd\":3},null,[{\"PortCd\":\"2\"}]],\"Cd\":4}";
+
+		// 検証(値がnullのプロパティもリネームし、読み飛ばした配下の後も経路を維持する)
+		var objectMapper = new ObjectMapper();
+		try (var parser = target.createRenamingParser(objectMapper.createParser(json))) {
+			assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+			assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+			assertEquals("名前", parser.getCurrentName());
+			assertEquals(JsonToken.VALUE_NULL, parser.nextToken());
+			assertEquals("Skip", parser.nextFieldName());
+			assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+			parser.skipChildren();
+			assertEquals(objectMapper.readTree("[{\"Fund\":\"1\",\"CODE\":3},null,[{\"Fund\":\"2\"}]]"),
+					objectMapper.readTree(parser.nextValue() == JsonToken.START_ARRAY ? parser : null));
+			assertEquals("FundInfList", parser.getParsingContext().getCurrentName());
+			assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+			assertEquals("CODE", parser.getText());
+		}
+		try (var parser = target.createRenamingParser(objectMapper.createParser(json))) {
+			assertEquals(objectMapper.readTree("{\"名前\":null,\"Skip\":{\"CODE\":[1,{\"CODE\":2}]},"
+					+ "\"FundInfList\":[{\"Fund\":\"1\",\"CODE\":3},null,[{\"Fund\":\"2\"}]],\"CODE\":4}"),
+					objectMapper.readTree(parser));
+		}
+	}
+
+	@Test
+	@DisplayName("ツリーによるリネームで配列を経由する経路と小数の表記を検証します。")
+	void test13() {
+		// 準備
+		Map<String, String> names = new HashMap<>() {
+			{
+				put("Orders.Items.Cd", "Orders.Items.CODE");
+				put("Orders.Missing.Cd", "Orders.Missing.CODE");
+				put("Amount", "AMOUNT");
+			}
+		};
+		var target = new JsonPropertyNameMapper(names);
+
+		// 検証(途中のプロパティがない場合や配列の要素がオブジェクトでない場合はリネームしない)
+		String json = "{\"Amount\":1.10,\"Orders\":[{\"Items\":[{\"Cd\":1,\"Qty\":2},null,3]},"
+				+ "{\"Items\":{\"Cd\":4}},{\"Other\":5}]}";
+		assertEquals("{\"AMOUNT\":1.10,\"Orders\":[{\"Items\":[{\"CODE\":1,\"Qty\":2},null,3]},"
+				+ "{\"Items\":{\"CODE\":4}},{\"Other\":5}]}",
+				target.renameProperties(json));
+		assertEquals("[{\"AMOUNT\":1}]", target.renameProperties("[{\"Amount\":1}]"));
+		assertThrows(UncheckedIOException.class, () -> target.renameProperties("{\"Amount\":"));
+	}
+
+	@Test
+	@DisplayName("リネームの段階ごとのイベントが記録されることを検証します。")
+	void test14(@TempDir Path directory) throws Exception {
+		// 準備
+		Map<String, String> names = Map.of("Order.Cd", "Order.CODE", "Name", "NAME");
+		var target = new JsonPropertyNameMapper("order", names, true);
+		var disabled = new JsonPropertyNameMapper("disabled", names, false);
+		String json = "{\"Name\":\"a\",\"Order\":{\"Cd\":1}}";
+
+		// 実行
+		Path file = directory.resolve("json.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(JsonRenameEvent.NAME);
+			recording.start();
+			target.renameProperties(json);
+			target.renamePropertiesStreaming(json);
+			byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+			target.renameProperties(bytes);
+			target.renameProperties(ByteBuffer.wrap(bytes));
+			target.renameProperties(new ByteArrayInputStream(bytes), new ByteArrayOutputStream());
+			target.renameProperties(Files.write(directory.resolve("source.json"), bytes),
+					directory.resolve("target.json"));
+			target.renamePropertiesParallel(bytes, ForkJoinPool.commonPool(), 0, 16);
+			try (JsonParser parser = target.createRenamingParser(JacksonUtil.getJsonFactory().createParser(json))) {
+				while (parser.nextToken() != null) {
+					// 読み飛ばす
+				}
+			}
+			try (JsonParser parser = JacksonUtil.getJsonFactory().createParser(bytes);
+					JsonGenerator generator = JacksonUtil.getJsonFactory().createGenerator(new StringWriter())) {
+				target.renameProperties(parser, generator);
+			}
+			try (JsonGenerator generator = target.createRenamingGenerator(
+					JacksonUtil.getJsonFactory().createGenerator(new StringWriter()))) {
+				new ObjectMapper().writeValue(generator, new ObjectMapper().readTree(json));
+			}
+			disabled.renameProperties(json);
+			disabled.renameProperties(bytes);
+			recording.stop();
+			recording.dump(file);
+		}
+
+		// 検証(記録しない場合はイベントを作成しない)
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+				.filter(event -> event.getEventType().getName().equals(JsonRenameEvent.NAME))
+				.collect(Collectors.toList());
+		assertEquals(List.of("parse", "rename", "serialize", "streaming", "splice", "splice", "streaming",
+				"splice", "parallel", "binding", "streaming", "generating"), events.stream()
+				.map(event -> event.getString("stage")).collect(Collectors.toList()));
+		for (RecordedEvent event : events) {
+			assertEquals("order", event.getString("mappingName"));
+			assertEquals(event.getString("stage").equals("generating") ? -1 : json.length(),
+					event.getLong("payloadLength"));
+			assertEquals(2, event.getInt("mappingDepth"));
+		}
+	}
+
+	/** 書き込みながらリネームする生成器の検証に利用する値です */
+	public static class Order {
+
+		/** プロパティ名をSerializableStringとして書き込む値 */
+		public String Cd = "1";
+
+		/** nullの値 */
+		public String Name;
+
+		/** 入れ子の値 */
+		public List<Map<String, Object>> Items = List.of(Map.of("Cd", 2), Map.of("Other", List.of(3)));
+	}
+
+	@Test
+	@DisplayName("書き込みながらリネームする生成器がストリーミングによるリネームと同じ内容になることを検証します。")
+	void test15() throws Exception {
+		// 準備
+		Map<String, String> names = new HashMap<>() {
+			{
+				put("Orders.Cd", "Orders.CODE");
+				put("Orders.Name", "Orders.NAME");
+				put("Orders.Items.Cd", "Orders.Items.CODE");
+				put("**.Flag", "**.FLAG");
+				put("Total", "TOTAL");
+			}
+		};
+		var target = new JsonPropertyNameMapper(names);
+		var objectMapper = new ObjectMapper();
+		Map<String, Object> value = new LinkedHashMap<>();
+		value.put("Total", null);
+		value.put("Orders", List.of(new Order(), new Order()));
+		value.put("Nested", Map.of("Flag", true, "Amount", 1.5));
+
+		// 実行
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator generator = target.createRenamingGenerator(objectMapper.createGenerator(writer))) {
+			objectMapper.writeValue(generator, value);
+		}
+
+		// 検証(値がnullのプロパティはリネームしない)
+		String expected = target.renamePropertiesStreaming(objectMapper.writeValueAsString(value));
+		assertEquals(expected, writer.toString());
+		assertTrue(expected.startsWith("{\"Total\":null,\"Orders\":[{\"CODE\":\"1\",\"Name\":null,"
+				+ "\"Items\":[{\"CODE\":2}"), expected);
+		assertTrue(expected.contains("\"FLAG\":true"), expected);
+	}
 }
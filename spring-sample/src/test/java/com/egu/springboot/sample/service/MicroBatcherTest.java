@@ -0,0 +1,99 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+
+/**
+ * {@link MicroBatcher}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class MicroBatcherTest {
+
+	/** 呼び出しを並行に行うExecutor */
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("件数の上限ごとにまとめて実行され、入力の順序で結果が返ることを検証します。")
+	void test1() throws Exception {
+		MicroBatcher target = new MicroBatcher("Batched", 2, 10_000);
+		List<List<Object>> batches = new ArrayList<>();
+		Function<List<Object>, Object> execution = inputs -> {
+			synchronized (batches) {
+				batches.add(List.copyOf(inputs));
+			}
+			return inputs.stream().map(input -> input + "!").collect(Collectors.toList());
+		};
+
+		List<CompletableFuture<Object>> futures = new ArrayList<>();
+		for (String input : List.of("a", "b", "c", "d")) {
+			futures.add(CompletableFuture.supplyAsync(() -> target.execute(input, execution), executor));
+		}
+		for (int index = 0; index < futures.size(); index++) {
+			assertEquals("abcd".charAt(index) + "!", futures.get(index).get());
+		}
+		assertEquals(2, batches.size(), batches.toString());
+		batches.forEach(batch -> assertEquals(2, batch.size(), batches.toString()));
+	}
+
+	@Test
+	@DisplayName("一括実行の例外が各呼び出し元にラップされずに送出されることを検証します。")
+	void test2() throws Exception {
+		MicroBatcher target = new MicroBatcher("Batched", 2, 10_000);
+		IOException error = new IOException("error");
+
+		CompletableFuture<Object> first = CompletableFuture.supplyAsync(
+				() -> target.execute("a", inputs -> fail(error)), executor);
+		CompletableFuture<Object> second = CompletableFuture.supplyAsync(
+				() -> target.execute("b", inputs -> fail(error)), executor);
+		assertSame(error, assertThrows(ExecutionException.class, first::get).getCause());
+		assertSame(error, assertThrows(ExecutionException.class, second::get).getCause());
+	}
+
+	@Test
+	@DisplayName("結果の件数が入力と一致しない場合に例外となることを検証します。")
+	void test3() {
+		MicroBatcher target = new MicroBatcher("Batched", 1, 0);
+		IllegalStateException actual = assertThrows(IllegalStateException.class,
+				() -> target.execute("a", inputs -> List.of()));
+		assertTrue(actual.getMessage().startsWith("Service[Batched] must return 1 results"), actual.getMessage());
+	}
+
+	@Test
+	@DisplayName("待ち時間の上限に達した場合は件数の上限に満たなくても実行されることを検証します。")
+	void test4() {
+		MicroBatcher target = new MicroBatcher("Batched", 4, 10);
+		List<List<Object>> batches = new ArrayList<>();
+
+		assertEquals("e!", target.execute("e", inputs -> {
+			batches.add(List.copyOf(inputs));
+			return List.of(inputs.get(0) + "!");
+		}));
+		assertEquals(List.of(List.of("e")), batches);
+	}
+
+	/** 例外を送出します */
+	@SneakyThrows
+	private static Object fail(Throwable error) {
+		throw error;
+	}
+}
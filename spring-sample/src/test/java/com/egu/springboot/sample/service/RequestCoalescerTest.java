@@ -0,0 +1,123 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+
+/**
+ * {@link RequestCoalescer}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class RequestCoalescerTest {
+
+	/** 呼び出しを並行に行うExecutor */
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("同じ入力値の同時の呼び出しが1回の実行にまとめられることを検証します。")
+	void test1() throws Exception {
+		ServiceMetrics metrics = new ServiceMetrics("Coalesced");
+		RequestCoalescer target = new RequestCoalescer(metrics);
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(1);
+
+		// 先行の呼び出しを実行中のままにする
+		CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> target.execute("key", () -> {
+			started.countDown();
+			await(latch);
+			return "result-" + executions.incrementAndGet();
+		}), executor);
+		started.await();
+
+		// 後続の呼び出しは実行されずに待機する
+		List<CompletableFuture<Object>> followers = new ArrayList<>();
+		for (int index = 0; index < 3; index++) {
+			followers.add(CompletableFuture.supplyAsync(
+					() -> target.execute(new String("key"), () -> "result-" + executions.incrementAndGet()), executor));
+		}
+		while (metrics.getCoalesced() < 3) {
+			Thread.onSpinWait();
+		}
+
+		latch.countDown();
+		assertEquals("result-1", leader.get());
+		for (CompletableFuture<Object> follower : followers) {
+			assertEquals("result-1", follower.get());
+		}
+		assertEquals(1, executions.get(), "executions");
+
+		// 完了後は結果を保持しない
+		assertEquals(0, target.getInFlightCount(), "inFlight");
+		assertEquals("result-2", target.execute("key", () -> "result-" + executions.incrementAndGet()));
+	}
+
+	@Test
+	@DisplayName("後続の呼び出しに同じ例外がラップされずに送出されることを検証します。")
+	void test2() throws Exception {
+		ServiceMetrics metrics = new ServiceMetrics("Coalesced");
+		RequestCoalescer target = new RequestCoalescer(metrics);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(1);
+		IOException error = new IOException("error");
+
+		CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> target.execute("key", () -> {
+			started.countDown();
+			await(latch);
+			return fail(error);
+		}), executor);
+		started.await();
+		CompletableFuture<Object> follower = CompletableFuture.supplyAsync(
+				() -> target.execute("key", () -> "unexpected"), executor);
+		while (metrics.getCoalesced() < 1) {
+			Thread.onSpinWait();
+		}
+
+		latch.countDown();
+		assertSame(error, assertThrows(ExecutionException.class, leader::get).getCause());
+		assertSame(error, assertThrows(ExecutionException.class, follower::get).getCause());
+		assertEquals(0, target.getInFlightCount(), "inFlight");
+	}
+
+	@Test
+	@DisplayName("設定値が注釈の設定を上書きすることを検証します。")
+	void test3() {
+		ServiceMetrics metrics = new ServiceMetrics("Get");
+		assertNull(RequestCoalescer.of(null, null, metrics), "default");
+
+		BLProxyProperties.Service settings = new BLProxyProperties.Service();
+		settings.setCoalesce(true);
+		assertNotNull(RequestCoalescer.of(null, settings, metrics), "settings");
+	}
+
+	/** ラッチの解放を待ちます */
+	@SneakyThrows
+	private static void await(CountDownLatch latch) {
+		latch.await();
+	}
+
+	/** 例外を送出します */
+	@SneakyThrows
+	private static Object fail(Throwable error) {
+		throw error;
+	}
+}
@@ -0,0 +1,121 @@
+package com.egu.springboot.sample.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+
+/**
+ * {@link ResultCache}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class ResultCacheTest {
+
+	/** 呼び出しを並行に行うExecutor */
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("時間のかかる実行中に、他の入力値の追加と参照が待たされないことを検証します。")
+	void test1() throws Exception {
+		ResultCache target = new ResultCache(Duration.ofMinutes(1), 100);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(1);
+
+		// ハッシュ値が同じ入力値の実行を完了しないままにする
+		CompletableFuture<Object> slow = CompletableFuture.supplyAsync(() -> target.get(new Key("slow"), key -> {
+			started.countDown();
+			await(latch);
+			return "slow";
+		}), executor);
+		started.await();
+
+		// 他の入力値は実行の完了を待たずに追加と参照ができる
+		AtomicInteger executions = new AtomicInteger();
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			assertEquals("fast-1", target.get(new Key("fast"), key -> "fast-" + executions.incrementAndGet()));
+			assertEquals("fast-1", target.get(new Key("fast"), key -> "fast-" + executions.incrementAndGet()));
+		});
+		assertEquals(1, executions.get());
+		assertFalse(slow.isDone());
+
+		latch.countDown();
+		assertEquals("slow", slow.get());
+	}
+
+	@Test
+	@DisplayName("同じ入力値の同時の呼び出しが1回の実行で結果を共有し、例外はキャッシュされないことを検証します。")
+	void test2() throws Exception {
+		ResultCache target = new ResultCache(Duration.ofMinutes(1), 100);
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(1);
+
+		CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> target.get("key", key -> {
+			started.countDown();
+			await(latch);
+			return "result-" + executions.incrementAndGet();
+		}), executor);
+		started.await();
+		CompletableFuture<Object> follower = CompletableFuture.supplyAsync(
+				() -> target.get("key", key -> "result-" + executions.incrementAndGet()), executor);
+
+		latch.countDown();
+		assertEquals("result-1", leader.get());
+		assertEquals("result-1", follower.get());
+		assertEquals(1, executions.get());
+
+		// 例外はラップせずに送出し、次の呼び出しで再度実行する
+		IOException error = new IOException("error");
+		assertSame(error, assertThrows(IOException.class, () -> target.get("error", key -> fail(error))));
+		assertEquals("retried", target.get("error", key -> "retried"));
+	}
+
+	/** ハッシュ値が常に同じ入力値 */
+	private static class Key {
+
+		/** 値 */
+		private final String value;
+
+		Key(String value) {
+			this.value = value;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && value.equals(((Key) obj).value);
+		}
+
+		@Override
+		public int hashCode() {
+			return 0;
+		}
+	}
+
+	/** ラッチの解放を待ちます */
+	@SneakyThrows
+	private static void await(CountDownLatch latch) {
+		latch.await();
+	}
+
+	/** 検査例外をそのまま送出します */
+	@SneakyThrows
+	private static Object fail(Throwable e) {
+		throw e;
+	}
+}
@@ -1,9 +1,20 @@
 package com.egu.springboot.sample.service;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 /**
  * サンプル用のサービスです。
@@ -15,6 +26,8 @@ public class SampleBLService {
 	/** サンプル用のリクエストです */
 	@Data
 	@Builder
+	@NoArgsConstructor
+	@AllArgsConstructor
 	public static class SampleRequest {
 		private String id;
 		private String name;
@@ -29,6 +42,13 @@ public class SampleBLService {
 		private String memo;
 	}
 
+	/** キャッシュ対象の呼び出し回数 */
+	private final AtomicInteger cachedCount = new AtomicInteger();
+
+	/** 一括実行ごとの件数 */
+	@Getter
+	private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
 	/** テストメソッド1 */
 	@BusinessLogic("Get")
 	public SampleResponse get(SampleRequest request) {
@@ -48,4 +68,52 @@ public class SampleBLService {
 				.memo("POST")
 				.build();
 	}
+
+	/** テストメソッド3 */
+	@BusinessLogic("Error")
+	public SampleResponse error(SampleRequest request) throws IOException {
+		throw new IOException(request.getId());
+	}
+
+	/** テストメソッド4 */
+	@BusinessLogic("Context")
+	public String context(String key) {
+		return MDC.get(key);
+	}
+
+	/** テストメソッド5 */
+	@BusinessLogic(value = "Cached", cacheable = true, cacheMaximumSize = 10)
+	public SampleResponse cached(SampleRequest request) {
+		return SampleResponse.builder()
+				.id(request.getId())
+				.name(request.getName())
+				.memo(String.valueOf(cachedCount.incrementAndGet()))
+				.build();
+	}
+
+	/** テストメソッド6 */
+	@BusinessLogic(value = "Limited", maxConcurrency = 1)
+	public String limited(CountDownLatch latch) throws InterruptedException {
+		latch.await();
+		return "done";
+	}
+
+	/** テストメソッド7 */
+	@BusinessLogic("Invalid")
+	public SampleResponse invalid(SampleRequest request) {
+		throw new IllegalArgumentException(request.getId());
+	}
+
+	/** テストメソッド8 */
+	@BusinessLogic(value = "Batched", batch = true, maxBatchSize = 4, batchWindowMillis = 200)
+	public List<String> batched(List<String> inputs) {
+		batchSizes.add(inputs.size());
+		return inputs.stream().map(String::toUpperCase).collect(Collectors.toList());
+	}
+
+	/** テストメソッド9 */
+	@BusinessLogic("Fatal")
+	public String fatal(String message) {
+		throw new AssertionError(message);
+	}
 }
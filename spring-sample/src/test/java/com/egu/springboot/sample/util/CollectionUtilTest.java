@@ -0,0 +1,282 @@
+package com.egu.springboot.sample.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.egu.springboot.sample.util.CollectionUtil.CompactTree;
+import com.egu.springboot.sample.util.CollectionUtil.Node;
+
+/**
+ * {@link CollectionUtil}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class CollectionUtilTest {
+
+	@Test
+	@DisplayName("行きがけ順、帰りがけ順、幅優先の走査を検証します。")
+	void test1() {
+		Node<String> root = tree();
+
+		assertEquals(List.of("A", "B", "D", "E", "C", "F", "G"), values(root.preOrderIterator()));
+		assertEquals(List.of("D", "E", "B", "F", "G", "C", "A"), values(root.postOrderIterator()));
+		assertEquals(List.of("A", "B", "C", "D", "E", "F", "G"), values(root.breadthFirstIterator()));
+		assertEquals(List.of("A", "B", "D", "E", "C", "F", "G"),
+				root.preOrderStream().map(Node::getValue).collect(Collectors.toList()));
+		assertEquals(List.of("D", "E", "B", "F", "G"),
+				root.postOrderStream().limit(5).map(Node::getValue).collect(Collectors.toList()));
+		assertEquals(List.of("F", "G"), root.breadthFirstStream()
+				.filter(node -> node.getValue().compareTo("E") > 0).map(Node::getValue).collect(Collectors.toList()));
+
+		Iterator<Node<String>> iterator = new Node<>("X").postOrderIterator();
+		assertEquals("X", iterator.next().getValue());
+		assertThrows(NoSuchElementException.class, iterator::next);
+	}
+
+	@Test
+	@DisplayName("深さごとのノード、葉、全てのノードの取得を検証します。")
+	void test2() {
+		Node<String> root = tree();
+
+		assertEquals(List.of("A"), values(root.getDepthNodes(1)));
+		assertEquals(List.of("D", "E", "F", "G"), values(root.getDepthNodes(3)));
+		assertTrue(root.getDepthNodes(4).isEmpty());
+		assertTrue(root.getDepthNodes(0).isEmpty());
+		assertEquals(List.of(List.of("A"), List.of("B", "C"), List.of("D", "E", "F", "G")),
+				root.getLevels().stream().map(CollectionUtilTest::values).collect(Collectors.toList()));
+		assertEquals(List.of("D", "E", "F", "G"), values(root.getLeafs()));
+		assertEquals(List.of("A", "B", "D", "E", "C", "F", "G"), values(root.getAllNodes()));
+	}
+
+	@Test
+	@DisplayName("最大の深さが子供の追加で再計算されることを検証します。")
+	void test3() {
+		Node<String> root = tree();
+		Node<String> f = root.getChildren().get(1).getChildren().get(0);
+		assertEquals(3, root.getMaxDepth());
+		assertEquals(1, f.getMaxDepth());
+
+		// 葉へ追加すると祖先の深さが変わる
+		Node<String> h = new Node<>("H");
+		f.addChild(h);
+		assertEquals(2, f.getMaxDepth());
+		assertEquals(4, root.getMaxDepth());
+
+		// 計算済みの部分木を追加する
+		Node<String> i = new Node<>("I");
+		i.addChild(new Node<>("J"));
+		assertEquals(2, i.getMaxDepth());
+		h.addChild(i);
+		assertEquals(6, root.getMaxDepth());
+		assertEquals(5, root.getChildren().get(1).getMaxDepth());
+		assertEquals(2, root.getChildren().get(0).getMaxDepth());
+
+		// 子供のコレクションを直接変更して保持した値を古くすることはできない
+		assertThrows(UnsupportedOperationException.class, () -> f.getChildren().add(new Node<>("K")));
+		assertEquals(6, root.getMaxDepth());
+	}
+
+	@Test
+	@DisplayName("深い階層でスタックが溢れないことを検証します。")
+	void test4() {
+		Node<Integer> root = new Node<>(0);
+		Node<Integer> current = root;
+		for (int index = 1; index < 200_000; index++) {
+			Node<Integer> child = new Node<>(index);
+			current.addChild(child);
+			current = child;
+		}
+
+		assertEquals(200_000, root.getMaxDepth());
+		assertEquals(200_000, root.getAllNodes().size());
+		assertEquals(List.of(current), root.getLeafs());
+		assertEquals(List.of(current), root.getDepthNodes(200_000));
+		assertEquals(199_999, root.postOrderStream().findFirst().orElseThrow().getValue());
+		assertEquals(200_000, root.breadthFirstStream().count());
+	}
+
+	@Test
+	@DisplayName("配列で表した木の構造と問い合わせを検証します。")
+	void test5() {
+		CompactTree<String> target = CompactTree.of(tree());
+
+		// 行きがけ順の番号となる
+		assertEquals(7, target.size());
+		assertEquals(List.of("A", "B", "D", "E", "C", "F", "G"), IntStream.range(0, target.size())
+				.mapToObj(target::getValue).collect(Collectors.toList()));
+		assertEquals(CompactTree.NONE, target.getParent(0));
+		assertTrue(target.isRoot(0));
+		assertEquals(1, target.getFirstChild(0));
+		assertEquals(4, target.getNextSibling(1));
+		assertEquals(CompactTree.NONE, target.getNextSibling(4));
+		assertEquals(4, target.getParent(6));
+		assertFalse(target.hasChildren(6));
+		assertEquals(3, target.getLevel(6));
+
+		// 問い合わせは同じ木の Node と同じ結果となる
+		assertArrayEquals(new int[] { 0, 4, 5 }, target.getRouteNodes(5));
+		assertArrayEquals(new int[] { 2, 3, 5, 6 }, target.getDepthNodes(3));
+		assertArrayEquals(new int[] { 5, 6 }, target.getDepthNodes(4, 2));
+		assertArrayEquals(new int[0], target.getDepthNodes(4));
+		assertArrayEquals(new int[] { 2, 3, 5, 6 }, target.getLeafs());
+		assertArrayEquals(new int[] { 2, 3 }, target.getLeafs(1));
+		assertArrayEquals(new int[] { 6 }, target.getLeafs(6));
+		assertEquals(3, target.getMaxDepth());
+		assertEquals(2, target.getMaxDepth(4));
+		assertEquals(1, target.getMaxDepth(3));
+		assertEquals(List.of("A", "B", "D", "E", "C", "F", "G"), values(target.toNode().getAllNodes()));
+		assertThrows(IndexOutOfBoundsException.class, () -> target.getValue(7));
+	}
+
+	@Test
+	@DisplayName("配列で表した深い木の変換を検証します。")
+	void test6() {
+		Node<Integer> root = new Node<>(0);
+		Node<Integer> current = root;
+		for (int index = 1; index < 200_000; index++) {
+			Node<Integer> child = new Node<>(index);
+			current.addChild(child);
+			current.addChild(new Node<>(-index));
+			current = child;
+		}
+
+		CompactTree<Integer> target = CompactTree.of(root);
+		assertEquals(root.getAllNodes().size(), target.size());
+		assertEquals(root.getMaxDepth(), target.getMaxDepth());
+		assertEquals(root.getLeafs().size(), target.getLeafs().length);
+		assertEquals(199_999, target.getValue(target.getDepthNodes(200_000)[0]));
+		assertEquals(200_000, target.getRouteNodes(target.getDepthNodes(200_000)[0]).length);
+	}
+
+	@Test
+	@DisplayName("部分木の単位で分割する Spliterator を検証します。")
+	void test7() {
+		Node<Integer> root = wideTree(4, 6);
+		int size = root.getSubtreeSize();
+		assertEquals(1 + 4 + 16 + 64 + 256 + 1024, size);
+
+		// 分割した前半と後半を合わせると行きがけ順となる
+		Spliterator<Node<Integer>> suffix = root.spliterator();
+		assertTrue(suffix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+		Spliterator<Node<Integer>> prefix = suffix.trySplit();
+		assertNotNull(prefix);
+		assertEquals(size, prefix.estimateSize() + suffix.estimateSize());
+		List<Node<Integer>> actual = new ArrayList<>();
+		prefix.forEachRemaining(actual::add);
+		suffix.forEachRemaining(actual::add);
+		assertEquals(root.getAllNodes(), actual);
+
+		// 並列のストリームでも順序と件数を維持する
+		assertEquals(root.getAllNodes(), root.parallelStream().collect(Collectors.toList()));
+		assertEquals(size, root.parallelStream().count());
+		assertEquals(root.preOrderStream().mapToLong(Node::getValue).sum(),
+				root.parallelStream().mapToLong(Node::getValue).sum());
+
+		// 計算済みの木へ追加した後も大きさは正確となる
+		root.getChildren().get(3).getChildren().get(3).addChild(new Node<>(-1));
+		assertEquals(size + 1, root.spliterator().estimateSize());
+		assertEquals(size + 1, root.parallelStream().count());
+		assertEquals(size + 1, root.parallelStream().collect(Collectors.toList()).size());
+
+		// 葉だけの場合は分割しない
+		assertNull(new Node<>(1).spliterator().trySplit());
+
+		// 深い階層でも溢れない
+		Node<Integer> chain = new Node<>(0);
+		Node<Integer> current = chain;
+		for (int index = 1; index < 200_000; index++) {
+			Node<Integer> child = new Node<>(index);
+			current.addChild(child);
+			current = child;
+		}
+		assertEquals(200_000, chain.parallelStream().count());
+	}
+
+	@Test
+	@DisplayName("部分木の集計と値を変換した木の作成を検証します。")
+	void test8() {
+		Node<Integer> root = wideTree(3, 7);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// 部分木のノードの数と値の合計
+			BiFunction<Node<Integer>, List<Long>, Long> sum = (node, children) -> node.getValue()
+					+ children.stream().mapToLong(Long::longValue).sum();
+			long expected = root.preOrderStream().mapToLong(Node::getValue).sum();
+			assertEquals(expected, root.fold(sum, pool, 8));
+			assertEquals(expected, root.fold(sum));
+			assertEquals(root.getSubtreeSize(), root.<Integer> fold(
+					(node, children) -> 1 + children.stream().mapToInt(Integer::intValue).sum(), pool, 8));
+
+			// 子供の結果は子供の順に渡される
+			assertEquals("A(B(D,E),C(F,G))", tree().<String> fold((node, children) -> children.isEmpty()
+					? node.getValue()
+					: node.getValue() + "(" + String.join(",", children) + ")", pool, 2));
+		} finally {
+			pool.shutdown();
+		}
+
+		// 同じ形の木となる
+		Node<String> mapped = root.map(value -> "v" + value);
+		assertEquals(root.getSubtreeSize(), mapped.getSubtreeSize());
+		assertEquals(root.getMaxDepth(), mapped.getMaxDepth());
+		assertEquals(root.preOrderStream().map(node -> "v" + node.getValue()).collect(Collectors.toList()),
+				mapped.preOrderStream().map(Node::getValue).collect(Collectors.toList()));
+		assertTrue(mapped.getChildren().stream().allMatch(child -> child.getParent() == mapped));
+	}
+
+	/** 指定した子供の数と深さの木を作成します */
+	private static Node<Integer> wideTree(int fanout, int depth) {
+		Node<Integer> root = new Node<>(0);
+		List<Node<Integer>> level = List.of(root);
+		int value = 1;
+		for (int current = 1; current < depth; current++) {
+			List<Node<Integer>> next = new ArrayList<>();
+			for (var parent : level) {
+				for (int index = 0; index < fanout; index++) {
+					Node<Integer> child = new Node<>(value++);
+					parent.addChild(child);
+					next.add(child);
+				}
+			}
+			level = next;
+		}
+		return root;
+	}
+
+	/** 3階層の木を作成します */
+	private static Node<String> tree() {
+		Node<String> root = new Node<>("A");
+		Node<String> b = new Node<>("B");
+		Node<String> c = new Node<>("C");
+		root.addChild(b);
+		root.addChild(c);
+		b.addChild(new Node<>("D"));
+		b.addChild(new Node<>("E"));
+		c.addChild(new Node<>("F"));
+		c.addChild(new Node<>("G"));
+		return root;
+	}
+
+	/** ノードの値を取り出します */
+	private static List<String> values(Iterator<Node<String>> iterator) {
+		List<String> values = new ArrayList<>();
+		iterator.forEachRemaining(node -> values.add(node.getValue()));
+		return values;
+	}
+
+	/** ノードの値を取り出します */
+	private static List<String> values(List<Node<String>> nodes) {
+		return values(nodes.iterator());
+	}
+}
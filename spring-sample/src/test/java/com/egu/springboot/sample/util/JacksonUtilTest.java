@@ -0,0 +1,87 @@
+package com.egu.springboot.sample.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.UncheckedIOException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.egu.springboot.sample.util.JacksonUtil.CompiledPath;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * {@link JacksonUtil}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+class JacksonUtilTest {
+
+	/** 注文の名前の経路 */
+	private static final CompiledPath NAME = JacksonUtil.compile("/Order/Items/1/Name");
+
+	@Test
+	@DisplayName("解析済みの経路による取得と設定を検証します。")
+	void test1() {
+		JsonNode root = JacksonUtil.readTree("{\"Order\":{\"Items\":[{\"Name\":\"a\"},{\"Name\":\"b\"}]}}");
+
+		assertEquals("b", NAME.get(root).asText());
+		assertNull(JacksonUtil.compile("/Order/None").get(root));
+		assertSame(root, JacksonUtil.compile("").get(root));
+
+		// 同じ経路を別のノードにも利用できる
+		NAME.put(root, TextNode.valueOf("c"));
+		assertEquals("c", NAME.get(root).asText());
+		JacksonUtil.compile("/Order/Items/-").put(root, JacksonUtil.createObjectNode());
+		JacksonUtil.compile("/Order/Items/3").put(root, IntNode.valueOf(4));
+		JacksonUtil.compile("/Order/Customer/a~1b~0c").put(root, IntNode.valueOf(1));
+		assertEquals("{\"Order\":{\"Items\":[{\"Name\":\"a\"},{\"Name\":\"c\"},{},4],\"Customer\":{\"a/b~c\":1}}}",
+				JacksonUtil.writeValueAsString(root));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> JacksonUtil.compile("/Order/Items/9").put(root, IntNode.valueOf(9)));
+		assertThrows(IllegalArgumentException.class,
+				() -> JacksonUtil.compile("/Order/Items/9/Name").put(root, IntNode.valueOf(9)));
+		assertThrows(IllegalArgumentException.class, () -> JacksonUtil.compile("").put(root, root));
+	}
+
+	@Test
+	@DisplayName("解析済みの経路によるリネームと削除、プロパティの順序を検証します。")
+	void test2() {
+		JsonNode root = JacksonUtil.readTree("{\"B\":1,\"A\":2.50,\"C\":{\"D\":3,\"E\":4}}");
+
+		// リネームしたプロパティは位置を維持し、それ以外の順序と小数の表記も維持される
+		assertTrue(JacksonUtil.compile("/B").rename(root, "B2"));
+		assertTrue(JacksonUtil.compile("/C/D").rename(root, "D2"));
+		assertFalse(JacksonUtil.compile("/None").rename(root, "X"));
+		assertEquals("{\"B2\":1,\"A\":2.50,\"C\":{\"D2\":3,\"E\":4}}", JacksonUtil.writeValueAsString(root));
+
+		// 変更後の名前が既に存在する場合は値を置き換える
+		assertTrue(JacksonUtil.compile("/C/D2").rename(root, "E"));
+		assertEquals("{\"B2\":1,\"A\":2.50,\"C\":{\"E\":3}}", JacksonUtil.writeValueAsString(root));
+
+		assertEquals(3, JacksonUtil.compile("/C/E").remove(root).asInt());
+		assertNull(JacksonUtil.compile("/C/E").remove(root));
+		assertEquals("{\"B2\":1,\"A\":2.50,\"C\":{}}", JacksonUtil.writeValueAsString(root));
+
+		assertThrows(UncheckedIOException.class, () -> JacksonUtil.readTree("{\"A\":"));
+		assertThrows(IllegalArgumentException.class, () -> JacksonUtil.compile("A"));
+	}
+
+	@Test
+	@DisplayName("共有のファクトリーの設定を検証します。")
+	void test3() {
+		JsonFactory factory = JacksonUtil.getJsonFactory();
+		assertTrue(factory.isEnabled(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES));
+		assertFalse(factory.isEnabled(JsonFactory.Feature.INTERN_FIELD_NAMES));
+		assertFalse(factory.isEnabled(StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION));
+		assertSame(factory, JacksonUtil.getObjectMapper().getFactory());
+
+		// 例外のメッセージに入力の内容を含めない
+		var exception = assertThrows(UncheckedIOException.class, () -> JacksonUtil.readTree("{\"secret\":"));
+		assertFalse(exception.getMessage().contains("secret"), exception.getMessage());
+	}
+}
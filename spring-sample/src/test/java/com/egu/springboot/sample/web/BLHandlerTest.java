@@ -0,0 +1,130 @@
+package com.egu.springboot.sample.web;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link BLHandler}を検証するためのクラスです。
+ * @author t-eguchi
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"json.mapper.mappings.get-request.[ID]=id",
+		"json.mapper.mappings.get-request.[NAME]=name",
+		"json.mapper.mappings.get-response.memo=MEMO",
+		"bl.proxy.services.[Get].request-mapping=get-request",
+		"bl.proxy.services.[Get].response-mapping=get-response",
+		"bl.proxy.web.max-request-body-size=1KB" })
+class BLHandlerTest {
+
+	/** テスト用のクライアント */
+	@Autowired
+	private WebTestClient client;
+
+	@Test
+	@DisplayName("リクエストとレスポンスをリネームした実行を検証します。")
+	void test1() {
+		client.post().uri("/bl/{serviceId}", "Get")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"ID\":\"id-1\",\"NAME\":\"name-1\"}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectBody()
+				.json("{\"id\":\"id-1\",\"name\":\"name-1\",\"MEMO\":\"GET\"}")
+				.jsonPath("$.memo").doesNotExist();
+
+		// マッピングを設定していないサービスはリネームしない
+		client.post().uri("/bl/{serviceId}", "Post")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"id\":\"id-2\",\"name\":\"name-2\"}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().json("{\"id\":\"id-2\",\"name\":\"name-2\",\"memo\":\"POST\"}");
+
+		// 結果がnullの場合
+		client.post().uri("/bl/{serviceId}", "Context")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("\"none\"")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).isEqualTo("null");
+	}
+
+	@Test
+	@DisplayName("異常時の状態を検証します。")
+	void test2() {
+		client.post().uri("/bl/{serviceId}", "None")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{}")
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody().jsonPath("$.message").isEqualTo("Service[None] is not found.");
+
+		client.post().uri("/bl/{serviceId}", "Post")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"id\":")
+				.exchange()
+				.expectStatus().isBadRequest();
+
+		client.post().uri("/bl/{serviceId}", "Post")
+				.contentType(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.message").isEqualTo("Request body is required.");
+
+		// ビジネスロジックの例外はメッセージを返さない
+		client.post().uri("/bl/{serviceId}", "Error")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"id\":\"id-3\"}")
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR)
+				.expectBody().jsonPath("$.message").isEqualTo(BLHandler.INTERNAL_SERVER_ERROR_MESSAGE);
+
+		// ビジネスロジックが送出したIllegalArgumentExceptionは入力の誤りとしない
+		client.post().uri("/bl/{serviceId}", "Invalid")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"id\":\"id-4\"}")
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR)
+				.expectBody().jsonPath("$.message").isEqualTo(BLHandler.INTERNAL_SERVER_ERROR_MESSAGE);
+	}
+
+	@Test
+	@DisplayName("本文の上限を超えたリクエストが413となることを検証します。")
+	void test3() {
+		String name = "x".repeat(1024);
+
+		// Content-Lengthにより読み込む前に判定する
+		client.post().uri("/bl/{serviceId}", "Post")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"id\":\"id-5\",\"name\":\"" + name + "\"}")
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE)
+				.expectBody().jsonPath("$.message").isEqualTo("Request body must not exceed 1024 bytes.");
+
+		// Content-Lengthがない場合は読み込み中に判定する
+		client.post().uri("/bl/{serviceId}", "Post")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(BodyInserters.fromPublisher(
+						Flux.just("{\"id\":\"id-6\",\"name\":\"", name, "\"}"), String.class))
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+
+		// 上限以内であれば実行する
+		client.post().uri("/bl/{serviceId}", "Post")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(BodyInserters.fromPublisher(
+						Flux.just("{\"id\":\"id-7\",", "\"name\":\"name-7\"}"), String.class))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.id").isEqualTo("id-7");
+	}
+}
@@ -0,0 +1,34 @@
+package org.springframework.cloud.context.environment;
+
+import java.util.Set;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Spring Cloudの同名のイベントを検証用に置き換えるクラスです。
+ * @author t-eguchi
+ */
+@SuppressWarnings("serial")
+public class EnvironmentChangeEvent extends ApplicationEvent {
+
+	/** 変更されたキー */
+	private final Set<String> keys;
+
+	/**
+	 * 発行元と変更されたキーを渡し、インスタンスを生成します。
+	 * @param context
+	 * @param keys
+	 */
+	public EnvironmentChangeEvent(Object context, Set<String> keys) {
+		super(context);
+		this.keys = keys;
+	}
+
+	/**
+	 * 変更されたキーを取得します。
+	 * @return
+	 */
+	public Set<String> getKeys() {
+		return keys;
+	}
+}